@@ -0,0 +1,18 @@
+package com.github.strikerx3.jxinput;
+
+import com.github.strikerx3.jxinput.enums.XInputButton;
+import com.github.strikerx3.jxinput.listener.SimpleXInputDeviceListener;
+
+/**
+ * A listener that counts the events it receives, so that the dispatch cannot be optimized away.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public class CountingListener extends SimpleXInputDeviceListener {
+    public int events;
+
+    @Override
+    public void buttonChanged(final XInputButton button, final boolean pressed) {
+        events++;
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.strikerx3.jxinput;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.strikerx3.jxinput.XInputDevice.XInputStateReader;
+import com.github.strikerx3.jxinput.enums.XInputButton;
+
+/**
+ * Measures the decoding of an {@code XINPUT_STATE} struct into {@link XInputComponents} by state readers compiled from
+ * pipelines of increasing complexity, including the axis threshold checks.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecodeBenchmark {
+    private ByteBuffer buffer;
+    private XInputComponents components;
+    private XInputAxisChangeTracker axisTracker;
+    private XInputStateReader rawReader;
+    private XInputStateReader normalizedReader;
+    private XInputStateReader processedReader;
+    private XInputStateReader fullReader;
+
+    @Setup
+    public void setup() {
+        buffer = XInputDevice.newBuffer(16);
+        new StubXInputBackend(StubXInputBackend.Mode.IDLE).fill(buffer);
+        components = new XInputComponents();
+        axisTracker = new XInputAxisChangeTracker();
+
+        final XInputAxisProcessor processor = new XInputAxisProcessor.Builder().build();
+        rawReader = new XInputStateReader(XInputPipeline.RAW);
+        normalizedReader = new XInputStateReader(XInputPipeline.DEFAULT);
+        processedReader = new XInputStateReader(new XInputPipeline.Builder().axisProcessor(processor).build());
+        fullReader = new XInputStateReader(new XInputPipeline.Builder()
+                .axisProcessor(processor)
+                .jitterThreshold(64)
+                .remapButton(XInputButton.A, XInputButton.B)
+                .remapButton(XInputButton.B, XInputButton.A)
+                .build());
+    }
+
+    @Benchmark
+    public XInputComponents rawReader() {
+        rawReader.read(buffer, components, axisTracker);
+        return components;
+    }
+
+    @Benchmark
+    public XInputComponents normalizedReader() {
+        normalizedReader.read(buffer, components, axisTracker);
+        return components;
+    }
+
+    @Benchmark
+    public XInputComponents processedReader() {
+        processedReader.read(buffer, components, axisTracker);
+        return components;
+    }
+
+    @Benchmark
+    public XInputComponents fullReader() {
+        fullReader.read(buffer, components, axisTracker);
+        return components;
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.strikerx3.jxinput;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.strikerx3.jxinput.enums.XInputButton;
+
+/**
+ * Measures the stages that run after decoding: copying the components, computing button deltas and dispatching events
+ * to the listeners.
+ * <p>
+ * The device is polled twice during setup so that the delta contains both pressed and released buttons.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeltaBenchmark {
+    private static final XInputButton[] BUTTONS = XInputButton.values();
+
+    @Param({ "0", "1", "16" })
+    public int listeners;
+
+    private XInputDevice device;
+    private XInputComponents source;
+    private XInputComponents target;
+
+    @Setup
+    public void setup() {
+        XInputDevice.setBackend(new StubXInputBackend(StubXInputBackend.Mode.CHANGING));
+        device = new XInputDevice(0);
+        device.poll();
+        for (int i = 0; i < listeners; i++) {
+            device.addListener(new CountingListener());
+        }
+        source = device.getComponents();
+        target = new XInputComponents();
+    }
+
+    @Benchmark
+    public XInputComponents copyComponents() {
+        target.copy(source);
+        return target;
+    }
+
+    @Benchmark
+    public int isPressed() {
+        final XInputButtonsDelta buttons = device.getDelta().getButtons();
+        int pressed = 0;
+        for (final XInputButton button : BUTTONS) {
+            if (buttons.isPressed(button)) {
+                pressed++;
+            }
+        }
+        return pressed;
+    }
+
+    @Benchmark
+    public int pressedMask() {
+        return device.getDelta().getButtons().getPressedMask();
+    }
+
+    @Benchmark
+    public void processDelta() {
+        device.processDelta();
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.strikerx3.jxinput;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.strikerx3.jxinput.exceptions.XInputNotLoadedException;
+
+/**
+ * Compares polling every device individually against {@link XInputDevice#pollAll()}.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PollAllBenchmark {
+    @Param({ "IDLE", "CHANGING" })
+    public StubXInputBackend.Mode mode;
+
+    private XInputDevice[] devices;
+
+    @Setup
+    public void setup() throws XInputNotLoadedException {
+        XInputDevice.setBackend(new StubXInputBackend(mode));
+        devices = XInputDevice.getAllDevices();
+    }
+
+    @Benchmark
+    public void pollEach() {
+        for (final XInputDevice device : devices) {
+            device.poll();
+        }
+    }
+
+    @Benchmark
+    public void pollAll() throws XInputNotLoadedException {
+        XInputDevice.pollAll();
+    }
+}
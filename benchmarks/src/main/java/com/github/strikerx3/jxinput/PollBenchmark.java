@@ -0,0 +1,52 @@
+package com.github.strikerx3.jxinput;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the full {@link XInputDevice#poll()} path: backend call, decode, delta and listener dispatch.
+ * <p>
+ * Run with {@code -prof gc} to see the garbage produced per poll.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PollBenchmark {
+    @Param({ "0", "1", "16" })
+    public int listeners;
+
+    @Param({ "IDLE", "CHANGING" })
+    public StubXInputBackend.Mode mode;
+
+    private XInputDevice device;
+
+    @Setup
+    public void setup() {
+        XInputDevice.setBackend(new StubXInputBackend(mode));
+        device = new XInputDevice(0);
+        for (int i = 0; i < listeners; i++) {
+            device.addListener(new CountingListener());
+        }
+    }
+
+    @Benchmark
+    public boolean poll() {
+        return device.poll();
+    }
+}
@@ -0,0 +1,148 @@
+package com.github.strikerx3.jxinput;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import com.github.strikerx3.jxinput.backend.XInputBackend;
+import com.github.strikerx3.jxinput.natives.XInputConstants;
+
+/**
+ * A minimal backend that feeds precomputed {@code XINPUT_STATE} structs to the devices, adding as little overhead as
+ * possible to the measurements. Every device is connected.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public class StubXInputBackend implements XInputBackend {
+    /**
+     * Determines how the state changes between polls.
+     */
+    public enum Mode {
+        /**
+         * The state never changes, as with an idle controller.
+         */
+        IDLE,
+
+        /**
+         * Every poll alternates between two states with different buttons and axes.
+         */
+        CHANGING
+    }
+
+    private final Mode mode;
+    private final long[] stateA;
+    private final long[] stateB;
+    private int packetNumber;
+
+    public StubXInputBackend(final Mode mode) {
+        this.mode = mode;
+        stateA = encode((short) (XInputConstants.XINPUT_GAMEPAD_A | XInputConstants.XINPUT_GAMEPAD_DPAD_UP), 0, 255, 12000, -4000, 0, 32767);
+        stateB = encode((short) (XInputConstants.XINPUT_GAMEPAD_B | XInputConstants.XINPUT_GAMEPAD_DPAD_LEFT), 128, 0, -12000, 4000, -32768, 0);
+    }
+
+    /**
+     * Writes the state that the next poll will return into the buffer.
+     *
+     * @param data the buffer
+     */
+    public void fill(final ByteBuffer data) {
+        final long[] state = next();
+        data.putLong(0, state[0] | packetNumber & 0xFFFFFFFFL);
+        data.putLong(8, state[1]);
+    }
+
+    private long[] next() {
+        if (mode == Mode.CHANGING) {
+            packetNumber++;
+            return (packetNumber & 1) == 0 ? stateA : stateB;
+        }
+        return stateA;
+    }
+
+    private static long[] encode(final short buttons, final int lt, final int rt, final int lx, final int ly, final int rx, final int ry) {
+        final ByteBuffer buffer = ByteBuffer.allocate(16).order(ByteOrder.nativeOrder());
+        buffer.putInt(0, 0);
+        buffer.putShort(4, buttons);
+        buffer.put(6, (byte) lt);
+        buffer.put(7, (byte) rt);
+        buffer.putShort(8, (short) lx);
+        buffer.putShort(10, (short) ly);
+        buffer.putShort(12, (short) rx);
+        buffer.putShort(14, (short) ry);
+        return new long[] { buffer.getLong(0), buffer.getLong(8) };
+    }
+
+    @Override
+    public boolean isLoaded() {
+        return true;
+    }
+
+    @Override
+    public Throwable getLoadError() {
+        return null;
+    }
+
+    @Override
+    public boolean isLoaded14() {
+        return true;
+    }
+
+    @Override
+    public Throwable getLoadError14() {
+        return null;
+    }
+
+    @Override
+    public int getLoadedLibVersion() {
+        return XInputLibraryVersion.XINPUT_1_4.ordinal();
+    }
+
+    @Override
+    public boolean isGuideButtonSupported() {
+        return true;
+    }
+
+    @Override
+    public int pollDevice(final int playerNum, final ByteBuffer data) {
+        fill(data);
+        return XInputConstants.ERROR_SUCCESS;
+    }
+
+    @Override
+    public void pollAllDevices(final ByteBuffer data) {
+        final long[] state = next();
+        for (int i = 0; i < XInputConstants.MAX_PLAYERS; i++) {
+            data.putLong(i * 16, state[0] | packetNumber & 0xFFFFFFFFL);
+            data.putLong(i * 16 + 8, state[1]);
+            data.putInt(XInputConstants.MAX_PLAYERS * 16 + i * 4, XInputConstants.ERROR_SUCCESS);
+        }
+    }
+
+    @Override
+    public int setVibration(final int playerNum, final int leftMotor, final int rightMotor) {
+        return XInputConstants.ERROR_SUCCESS;
+    }
+
+    @Override
+    public void setEnabled(final boolean enabled) {}
+
+    @Override
+    public int getCapabilities(final int playerNum, final int flags, final ByteBuffer data) {
+        return XInputConstants.ERROR_DEVICE_NOT_CONNECTED;
+    }
+
+    @Override
+    public int getBatteryInformation(final int playerNum, final int deviceType, final ByteBuffer data) {
+        return XInputConstants.ERROR_DEVICE_NOT_CONNECTED;
+    }
+
+    @Override
+    public int getKeystroke(final int playerNum, final ByteBuffer data) {
+        return XInputConstants.ERROR_EMPTY;
+    }
+
+    @Override
+    public int getKeystrokes(final int playerNum, final ByteBuffer data, final int max) {
+        data.putInt(max * 8, XInputConstants.ERROR_EMPTY);
+        return 0;
+    }
+}
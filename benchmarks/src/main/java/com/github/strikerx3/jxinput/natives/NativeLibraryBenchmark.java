@@ -0,0 +1,173 @@
+package com.github.strikerx3.jxinput.natives;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the startup cost of {@link NativeLibraryHelper#extract(String, String, ClassLoader)} on a library about as
+ * large as the debug XInput libraries, laid out for the current platform in a temporary class path directory:
+ * <ul>
+ * <li>{@code warm}: the library was already extracted, as on every start after the first</li>
+ * <li>{@code warmUnhashed}: likewise, for a library without a hash resource</li>
+ * <li>{@code cold}: the library is extracted for the first time</li>
+ * <li>{@code legacyWarm}: the previous up-to-date check, which hashed both the resource and the extracted file with MD5
+ * one byte at a time</li>
+ * </ul>
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NativeLibraryBenchmark {
+    private static final String PATH = "lib/native";
+    private static final String LIB_NAME = "BenchmarkNatives";
+    private static final String UNHASHED_LIB_NAME = "BenchmarkNativesUnhashed";
+    private static final int LIB_SIZE = 64 * 1024;
+
+    private File root;
+    private ClassLoader classLoader;
+    private File legacyFile;
+
+    @Setup
+    public void setup() throws IOException {
+        root = Files.createTempDirectory("jxinput-bench").toFile();
+        // must be set before NativeLibraryHelper is initialized
+        System.setProperty("native.lib.path", new File(root, "extracted").getPath());
+
+        final File classPath = new File(root, "classpath");
+        final byte[] contents = new byte[LIB_SIZE];
+        new Random(42).nextBytes(contents);
+        final File lib = writeResource(classPath, NativeLibraryHelper.toResourcePath(PATH, LIB_NAME), contents);
+        writeResource(classPath, NativeLibraryHelper.toResourcePath(PATH, LIB_NAME) + ".sha256", sha256(contents).getBytes(StandardCharsets.US_ASCII));
+        writeResource(classPath, NativeLibraryHelper.toResourcePath(PATH, UNHASHED_LIB_NAME), contents);
+        classLoader = new URLClassLoader(new URL[] { classPath.toURI().toURL() }, null);
+
+        legacyFile = new File(root, "legacy/" + lib.getName());
+        writeFile(legacyFile, contents);
+    }
+
+    @TearDown
+    public void tearDown() {
+        delete(root);
+    }
+
+    @Benchmark
+    public File warm() throws IOException {
+        return NativeLibraryHelper.extract(PATH, LIB_NAME, classLoader);
+    }
+
+    @Benchmark
+    public File warmUnhashed() throws IOException {
+        return NativeLibraryHelper.extract(PATH, UNHASHED_LIB_NAME, classLoader);
+    }
+
+    @Benchmark
+    public File cold(final ColdState state) throws IOException {
+        return state.extracted = NativeLibraryHelper.extract(PATH, LIB_NAME, classLoader);
+    }
+
+    @Benchmark
+    public boolean legacyWarm() throws IOException {
+        final byte[] md5Jar = legacyMd5(classLoader.getResourceAsStream(NativeLibraryHelper.toResourcePath(PATH, LIB_NAME)));
+        final byte[] md5File = legacyMd5(new FileInputStream(legacyFile));
+        return Arrays.equals(md5Jar, md5File);
+    }
+
+    /**
+     * Removes the extracted library before every invocation.
+     */
+    @State(Scope.Thread)
+    public static class ColdState {
+        File extracted;
+
+        @Setup(Level.Invocation)
+        public void removeExtracted() {
+            if (extracted != null) {
+                extracted.delete();
+            }
+        }
+    }
+
+    private static byte[] legacyMd5(final InputStream input) throws IOException {
+        final BufferedInputStream in = new BufferedInputStream(input);
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("MD5");
+            final DigestInputStream digestInputStream = new DigestInputStream(in, digest);
+            while (digestInputStream.read() >= 0) {}
+            return digest.digest();
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            in.close();
+        }
+    }
+
+    private static String sha256(final byte[] data) {
+        try {
+            final StringBuilder hex = new StringBuilder();
+            for (final byte b : MessageDigest.getInstance("SHA-256").digest(data)) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static File writeResource(final File classPath, final String resourcePath, final byte[] contents) throws IOException {
+        final File file = new File(classPath, resourcePath);
+        writeFile(file, contents);
+        return file;
+    }
+
+    private static void writeFile(final File file, final byte[] contents) throws IOException {
+        file.getParentFile().mkdirs();
+        final FileOutputStream fos = new FileOutputStream(file);
+        try {
+            fos.write(contents);
+        } finally {
+            fos.close();
+        }
+    }
+
+    private static void delete(final File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (final File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
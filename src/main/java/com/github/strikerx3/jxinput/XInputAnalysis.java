@@ -0,0 +1,179 @@
+package com.github.strikerx3.jxinput;
+
+import java.util.Arrays;
+
+import com.github.strikerx3.jxinput.enums.XInputAxis;
+import com.github.strikerx3.jxinput.enums.XInputButton;
+import com.github.strikerx3.jxinput.natives.XInputConstants;
+
+/**
+ * Aggregated statistics of recorded input, produced by an {@link XInputAnalyzer}.
+ * <p>
+ * Durations only count the time during which the device was connected. Axis histograms cover the normalized range of
+ * each analog axis (-1 to 1 for the thumbsticks, 0 to 1 for the triggers) split into equal bins, and hold the time
+ * spent in each bin.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public class XInputAnalysis {
+    static final int ANALOG_AXES = XInputAxis.DPAD.ordinal();// the D-Pad is not analog
+
+    private static final int PLAYERS = XInputConstants.MAX_PLAYERS;
+    private static final int BUTTONS = XInputButton.values().length;
+
+    private final int histogramBins;
+
+    private long sessions;
+    private long records;
+    private final long[] connectedNanos = new long[PLAYERS];
+    private final long[] pressCounts = new long[PLAYERS * BUTTONS];
+    private final long[] holdNanos = new long[PLAYERS * BUTTONS];
+    private final long[] histograms;
+
+    XInputAnalysis(final int histogramBins) {
+        this.histogramBins = histogramBins;
+        histograms = new long[PLAYERS * ANALOG_AXES * histogramBins];
+    }
+
+    void addSession() {
+        sessions++;
+    }
+
+    void addRecord() {
+        records++;
+    }
+
+    void addPress(final int playerNum, final int button) {
+        pressCounts[playerNum * BUTTONS + button]++;
+    }
+
+    void addConnected(final int playerNum, final long nanos) {
+        connectedNanos[playerNum] += nanos;
+    }
+
+    void addHold(final int playerNum, final int button, final long nanos) {
+        holdNanos[playerNum * BUTTONS + button] += nanos;
+    }
+
+    void addAxisTime(final int playerNum, final int axis, final int bin, final long nanos) {
+        histograms[(playerNum * ANALOG_AXES + axis) * histogramBins + bin] += nanos;
+    }
+
+    int getHistogramBins() {
+        return histogramBins;
+    }
+
+    /**
+     * Adds the statistics of another analysis to this one.
+     *
+     * @param other the analysis to merge
+     */
+    void merge(final XInputAnalysis other) {
+        sessions += other.sessions;
+        records += other.records;
+        add(connectedNanos, other.connectedNanos);
+        add(pressCounts, other.pressCounts);
+        add(holdNanos, other.holdNanos);
+        add(histograms, other.histograms);
+    }
+
+    private static void add(final long[] target, final long[] source) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] += source[i];
+        }
+    }
+
+    /**
+     * Returns the number of recordings analyzed.
+     *
+     * @return the number of recordings
+     */
+    public long getSessionCount() {
+        return sessions;
+    }
+
+    /**
+     * Returns the number of records analyzed.
+     *
+     * @return the number of records
+     */
+    public long getRecordCount() {
+        return records;
+    }
+
+    /**
+     * Returns the time during which a device was connected.
+     *
+     * @param playerNum the player number
+     * @return the connected time, in nanoseconds
+     */
+    public long getConnectedNanos(final int playerNum) {
+        return connectedNanos[playerNum];
+    }
+
+    /**
+     * Returns how many times a button was pressed on a device.
+     *
+     * @param playerNum the player number
+     * @param button the button
+     * @return the number of presses
+     */
+    public long getPressCount(final int playerNum, final XInputButton button) {
+        return pressCounts[playerNum * BUTTONS + button.ordinal()];
+    }
+
+    /**
+     * Returns how many times a button was pressed on all devices.
+     *
+     * @param button the button
+     * @return the number of presses
+     */
+    public long getPressCount(final XInputButton button) {
+        long total = 0;
+        for (int player = 0; player < PLAYERS; player++) {
+            total += getPressCount(player, button);
+        }
+        return total;
+    }
+
+    /**
+     * Returns the total time a button was held down on a device.
+     *
+     * @param playerNum the player number
+     * @param button the button
+     * @return the hold duration, in nanoseconds
+     */
+    public long getHoldNanos(final int playerNum, final XInputButton button) {
+        return holdNanos[playerNum * BUTTONS + button.ordinal()];
+    }
+
+    /**
+     * Returns the total time a button was held down on all devices.
+     *
+     * @param button the button
+     * @return the hold duration, in nanoseconds
+     */
+    public long getHoldNanos(final XInputButton button) {
+        long total = 0;
+        for (int player = 0; player < PLAYERS; player++) {
+            total += getHoldNanos(player, button);
+        }
+        return total;
+    }
+
+    /**
+     * Returns the histogram of an analog axis of a device.
+     *
+     * @param playerNum the player number
+     * @param axis the axis; must not be {@link XInputAxis#DPAD}
+     * @return the time spent in each bin, in nanoseconds
+     * @throws IllegalArgumentException if the axis is the D-Pad
+     */
+    public long[] getAxisHistogram(final int playerNum, final XInputAxis axis) {
+        if (axis == XInputAxis.DPAD) {
+            throw new IllegalArgumentException("The D-Pad is not an analog axis");
+        }
+        final int start = (playerNum * ANALOG_AXES + axis.ordinal()) * histogramBins;
+        return Arrays.copyOfRange(histograms, start, start + histogramBins);
+    }
+}
@@ -0,0 +1,299 @@
+package com.github.strikerx3.jxinput;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.github.strikerx3.jxinput.XInputDevice.XInputStateReader;
+import com.github.strikerx3.jxinput.enums.XInputAxis;
+import com.github.strikerx3.jxinput.enums.XInputButton;
+import com.github.strikerx3.jxinput.natives.XInputConstants;
+import com.github.strikerx3.jxinput.recording.XInputRecording;
+
+/**
+ * Analyzes recordings made by an {@link com.github.strikerx3.jxinput.recording.XInputRecorder XInputRecorder} in
+ * parallel and aggregates the results into an {@link XInputAnalysis}.
+ * <p>
+ * The recorded states are decoded by the same reader and delta logic used by {@link XInputDevice}, configured by an
+ * {@link XInputPipeline}, but without going through a device or a backend. The work is split with fork/join: one task
+ * per file, and large files are further split into segments that start at keyframes, each read independently through
+ * its own memory-mapped cursor. The statistics of every task are merged at the end, so the results do not depend on how
+ * the work was split.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public class XInputAnalyzer {
+    // Recordings have a keyframe every 1024 records, so each segment task reads about 16K records
+    private static final int KEYFRAMES_PER_TASK = 16;
+
+    private static final XInputButton[] BUTTONS = XInputButton.values();
+    private static final XInputAxis[] AXES = XInputAxis.values();
+
+    private final XInputPipeline pipeline;
+    private final int histogramBins;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates an analyzer that uses the {@linkplain XInputPipeline#DEFAULT default pipeline}, 20 histogram bins and a
+     * fork/join pool with one thread per processor.
+     */
+    public XInputAnalyzer() {
+        this(XInputPipeline.DEFAULT, 20, new ForkJoinPool());
+    }
+
+    /**
+     * Creates an analyzer.
+     *
+     * @param pipeline the pipeline that processes the recorded states; the axes are always normalized
+     * @param histogramBins the number of bins of the axis histograms
+     * @param pool the fork/join pool that runs the analysis
+     * @throws IllegalArgumentException if the number of bins is not positive
+     */
+    public XInputAnalyzer(final XInputPipeline pipeline, final int histogramBins, final ForkJoinPool pool) {
+        if (histogramBins <= 0) {
+            throw new IllegalArgumentException("Histogram bins must be positive: " + histogramBins);
+        }
+        this.pipeline = new XInputPipeline.Builder(pipeline).normalize(true).build();
+        this.histogramBins = histogramBins;
+        this.pool = pool;
+    }
+
+    /**
+     * Analyzes a set of recordings.
+     *
+     * @param files the recording files
+     * @return the aggregated statistics
+     * @throws IOException if any of the recordings cannot be read
+     */
+    public XInputAnalysis analyze(final List<File> files) throws IOException {
+        try {
+            return pool.invoke(new FilesTask(files, 0, files.size()));
+        } catch (final AnalysisException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Wraps I/O errors thrown inside tasks.
+     */
+    private static class AnalysisException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        AnalysisException(final IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+
+    /**
+     * Splits a list of files in halves until there is one file per task.
+     */
+    private class FilesTask extends RecursiveTask<XInputAnalysis> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<File> files;
+        private final int from, to;
+
+        FilesTask(final List<File> files, final int from, final int to) {
+            this.files = files;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected XInputAnalysis compute() {
+            if (to - from == 0) {
+                return new XInputAnalysis(histogramBins);
+            }
+            if (to - from == 1) {
+                return analyzeFile(files.get(from));
+            }
+            final int mid = (from + to) >>> 1;
+            final FilesTask right = new FilesTask(files, mid, to);
+            right.fork();
+            final XInputAnalysis result = new FilesTask(files, from, mid).compute();
+            result.merge(right.join());
+            return result;
+        }
+
+        private XInputAnalysis analyzeFile(final File file) {
+            try {
+                final XInputRecording recording = new XInputRecording(file);
+                try {
+                    final int keyframes = recording.getKeyframeCount();
+                    final List<SegmentTask> segments = new ArrayList<SegmentTask>();
+                    for (int start = 0; start < Math.max(keyframes, 1); start += KEYFRAMES_PER_TASK) {
+                        segments.add(new SegmentTask(recording, start, Math.min(start + KEYFRAMES_PER_TASK, keyframes)));
+                    }
+                    final XInputAnalysis result = new XInputAnalysis(histogramBins);
+                    result.addSession();
+                    for (final SegmentTask segment : invokeAll(segments)) {
+                        result.merge(segment.join());
+                    }
+                    return result;
+                } finally {
+                    recording.close();
+                }
+            } catch (final IOException e) {
+                throw new AnalysisException(e);
+            }
+        }
+    }
+
+    /**
+     * Analyzes the records between two keyframes of a recording.
+     */
+    private class SegmentTask extends RecursiveTask<XInputAnalysis> {
+        private static final long serialVersionUID = 1L;
+
+        private final XInputRecording recording;
+        private final int startKeyframe, endKeyframe;
+
+        SegmentTask(final XInputRecording recording, final int startKeyframe, final int endKeyframe) {
+            this.recording = recording;
+            this.startKeyframe = startKeyframe;
+            this.endKeyframe = endKeyframe;
+        }
+
+        @Override
+        protected XInputAnalysis compute() {
+            try {
+                return new SegmentAnalyzer(recording, histogramBins, new XInputStateReader(pipeline))
+                        .analyze(startKeyframe, endKeyframe);
+            } catch (final IOException e) {
+                throw new AnalysisException(e);
+            }
+        }
+    }
+
+    /**
+     * Replays a segment of a recording through the state reader and collects the statistics.
+     * <p>
+     * A segment covers the records with timestamps in the range (start, end], where start and end are the timestamps
+     * of its keyframes; the first segment also includes the records at time 0 and the last one extends to the end of
+     * the recording. Every record therefore belongs to exactly one segment, and time is accounted per device from the
+     * start to the end of the segment.
+     */
+    private static class SegmentAnalyzer {
+        private final XInputRecording recording;
+        private final XInputRecording.Cursor cursor;
+        private final XInputStateReader reader;
+        private final XInputAnalysis analysis;
+        private final int bins;
+
+        private final ByteBuffer buffer = ByteBuffer.allocate(16).order(ByteOrder.nativeOrder());
+        private final XInputComponents[] lastComponents = new XInputComponents[XInputConstants.MAX_PLAYERS];
+        private final XInputComponents[] components = new XInputComponents[XInputConstants.MAX_PLAYERS];
+        private final XInputComponentsDelta[] deltas = new XInputComponentsDelta[XInputConstants.MAX_PLAYERS];
+        private final boolean[] connected = new boolean[XInputConstants.MAX_PLAYERS];
+        private final long[] accountedUntil = new long[XInputConstants.MAX_PLAYERS];
+
+        SegmentAnalyzer(final XInputRecording recording, final int bins, final XInputStateReader reader) {
+            this.recording = recording;
+            this.reader = reader;
+            this.bins = bins;
+            cursor = recording.newCursor();
+            analysis = new XInputAnalysis(bins);
+            for (int i = 0; i < XInputConstants.MAX_PLAYERS; i++) {
+                lastComponents[i] = new XInputComponents();
+                components[i] = new XInputComponents();
+                deltas[i] = new XInputComponentsDelta(lastComponents[i], components[i]);
+            }
+        }
+
+        XInputAnalysis analyze(final int startKeyframe, final int endKeyframe) throws IOException {
+            final long start;
+            if (startKeyframe == 0) {
+                start = 0;
+                cursor.rewind();
+            } else {
+                start = recording.getKeyframeTimestamp(startKeyframe);
+                cursor.seek(start);
+            }
+            final long end = endKeyframe < recording.getKeyframeCount()
+                    ? recording.getKeyframeTimestamp(endKeyframe)
+                    : recording.getDuration();
+
+            for (int player = 0; player < XInputConstants.MAX_PLAYERS; player++) {
+                accountedUntil[player] = start;
+                decode(player);
+            }
+            while (cursor.peekTimestamp() <= end) {
+                final long timestamp = cursor.peekTimestamp();
+                final int player = cursor.next();
+                account(player, timestamp);
+                lastComponents[player].copy(components[player]);
+                decode(player);
+                countPresses(player);
+                analysis.addRecord();
+            }
+            for (int player = 0; player < XInputConstants.MAX_PLAYERS; player++) {
+                account(player, end);
+            }
+            return analysis;
+        }
+
+        private void decode(final int player) {
+            connected[player] = cursor.getReturnCode(player) == XInputConstants.ERROR_SUCCESS;
+            if (connected[player]) {
+                cursor.copyState(player, buffer, 0);
+                reader.read(buffer, components[player], null);
+            } else {
+                components[player].reset();
+            }
+        }
+
+        private void countPresses(final int player) {
+            final int pressed = deltas[player].getButtons().getPressedMask();
+            if (pressed == 0) {
+                return;
+            }
+            for (final XInputButton button : BUTTONS) {
+                if ((pressed & button.getMask()) != 0) {
+                    analysis.addPress(player, button.ordinal());
+                }
+            }
+        }
+
+        /**
+         * Adds the time since the last accounted timestamp to the statistics of a device, using its current state.
+         */
+        private void account(final int player, final long timestamp) {
+            final long nanos = timestamp - accountedUntil[player];
+            accountedUntil[player] = timestamp;
+            if (!connected[player] || nanos <= 0) {
+                return;
+            }
+            analysis.addConnected(player, nanos);
+
+            final int held = components[player].getButtons().getMask();
+            if (held != 0) {
+                for (final XInputButton button : BUTTONS) {
+                    if ((held & button.getMask()) != 0) {
+                        analysis.addHold(player, button.ordinal(), nanos);
+                    }
+                }
+            }
+
+            final XInputAxes axes = components[player].getAxes();
+            for (int axis = 0; axis < XInputAnalysis.ANALOG_AXES; axis++) {
+                final float value = axes.get(AXES[axis]);
+                // thumbsticks range from -1 to 1, triggers from 0 to 1
+                final float position = axis < 4 ? (value + 1) * 0.5f : value;
+                final int bin = Math.max(0, Math.min(bins - 1, (int) (position * bins)));
+                analysis.addAxisTime(player, axis, bin, nanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.github.strikerx3.jxinput;
+
+import com.github.strikerx3.jxinput.enums.XInputAxis;
+
+/**
+ * Tracks the last reported value of each axis of a device and decides when an axis moved far enough to fire an
+ * {@link com.github.strikerx3.jxinput.listener.XInputAxisListener#axisChanged(XInputAxis, float, float)
+ * axisChanged} event.
+ * <p>
+ * An axis is reported when its value moves by at least its threshold away from the last reported value. Since the
+ * comparison is made against the last reported value rather than the previous poll, small oscillations around a
+ * position never produce events. Values at rest or at the ends of the axis are always reported, so that the last
+ * reported value settles on them exactly.
+ * <p>
+ * Values are always normalized: thumbsticks from -1 to 1, triggers from 0 to 1. The D-Pad reports its direction and
+ * fires on every change.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+final class XInputAxisChangeTracker {
+    private static final XInputAxis[] AXES = XInputAxis.values();
+    private static final int DPAD = XInputAxis.DPAD.ordinal();
+
+    private final float[] reported = new float[AXES.length];
+    private final float[] deltas = new float[AXES.length];
+    private int changedMask;
+
+    /**
+     * Resets the last reported values to the resting position of every axis, as decoded by the state reader. The
+     * values must go through the same normalization as the checked values, or the first poll at rest would report the
+     * difference as a change.
+     *
+     * @param rest the axes decoded from a state with every axis at rest
+     * @param normalized whether the normalized values of the axes were computed by the reader
+     */
+    void reset(final XInputAxes rest, final boolean normalized) {
+        reported[0] = normalized ? rest.lx : normalizeThumb(rest.lxRaw);
+        reported[1] = normalized ? rest.ly : normalizeThumb(rest.lyRaw);
+        reported[2] = normalized ? rest.rx : normalizeThumb(rest.rxRaw);
+        reported[3] = normalized ? rest.ry : normalizeThumb(rest.ryRaw);
+        reported[4] = normalized ? rest.lt : normalizeTrigger(rest.ltRaw);
+        reported[5] = normalized ? rest.rt : normalizeTrigger(rest.rtRaw);
+        reported[DPAD] = rest.dpad;
+        changedMask = 0;
+    }
+
+    /**
+     * Checks every axis against its threshold. Called by the state readers right after decoding the axes.
+     *
+     * @param axes the decoded axes
+     * @param normalized whether the normalized values of the axes were computed by the reader
+     * @param thresholds the threshold of each axis, indexed by ordinal
+     */
+    void check(final XInputAxes axes, final boolean normalized, final float[] thresholds) {
+        checkThumb(0, axes.lxRaw, normalized ? axes.lx : normalizeThumb(axes.lxRaw), thresholds[0]);
+        checkThumb(1, axes.lyRaw, normalized ? axes.ly : normalizeThumb(axes.lyRaw), thresholds[1]);
+        checkThumb(2, axes.rxRaw, normalized ? axes.rx : normalizeThumb(axes.rxRaw), thresholds[2]);
+        checkThumb(3, axes.ryRaw, normalized ? axes.ry : normalizeThumb(axes.ryRaw), thresholds[3]);
+        checkTrigger(4, axes.ltRaw, normalized ? axes.lt : normalizeTrigger(axes.ltRaw), thresholds[4]);
+        checkTrigger(5, axes.rtRaw, normalized ? axes.rt : normalizeTrigger(axes.rtRaw), thresholds[5]);
+        if (axes.dpad != reported[DPAD]) {
+            report(DPAD, axes.dpad);
+        }
+    }
+
+    private void checkThumb(final int axis, final int raw, final float value, final float threshold) {
+        check(axis, value, raw == 0 || raw == Short.MIN_VALUE || raw == Short.MAX_VALUE, threshold);
+    }
+
+    private void checkTrigger(final int axis, final int raw, final float value, final float threshold) {
+        check(axis, value, raw == 0 || raw == 255, threshold);
+    }
+
+    private void check(final int axis, final float value, final boolean endpoint, final float threshold) {
+        final float last = reported[axis];
+        if (endpoint ? value != last : Math.abs(value - last) >= threshold) {
+            report(axis, value);
+        }
+    }
+
+    private void report(final int axis, final float value) {
+        deltas[axis] = value - reported[axis];
+        reported[axis] = value;
+        changedMask |= 1 << axis;
+    }
+
+    /**
+     * Returns a bit mask of the axes (by ordinal) reported since the last call to {@link #clearChanges()}.
+     *
+     * @return the changed axes mask
+     */
+    int getChangedMask() {
+        return changedMask;
+    }
+
+    void clearChanges() {
+        changedMask = 0;
+    }
+
+    float getReported(final int axis) {
+        return reported[axis];
+    }
+
+    float getDelta(final int axis) {
+        return deltas[axis];
+    }
+
+    static float normalizeThumb(final int raw) {
+        return (raw + 32768) / 32767.5f - 1;
+    }
+
+    static float normalizeTrigger(final int raw) {
+        return (raw & 0xff) / 255f;
+    }
+}
@@ -0,0 +1,282 @@
+package com.github.strikerx3.jxinput;
+
+import com.github.strikerx3.jxinput.enums.XInputDeadzoneType;
+import com.github.strikerx3.jxinput.natives.XInputConstants;
+
+/**
+ * Applies deadzones and response curves to the axes of a device.
+ * <p>
+ * The configuration is baked into lookup tables when the processor is built: one {@code float[65536]} table per
+ * thumbstick, indexed either by the raw axis value (no deadzone or axial deadzones) or by the quantized squared
+ * magnitude of the stick (radial deadzones), and one {@code float[256]} table for the triggers. Processing a state is
+ * then a handful of table lookups and multiplications, without square roots or powers.
+ * <p>
+ * Processors are immutable and may be shared by any number of devices. Use a {@link Builder} to create one and
+ * {@link XInputDevice#setAxisProcessor(XInputAxisProcessor)} to apply it to a device.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public final class XInputAxisProcessor {
+    private static final int THUMB_TABLE_SIZE = 65536;
+    private static final int TRIGGER_TABLE_SIZE = 256;
+    private static final int MAGNITUDE_SHIFT = 15;// squared magnitudes go up to 2^31; 2^31 >>> 15 == 65536
+    private static final float THUMB_MAX = 32767f;
+
+    private final XInputDeadzoneType deadzoneType;
+    private final int leftThumbDeadzone;
+    private final int rightThumbDeadzone;
+    private final XInputResponseCurve thumbCurve;
+    private final int triggerThreshold;
+    private final XInputResponseCurve triggerCurve;
+
+    private final boolean radial;
+    // Axial: indexed by raw + 32768, holds the output value
+    // Radial: indexed by (x * x + y * y) >>> 15, holds the factor that scales the raw values into the output values
+    private final float[] leftThumbTable;
+    private final float[] rightThumbTable;
+    private final float[] triggerTable;
+
+    private XInputAxisProcessor(final Builder builder) {
+        deadzoneType = builder.deadzoneType;
+        leftThumbDeadzone = builder.leftThumbDeadzone;
+        rightThumbDeadzone = builder.rightThumbDeadzone;
+        thumbCurve = builder.thumbCurve;
+        triggerThreshold = builder.triggerThreshold;
+        triggerCurve = builder.triggerCurve;
+
+        radial = deadzoneType == XInputDeadzoneType.RADIAL || deadzoneType == XInputDeadzoneType.SCALED_RADIAL;
+        leftThumbTable = bakeThumbTable(leftThumbDeadzone);
+        rightThumbTable = leftThumbDeadzone == rightThumbDeadzone ? leftThumbTable : bakeThumbTable(rightThumbDeadzone);
+        triggerTable = bakeTriggerTable();
+    }
+
+    private float[] bakeThumbTable(final int deadzone) {
+        final float[] table = new float[THUMB_TABLE_SIZE];
+        final float range = THUMB_MAX - deadzone;
+        if (radial) {
+            final boolean scaled = deadzoneType == XInputDeadzoneType.SCALED_RADIAL;
+            for (int i = 0; i < THUMB_TABLE_SIZE; i++) {
+                // use the magnitude at the middle of the quantization step
+                final float magnitude = (float) Math.sqrt((i + 0.5) * (1 << MAGNITUDE_SHIFT));
+                if (magnitude <= deadzone) {
+                    continue;
+                }
+                final float t = scaled ? (magnitude - deadzone) / range : magnitude / THUMB_MAX;
+                table[i] = thumbCurve.apply(Math.min(t, 1f)) / magnitude;
+            }
+        } else {
+            final int dz = deadzoneType == XInputDeadzoneType.AXIAL ? deadzone : 0;
+            for (int i = 0; i < THUMB_TABLE_SIZE; i++) {
+                final int raw = i - 32768;
+                final int abs = Math.min(Math.abs(raw), 32767);
+                if (abs <= dz) {
+                    continue;
+                }
+                final float value = thumbCurve.apply((abs - dz) / (THUMB_MAX - dz));
+                table[i] = raw < 0 ? -value : value;
+            }
+        }
+        return table;
+    }
+
+    private float[] bakeTriggerTable() {
+        final float[] table = new float[TRIGGER_TABLE_SIZE];
+        final float range = 255f - triggerThreshold;
+        for (int i = triggerThreshold + 1; i < TRIGGER_TABLE_SIZE; i++) {
+            table[i] = triggerCurve.apply((i - triggerThreshold) / range);
+        }
+        return table;
+    }
+
+    /**
+     * Computes the normalized values of the axes from their raw values.
+     *
+     * @param axes the axes
+     */
+    void process(final XInputAxes axes) {
+        if (radial) {
+            final float left = leftThumbTable[magnitudeIndex(axes.lxRaw, axes.lyRaw)];
+            axes.lx = axes.lxRaw * left;
+            axes.ly = axes.lyRaw * left;
+            final float right = rightThumbTable[magnitudeIndex(axes.rxRaw, axes.ryRaw)];
+            axes.rx = axes.rxRaw * right;
+            axes.ry = axes.ryRaw * right;
+        } else {
+            axes.lx = leftThumbTable[axes.lxRaw + 32768];
+            axes.ly = leftThumbTable[axes.lyRaw + 32768];
+            axes.rx = rightThumbTable[axes.rxRaw + 32768];
+            axes.ry = rightThumbTable[axes.ryRaw + 32768];
+        }
+        axes.lt = triggerTable[axes.ltRaw & 0xff];
+        axes.rt = triggerTable[axes.rtRaw & 0xff];
+    }
+
+    private static int magnitudeIndex(final int x, final int y) {
+        // the sum overflows into the sign bit only for (-32768, -32768); the unsigned shift handles it
+        return Math.min((x * x + y * y) >>> MAGNITUDE_SHIFT, THUMB_TABLE_SIZE - 1);
+    }
+
+    /**
+     * Returns the type of deadzone applied to the thumbsticks.
+     *
+     * @return the deadzone type
+     */
+    public XInputDeadzoneType getDeadzoneType() {
+        return deadzoneType;
+    }
+
+    /**
+     * Returns the size of the left thumbstick deadzone.
+     *
+     * @return the deadzone, in raw units
+     */
+    public int getLeftThumbDeadzone() {
+        return leftThumbDeadzone;
+    }
+
+    /**
+     * Returns the size of the right thumbstick deadzone.
+     *
+     * @return the deadzone, in raw units
+     */
+    public int getRightThumbDeadzone() {
+        return rightThumbDeadzone;
+    }
+
+    /**
+     * Returns the response curve of the thumbsticks.
+     *
+     * @return the response curve
+     */
+    public XInputResponseCurve getThumbCurve() {
+        return thumbCurve;
+    }
+
+    /**
+     * Returns the threshold below which the triggers report zero.
+     *
+     * @return the threshold, in raw units
+     */
+    public int getTriggerThreshold() {
+        return triggerThreshold;
+    }
+
+    /**
+     * Returns the response curve of the triggers.
+     *
+     * @return the response curve
+     */
+    public XInputResponseCurve getTriggerCurve() {
+        return triggerCurve;
+    }
+
+    /**
+     * Builds {@link XInputAxisProcessor}s. By default, the thumbsticks use scaled radial deadzones with the sizes
+     * recommended by XInput, the triggers use the recommended threshold and both use linear response curves.
+     */
+    public static class Builder {
+        private XInputDeadzoneType deadzoneType = XInputDeadzoneType.SCALED_RADIAL;
+        private int leftThumbDeadzone = XInputConstants.XINPUT_GAMEPAD_LEFT_THUMB_DEADZONE;
+        private int rightThumbDeadzone = XInputConstants.XINPUT_GAMEPAD_RIGHT_THUMB_DEADZONE;
+        private XInputResponseCurve thumbCurve = XInputResponseCurve.LINEAR;
+        private int triggerThreshold = XInputConstants.XINPUT_GAMEPAD_TRIGGER_THRESHOLD;
+        private XInputResponseCurve triggerCurve = XInputResponseCurve.LINEAR;
+
+        /**
+         * Sets the type of deadzone applied to both thumbsticks.
+         *
+         * @param type the deadzone type
+         * @return this builder
+         */
+        public Builder deadzoneType(final XInputDeadzoneType type) {
+            if (type == null) {
+                throw new IllegalArgumentException("Deadzone type must not be null");
+            }
+            deadzoneType = type;
+            return this;
+        }
+
+        /**
+         * Sets the size of the left thumbstick deadzone.
+         *
+         * @param deadzone the deadzone, in raw units from 0 to 32766
+         * @return this builder
+         * @throws IllegalArgumentException if the deadzone is out of range
+         */
+        public Builder leftThumbDeadzone(final int deadzone) {
+            leftThumbDeadzone = checkDeadzone(deadzone);
+            return this;
+        }
+
+        /**
+         * Sets the size of the right thumbstick deadzone.
+         *
+         * @param deadzone the deadzone, in raw units from 0 to 32766
+         * @return this builder
+         * @throws IllegalArgumentException if the deadzone is out of range
+         */
+        public Builder rightThumbDeadzone(final int deadzone) {
+            rightThumbDeadzone = checkDeadzone(deadzone);
+            return this;
+        }
+
+        /**
+         * Sets the response curve of both thumbsticks.
+         *
+         * @param curve the response curve
+         * @return this builder
+         */
+        public Builder thumbCurve(final XInputResponseCurve curve) {
+            if (curve == null) {
+                throw new IllegalArgumentException("Curve must not be null");
+            }
+            thumbCurve = curve;
+            return this;
+        }
+
+        /**
+         * Sets the threshold below which the triggers report zero.
+         *
+         * @param threshold the threshold, in raw units from 0 to 254
+         * @return this builder
+         * @throws IllegalArgumentException if the threshold is out of range
+         */
+        public Builder triggerThreshold(final int threshold) {
+            if (threshold < 0 || threshold > 254) {
+                throw new IllegalArgumentException("Trigger threshold out of range (0..254): " + threshold);
+            }
+            triggerThreshold = threshold;
+            return this;
+        }
+
+        /**
+         * Sets the response curve of both triggers.
+         *
+         * @param curve the response curve
+         * @return this builder
+         */
+        public Builder triggerCurve(final XInputResponseCurve curve) {
+            if (curve == null) {
+                throw new IllegalArgumentException("Curve must not be null");
+            }
+            triggerCurve = curve;
+            return this;
+        }
+
+        /**
+         * Bakes the configuration into a new processor.
+         *
+         * @return the processor
+         */
+        public XInputAxisProcessor build() {
+            return new XInputAxisProcessor(this);
+        }
+
+        private static int checkDeadzone(final int deadzone) {
+            if (deadzone < 0 || deadzone > 32766) {
+                throw new IllegalArgumentException("Deadzone out of range (0..32766): " + deadzone);
+            }
+            return deadzone;
+        }
+    }
+}
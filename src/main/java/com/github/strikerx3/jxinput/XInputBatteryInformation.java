@@ -6,7 +6,7 @@ import com.github.strikerx3.jxinput.enums.XInputBatteryLevel;
 import com.github.strikerx3.jxinput.enums.XInputBatteryType;
 
 /**
- * Contains information about the device's battery.
+ * Contains information about the device's battery. Battery information is immutable.
  *
  * @author Ivan "StrikerX3" Oliveira
  */
@@ -21,14 +21,28 @@ public class XInputBatteryInformation {
         //     BYTE BatteryLevel;
         // } XINPUT_BATTERY_INFORMATION, *PXINPUT_BATTERY_INFORMATION;
 
-        type = XInputBatteryType.fromNative(buffer.get());
-        level = XInputBatteryLevel.fromNative(buffer.get());
+        this(XInputBatteryType.fromNative(buffer.get(0)), XInputBatteryLevel.fromNative(buffer.get(1)));
     }
 
+    XInputBatteryInformation(final XInputBatteryType type, final XInputBatteryLevel level) {
+        this.type = type;
+        this.level = level;
+    }
+
+    /**
+     * Retrieves the battery type.
+     *
+     * @return the battery type, which is {@link XInputBatteryType#DISCONNECTED} if the device is not connected
+     */
     public XInputBatteryType getType() {
         return type;
     }
 
+    /**
+     * Retrieves the battery charge level.
+     *
+     * @return the battery charge level
+     */
     public XInputBatteryLevel getLevel() {
         return level;
     }
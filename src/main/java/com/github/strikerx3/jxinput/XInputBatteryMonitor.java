@@ -0,0 +1,272 @@
+package com.github.strikerx3.jxinput;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import com.github.strikerx3.jxinput.enums.XInputBatteryDeviceType;
+import com.github.strikerx3.jxinput.enums.XInputBatteryLevel;
+import com.github.strikerx3.jxinput.enums.XInputBatteryType;
+import com.github.strikerx3.jxinput.listener.XInputBatteryListener;
+import com.github.strikerx3.jxinput.natives.XInputConstants;
+
+/**
+ * Reads the gamepad and headset battery levels of a set of devices from a background thread.
+ * <p>
+ * Querying a battery may have to go through the wireless receiver and take long enough to cause a hitch on the polling
+ * thread. The monitor does it instead, from a low-priority daemon thread, once every time-to-live interval. Any thread
+ * can then read the last known values with {@link #getBatteryInformation(XInputDevice14, XInputBatteryDeviceType)}
+ * without blocking, and {@link XInputBatteryListener}s are told when a level or battery type changes.
+ * <p>
+ * The monitor reads directly from the {@linkplain XInputDevice#getBackend() backend} into its own buffer, so it never
+ * touches the devices and may run alongside the thread that polls them.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public class XInputBatteryMonitor {
+    /**
+     * The default interval between refreshes: 10 seconds.
+     */
+    public static final long DEFAULT_TTL_NANOS = 10000000000L;
+
+    private static final XInputBatteryDeviceType[] DEVICE_TYPES = XInputBatteryDeviceType.values();
+    private static final XInputBatteryListener[] NO_LISTENERS = new XInputBatteryListener[0];
+
+    private final XInputDevice14[] devices;
+    private final long ttlNanos;
+
+    // Indexed by device index * DEVICE_TYPES.length + device type ordinal
+    private final AtomicReferenceArray<XInputBatteryInformation> information;
+
+    // Copy-on-write array: the monitor thread iterates over a snapshot, mutations replace the array while holding listenersLock
+    private volatile XInputBatteryListener[] listeners = NO_LISTENERS;
+    private final Object listenersLock = new Object();
+
+    private final AtomicLong refreshes = new AtomicLong();
+
+    private Refresher refresher;
+    private volatile boolean running;
+
+    /**
+     * Creates a monitor that refreshes the given devices every {@link #DEFAULT_TTL_NANOS} nanoseconds.
+     *
+     * @param devices the devices to monitor
+     */
+    public XInputBatteryMonitor(final XInputDevice14... devices) {
+        this(DEFAULT_TTL_NANOS, devices);
+    }
+
+    /**
+     * Creates a monitor for the given devices.
+     *
+     * @param ttlNanos the interval between refreshes, in nanoseconds; cached values are at most this old
+     * @param devices the devices to monitor
+     * @throws IllegalArgumentException if the interval is not positive or no devices were given
+     */
+    public XInputBatteryMonitor(final long ttlNanos, final XInputDevice14... devices) {
+        if (ttlNanos <= 0) {
+            throw new IllegalArgumentException("Time to live must be positive: " + ttlNanos);
+        }
+        if (devices.length == 0) {
+            throw new IllegalArgumentException("No devices to monitor");
+        }
+        this.devices = devices.clone();
+        this.ttlNanos = ttlNanos;
+        information = new AtomicReferenceArray<XInputBatteryInformation>(devices.length * DEVICE_TYPES.length);
+    }
+
+    /**
+     * Adds a listener that will be notified of battery changes.
+     * <p>
+     * This method is thread-safe.
+     *
+     * @param listener the listener
+     */
+    public void addListener(final XInputBatteryListener listener) {
+        synchronized (listenersLock) {
+            final XInputBatteryListener[] current = listeners;
+            final XInputBatteryListener[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = listener;
+            listeners = updated;
+        }
+    }
+
+    /**
+     * Removes a registered listener.
+     * <p>
+     * This method is thread-safe.
+     *
+     * @param listener the listener
+     */
+    public void removeListener(final XInputBatteryListener listener) {
+        synchronized (listenersLock) {
+            final XInputBatteryListener[] current = listeners;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i].equals(listener)) {
+                    final XInputBatteryListener[] updated = new XInputBatteryListener[current.length - 1];
+                    System.arraycopy(current, 0, updated, 0, i);
+                    System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                    listeners = updated;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the last known battery information of a device. Never blocks.
+     * <p>
+     * This method is thread-safe and does not allocate any objects.
+     *
+     * @param device the device
+     * @param deviceType whether to return the gamepad's or the headset's battery
+     * @return the battery information, or <code>null</code> if it was not read yet
+     * @throws IllegalArgumentException if the device is not monitored
+     */
+    public XInputBatteryInformation getBatteryInformation(final XInputDevice14 device, final XInputBatteryDeviceType deviceType) {
+        for (int i = 0; i < devices.length; i++) {
+            if (devices[i] == device) {
+                return information.get(i * DEVICE_TYPES.length + deviceType.ordinal());
+            }
+        }
+        throw new IllegalArgumentException("Device is not monitored: player " + device.getPlayerNum());
+    }
+
+    /**
+     * Starts refreshing in a new daemon thread. The batteries are read right away. Does nothing if the monitor is
+     * already running.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        final Refresher refresher = new Refresher();
+        final Thread thread = new Thread(refresher, "XInputBatteryMonitor");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        refresher.thread = thread;
+        thread.start();
+        this.refresher = refresher;
+    }
+
+    /**
+     * Stops refreshing. The monitor thread is told to stop but is not waited for, since it may be stuck in a slow query.
+     * A query that completes after this method was called is discarded: it neither updates the cached values nor notifies
+     * listeners, even if the monitor was started again. The cached values remain available.
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        refresher.stopped = true;
+        LockSupport.unpark(refresher.thread);
+        refresher = null;
+    }
+
+    /**
+     * Requests the batteries to be read again right away instead of at the end of the current interval, for example
+     * after a device is connected. Does nothing if the monitor is not running.
+     */
+    public synchronized void refresh() {
+        if (running) {
+            LockSupport.unpark(refresher.thread);
+        }
+    }
+
+    /**
+     * Determines if the monitor is running.
+     *
+     * @return <code>true</code> if the monitor is running
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Returns the interval between refreshes.
+     *
+     * @return the interval between refreshes, in nanoseconds
+     */
+    public long getTtlNanos() {
+        return ttlNanos;
+    }
+
+    /**
+     * Returns the number of times the batteries of all devices were read.
+     *
+     * @return the number of refreshes
+     */
+    public long getRefreshes() {
+        return refreshes.get();
+    }
+
+    /**
+     * Reads the batteries of all devices once per interval. A new refresher is created every time the monitor is
+     * started, so that a refresher stuck in a slow query cannot outlive a restart.
+     */
+    private class Refresher implements Runnable {
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(2).order(ByteOrder.nativeOrder());// sizeof(XINPUT_BATTERY_INFORMATION)
+        private volatile boolean stopped;
+        private Thread thread;
+
+        @Override
+        public void run() {
+            while (!stopped) {
+                for (int i = 0; i < devices.length && !stopped; i++) {
+                    for (final XInputBatteryDeviceType deviceType : DEVICE_TYPES) {
+                        refresh(i, deviceType);
+                    }
+                }
+                // the wake-up from stop() may have been consumed by the query, so do not wait for the next interval
+                if (stopped) {
+                    break;
+                }
+                refreshes.incrementAndGet();
+                LockSupport.parkNanos(this, ttlNanos);
+            }
+        }
+
+        private void refresh(final int index, final XInputBatteryDeviceType deviceType) {
+            final XInputDevice14 device = devices[index];
+            final XInputBatteryType type;
+            final XInputBatteryLevel level;
+            try {
+                final int ret = XInputDevice.getBackend().getBatteryInformation(device.getPlayerNum(), deviceType.toNative(), buffer);
+                if (ret == XInputConstants.ERROR_DEVICE_NOT_CONNECTED) {
+                    type = XInputBatteryType.DISCONNECTED;
+                    level = XInputBatteryLevel.EMPTY;
+                } else if (ret != XInputConstants.ERROR_SUCCESS) {
+                    return;// keep the last known value and try again on the next refresh
+                } else {
+                    type = XInputBatteryType.fromNative(buffer.get(0));
+                    level = XInputBatteryLevel.fromNative(buffer.get(1));
+                }
+            } catch (final RuntimeException e) {
+                return;// likewise
+            }
+
+            // a refresher stopped during the query must not overwrite the values of the one started after it
+            if (stopped) {
+                return;
+            }
+            final int slot = index * DEVICE_TYPES.length + deviceType.ordinal();
+            final XInputBatteryInformation last = information.get(slot);
+            if (last != null && last.getType() == type && last.getLevel() == level) {
+                return;
+            }
+            final XInputBatteryInformation current = new XInputBatteryInformation(type, level);
+            information.set(slot, current);
+            for (final XInputBatteryListener listener : listeners) {
+                if (stopped) {
+                    return;
+                }
+                listener.batteryChanged(device, deviceType, current);
+            }
+        }
+    }
+}
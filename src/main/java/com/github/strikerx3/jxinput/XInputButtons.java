@@ -1,11 +1,19 @@
 package com.github.strikerx3.jxinput;
 
+import com.github.strikerx3.jxinput.enums.XInputButton;
+
 /**
  * Contains the states of all XInput buttons.
+ * <p>
+ * The states are stored as the {@code wButtons} bit mask reported by XInput, which can be queried through
+ * {@link #getMask()} and {@link #isDown(XInputButton)}. The public {@code boolean} fields are kept up to date as a
+ * view of the mask for compatibility; changes made to them are not reflected in the mask.
  *
  * @author Ivan "StrikerX3" Oliveira
  */
 public class XInputButtons {
+    private int mask;
+
     public boolean a, b, x, y;
     public boolean back, start;
     public boolean lShoulder, rShoulder;
@@ -17,10 +25,55 @@ public class XInputButtons {
         reset();
     }
 
+    /**
+     * Returns the state of all buttons as a bit mask, a combination of the {@code XINPUT_GAMEPAD_*} constants.
+     *
+     * @return the button mask
+     */
+    public int getMask() {
+        return mask;
+    }
+
+    /**
+     * Determines if the specified button is pressed.
+     *
+     * @param button the button
+     * @return <code>true</code> if the button is pressed, <code>false</code> otherwise
+     */
+    public boolean isDown(final XInputButton button) {
+        return (mask & button.getMask()) != 0;
+    }
+
+    /**
+     * Sets the state of all buttons from a bit mask.
+     *
+     * @param mask the button mask, a combination of the {@code XINPUT_GAMEPAD_*} constants
+     */
+    void set(final int mask) {
+        this.mask = mask;
+        a = (mask & XInputButton.A.getMask()) != 0;
+        b = (mask & XInputButton.B.getMask()) != 0;
+        x = (mask & XInputButton.X.getMask()) != 0;
+        y = (mask & XInputButton.Y.getMask()) != 0;
+        back = (mask & XInputButton.BACK.getMask()) != 0;
+        start = (mask & XInputButton.START.getMask()) != 0;
+        lShoulder = (mask & XInputButton.LEFT_SHOULDER.getMask()) != 0;
+        rShoulder = (mask & XInputButton.RIGHT_SHOULDER.getMask()) != 0;
+        lThumb = (mask & XInputButton.LEFT_THUMBSTICK.getMask()) != 0;
+        rThumb = (mask & XInputButton.RIGHT_THUMBSTICK.getMask()) != 0;
+        up = (mask & XInputButton.DPAD_UP.getMask()) != 0;
+        down = (mask & XInputButton.DPAD_DOWN.getMask()) != 0;
+        left = (mask & XInputButton.DPAD_LEFT.getMask()) != 0;
+        right = (mask & XInputButton.DPAD_RIGHT.getMask()) != 0;
+        guide = (mask & XInputButton.GUIDE_BUTTON.getMask()) != 0;
+        unknown = (mask & XInputButton.UNKNOWN.getMask()) != 0;
+    }
+
     /**
      * Resets the state of all buttons.
      */
     protected void reset() {
+        mask = 0;
         a = b = x = y = false;
         back = start = false;
         lShoulder = rShoulder = false;
@@ -35,6 +88,8 @@ public class XInputButtons {
      * @param buttons the state to copy from
      */
     protected void copy(final XInputButtons buttons) {
+        mask = buttons.mask;
+
         a = buttons.a;
         b = buttons.b;
         x = buttons.x;
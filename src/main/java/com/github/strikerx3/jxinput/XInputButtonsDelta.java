@@ -4,6 +4,9 @@ import com.github.strikerx3.jxinput.enums.XInputButton;
 
 /**
  * Represents the delta (change) of the buttons between two successive polls.
+ * <p>
+ * Changes are computed from the button masks of both polls, so checking any number of buttons costs a couple of
+ * bitwise operations. Use {@link #getPressedMask()} and {@link #getReleasedMask()} to check all buttons at once.
  *
  * @author Ivan "StrikerX3" Oliveira
  */
@@ -16,6 +19,35 @@ public class XInputButtonsDelta {
         this.buttons = buttons;
     }
 
+    /**
+     * Returns a bit mask of the buttons that were pressed (i.e. changed from released to pressed between two consecutive
+     * polls).
+     *
+     * @return a combination of the {@code XINPUT_GAMEPAD_*} constants of the buttons that were pressed
+     */
+    public int getPressedMask() {
+        return ~lastButtons.getMask() & buttons.getMask();
+    }
+
+    /**
+     * Returns a bit mask of the buttons that were released (i.e. changed from pressed to released between two
+     * consecutive polls).
+     *
+     * @return a combination of the {@code XINPUT_GAMEPAD_*} constants of the buttons that were released
+     */
+    public int getReleasedMask() {
+        return lastButtons.getMask() & ~buttons.getMask();
+    }
+
+    /**
+     * Returns a bit mask of the buttons that were either pressed or released between two consecutive polls.
+     *
+     * @return a combination of the {@code XINPUT_GAMEPAD_*} constants of the buttons that changed
+     */
+    public int getChangedMask() {
+        return lastButtons.getMask() ^ buttons.getMask();
+    }
+
     /**
      * Returns <code>true</code> if the button was pressed (i.e. changed from released to pressed between two consecutive polls).
      * 
@@ -23,7 +55,7 @@ public class XInputButtonsDelta {
      * @return <code>true</code> if the button was pressed, <code>false</code> otherwise
      */
     public boolean isPressed(final XInputButton button) {
-        return delta(lastButtons, buttons, button);
+        return (getPressedMask() & button.getMask()) != 0;
     }
 
     /**
@@ -33,52 +65,6 @@ public class XInputButtonsDelta {
      * @return <code>true</code> if the button was released, <code>false</code> otherwise
      */
     public boolean isReleased(final XInputButton button) {
-        return delta(buttons, lastButtons, button);
-    }
-
-    /**
-     * Determines if the state of a button was changed from one poll to the following poll.
-     * 
-     * @param from the old state
-     * @param to the new state
-     * @param button the button
-     * @return <code>true</code> if there was a change, <code>false</code> otherwise
-     */
-    private boolean delta(final XInputButtons from, final XInputButtons to, final XInputButton button) {
-        switch (button) {
-            case A:
-                return !from.a && to.a;
-            case B:
-                return !from.b && to.b;
-            case X:
-                return !from.x && to.x;
-            case Y:
-                return !from.y && to.y;
-            case BACK:
-                return !from.back && to.back;
-            case START:
-                return !from.start && to.start;
-            case LEFT_SHOULDER:
-                return !from.lShoulder && to.lShoulder;
-            case RIGHT_SHOULDER:
-                return !from.rShoulder && to.rShoulder;
-            case LEFT_THUMBSTICK:
-                return !from.lThumb && to.lThumb;
-            case RIGHT_THUMBSTICK:
-                return !from.rThumb && to.rThumb;
-            case DPAD_UP:
-                return !from.up && to.up;
-            case DPAD_DOWN:
-                return !from.down && to.down;
-            case DPAD_LEFT:
-                return !from.left && to.left;
-            case DPAD_RIGHT:
-                return !from.right && to.right;
-            case GUIDE_BUTTON:
-                return !from.guide && to.guide;
-            case UNKNOWN:
-                return !from.unknown && to.unknown;
-        }
-        return false;
+        return (getReleasedMask() & button.getMask()) != 0;
     }
 }
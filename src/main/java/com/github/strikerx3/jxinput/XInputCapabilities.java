@@ -7,24 +7,22 @@ import com.github.strikerx3.jxinput.enums.XInputButton;
 import com.github.strikerx3.jxinput.enums.XInputDeviceSubType;
 import com.github.strikerx3.jxinput.enums.XInputDeviceType;
 import com.github.strikerx3.jxinput.natives.XInputConstants;
-import com.github.strikerx3.jxinput.natives.XInputNatives;
 
 /**
  * Contains information about the device's capabilities.
+ * <p>
+ * Capabilities are immutable. The flags and supported buttons are kept as the bit masks reported by XInput, so that
+ * they can be checked without allocating; {@link XInputDevice14} reuses the same object for as long as the device stays
+ * connected.
  *
  * @author Ivan "StrikerX3" Oliveira
  */
-public class XInputCapabilities {
+public final class XInputCapabilities {
     private final XInputDeviceType type;
     private final XInputDeviceSubType subType;
 
-    private final boolean forceFeedbackSupported;
-    private final boolean wireless;
-    private final boolean voiceSupported;
-    private final boolean pluginModulesSupported;
-    private final boolean noNavigation;
-
-    private final EnumSet<XInputButton> supportedButtons = EnumSet.noneOf(XInputButton.class);
+    private final int flags;// XINPUT_CAPS_* bits
+    private final int buttons;// XINPUT_GAMEPAD_* bits
 
     private final XInputCapsResolutions resolutions;
 
@@ -55,43 +53,18 @@ public class XInputCapabilities {
         //     WORD                                wRightMotorSpeed;
         // } XINPUT_VIBRATION, *PXINPUT_VIBRATION;
 
-        final byte type = buffer.get();
-        final byte subType = buffer.get();
-
-        this.type = XInputDeviceType.fromNative(type);
-        this.subType = XInputDeviceSubType.fromNative(subType);
-
-        final short flags = buffer.getShort();
-        forceFeedbackSupported = (flags & XInputConstants.XINPUT_CAPS_FFB_SUPPORTED) != 0;
-        wireless = (flags & XInputConstants.XINPUT_CAPS_WIRELESS) != 0;
-        voiceSupported = (flags & XInputConstants.XINPUT_CAPS_VOICE_SUPPORTED) != 0;
-        pluginModulesSupported = (flags & XInputConstants.XINPUT_CAPS_PMD_SUPPORTED) != 0;
-        noNavigation = (flags & XInputConstants.XINPUT_CAPS_NO_NAVIGATION) != 0;
-
-        final short buttons = buffer.getShort();
-        addSupportedButton(buttons, XInputConstants.XINPUT_GAMEPAD_A, XInputButton.A);
-        addSupportedButton(buttons, XInputConstants.XINPUT_GAMEPAD_B, XInputButton.B);
-        addSupportedButton(buttons, XInputConstants.XINPUT_GAMEPAD_X, XInputButton.X);
-        addSupportedButton(buttons, XInputConstants.XINPUT_GAMEPAD_Y, XInputButton.Y);
-        addSupportedButton(buttons, XInputConstants.XINPUT_GAMEPAD_BACK, XInputButton.BACK);
-        addSupportedButton(buttons, XInputConstants.XINPUT_GAMEPAD_START, XInputButton.START);
-        addSupportedButton(buttons, XInputConstants.XINPUT_GAMEPAD_LEFT_SHOULDER, XInputButton.LEFT_SHOULDER);
-        addSupportedButton(buttons, XInputConstants.XINPUT_GAMEPAD_RIGHT_SHOULDER, XInputButton.RIGHT_SHOULDER);
-        addSupportedButton(buttons, XInputConstants.XINPUT_GAMEPAD_LEFT_THUMB, XInputButton.LEFT_THUMBSTICK);
-        addSupportedButton(buttons, XInputConstants.XINPUT_GAMEPAD_RIGHT_THUMB, XInputButton.RIGHT_THUMBSTICK);
-        addSupportedButton(buttons, XInputConstants.XINPUT_GAMEPAD_GUIDE_BUTTON, XInputButton.GUIDE_BUTTON);
-        addSupportedButton(buttons, XInputConstants.XINPUT_GAMEPAD_UNKNOWN, XInputButton.UNKNOWN);
-        addSupportedButton(buttons, XInputConstants.XINPUT_GAMEPAD_DPAD_UP, XInputButton.DPAD_UP);
-        addSupportedButton(buttons, XInputConstants.XINPUT_GAMEPAD_DPAD_DOWN, XInputButton.DPAD_DOWN);
-        addSupportedButton(buttons, XInputConstants.XINPUT_GAMEPAD_DPAD_LEFT, XInputButton.DPAD_LEFT);
-        addSupportedButton(buttons, XInputConstants.XINPUT_GAMEPAD_DPAD_RIGHT, XInputButton.DPAD_RIGHT);
+        type = XInputDeviceType.fromNative(buffer.get(0));
+        subType = XInputDeviceSubType.fromNative(buffer.get(1));
+        flags = buffer.getShort(2) & 0xFFFF;
 
+        int buttons = buffer.getShort(4) & 0xFFFF;
         // add Guide button support manually
-        if (XInputNatives.isGuideButtonSupported()) {
-            supportedButtons.add(XInputButton.GUIDE_BUTTON);
+        if (XInputDevice.isGuideButtonSupported()) {
+            buttons |= XInputConstants.XINPUT_GAMEPAD_GUIDE_BUTTON;
         }
+        this.buttons = buttons;
 
-        resolutions = new XInputCapsResolutions(buffer);
+        resolutions = new XInputCapsResolutions(buffer, 6);
     }
 
     /**
@@ -118,7 +91,7 @@ public class XInputCapabilities {
      * @return <code>true</code> if the device supports Force Feedback, <code>false</code> otherwise
      */
     public boolean isForceFeedbackSupported() {
-        return forceFeedbackSupported;
+        return (flags & XInputConstants.XINPUT_CAPS_FFB_SUPPORTED) != 0;
     }
 
     /**
@@ -127,7 +100,7 @@ public class XInputCapabilities {
      * @return <code>true</code> for wireless devices, <code>false</code> for wired devices
      */
     public boolean isWireless() {
-        return wireless;
+        return (flags & XInputConstants.XINPUT_CAPS_WIRELESS) != 0;
     }
 
     /**
@@ -136,7 +109,7 @@ public class XInputCapabilities {
      * @return <code>true</code> if the device has a voice capture device, <code>false</code> otherwise
      */
     public boolean isVoiceSupported() {
-        return voiceSupported;
+        return (flags & XInputConstants.XINPUT_CAPS_VOICE_SUPPORTED) != 0;
     }
 
     /**
@@ -145,7 +118,7 @@ public class XInputCapabilities {
      * @return <code>true</code> if the device allows plug-in modules, <code>false</code> otherwise
      */
     public boolean isPluginModulesSupported() {
-        return pluginModulesSupported;
+        return (flags & XInputConstants.XINPUT_CAPS_PMD_SUPPORTED) != 0;
     }
 
     /**
@@ -154,15 +127,50 @@ public class XInputCapabilities {
      * @return <code>true</code> if the device does not have the navigation buttons, <code>false</code> otherwise
      */
     public boolean isNoNavigation() {
-        return noNavigation;
+        return (flags & XInputConstants.XINPUT_CAPS_NO_NAVIGATION) != 0;
+    }
+
+    /**
+     * Retrieves the capability flags.
+     *
+     * @return a combination of the {@code XINPUT_CAPS_*} constants
+     */
+    public int getFlags() {
+        return flags;
+    }
+
+    /**
+     * Determines whether the device supports the given button.
+     *
+     * @param button the button
+     * @return <code>true</code> if the button is supported
+     */
+    public boolean isButtonSupported(final XInputButton button) {
+        return (buttons & button.getMask()) != 0;
+    }
+
+    /**
+     * Retrieves the buttons supported by the device as a bit mask.
+     *
+     * @return a combination of the {@link XInputButton#getMask() button masks}
+     */
+    public int getSupportedButtonsMask() {
+        return buttons;
     }
 
     /**
-     * Retrieves the buttons supported by the device.
+     * Retrieves the buttons supported by the device. A new set is created on every call; use
+     * {@link #isButtonSupported(XInputButton)} or {@link #getSupportedButtonsMask()} in code that runs every frame.
      *
      * @return a set of buttons supported by the device
      */
     public EnumSet<XInputButton> getSupportedButtons() {
+        final EnumSet<XInputButton> supportedButtons = EnumSet.noneOf(XInputButton.class);
+        for (final XInputButton button : XInputButton.values()) {
+            if (isButtonSupported(button)) {
+                supportedButtons.add(button);
+            }
+        }
         return supportedButtons;
     }
 
@@ -174,10 +182,4 @@ public class XInputCapabilities {
     public XInputCapsResolutions getResolutions() {
         return resolutions;
     }
-
-    private void addSupportedButton(final short buttons, final short bit, final XInputButton button) {
-        if ((buttons & bit) == bit) {
-            supportedButtons.add(button);
-        }
-    }
 }
@@ -5,10 +5,12 @@ import java.nio.ByteBuffer;
 /**
  * Contains the resolutions of the proportional axes of an XInput device.
  * Some number of the least significant bits may not be set, indicating that the control does not provide resolution to that level.
+ * <p>
+ * Resolutions are immutable.
  *
  * @author Ivan "StrikerX3" Oliveira
  */
-public class XInputCapsResolutions {
+public final class XInputCapsResolutions {
     private final byte leftTrigger;
     private final byte rightTrigger;
     private final short thumbLX;
@@ -19,16 +21,16 @@ public class XInputCapsResolutions {
     private final short leftMotorSpeed;
     private final short rightMotorSpeed;
 
-    XInputCapsResolutions(final ByteBuffer buffer) {
-        leftTrigger = buffer.get();
-        rightTrigger = buffer.get();
-        thumbLX = buffer.getShort();
-        thumbLY = buffer.getShort();
-        thumbRX = buffer.getShort();
-        thumbRY = buffer.getShort();
+    XInputCapsResolutions(final ByteBuffer buffer, final int offset) {
+        leftTrigger = buffer.get(offset);
+        rightTrigger = buffer.get(offset + 1);
+        thumbLX = buffer.getShort(offset + 2);
+        thumbLY = buffer.getShort(offset + 4);
+        thumbRX = buffer.getShort(offset + 6);
+        thumbRY = buffer.getShort(offset + 8);
 
-        leftMotorSpeed = buffer.getShort();
-        rightMotorSpeed = buffer.getShort();
+        leftMotorSpeed = buffer.getShort(offset + 10);
+        rightMotorSpeed = buffer.getShort(offset + 12);
     }
 
     /**
@@ -9,7 +9,11 @@ public class XInputComponents {
     private final XInputButtons buttons;
     private final XInputAxes axes;
 
-    protected XInputComponents() {
+    /**
+     * Creates a new set of components in their default state, which can be used to receive snapshots through
+     * {@link XInputDevice#readSnapshot(XInputComponents)}.
+     */
+    public XInputComponents() {
         buttons = new XInputButtons();
         axes = new XInputAxes();
     }
@@ -2,14 +2,22 @@ package com.github.strikerx3.jxinput;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Arrays;
 
+import com.github.strikerx3.jxinput.backend.NativeXInputBackend;
+import com.github.strikerx3.jxinput.backend.SimulatedXInputBackend;
+import com.github.strikerx3.jxinput.backend.XInputBackend;
+import com.github.strikerx3.jxinput.enums.XInputAxis;
 import com.github.strikerx3.jxinput.enums.XInputButton;
+import com.github.strikerx3.jxinput.event.XInputEventRing;
+import com.github.strikerx3.jxinput.event.XInputEventType;
 import com.github.strikerx3.jxinput.exceptions.XInputNotLoadedException;
+import com.github.strikerx3.jxinput.listener.XInputAxisListener;
+import com.github.strikerx3.jxinput.listener.XInputButtonRepeatListener;
 import com.github.strikerx3.jxinput.listener.XInputDeviceListener;
+import com.github.strikerx3.jxinput.metrics.XInputMetrics;
 import com.github.strikerx3.jxinput.natives.XInputConstants;
-import com.github.strikerx3.jxinput.natives.XInputNatives;
+import com.github.strikerx3.jxinput.recording.XInputRecorder;
 
 /**
  * Represents all XInput devices registered in the system.
@@ -17,6 +25,17 @@ import com.github.strikerx3.jxinput.natives.XInputNatives;
  * <p>
  * Certain methods in this class are not thread-safe and are documented as such.
  * It is not recommended to share an instance of {@code XInputDevice} across multiple threads.
+ * Listeners, however, may be added and removed from any thread at any time, including from within a listener callback.
+ * Such changes take effect on the next poll.
+ * <p>
+ * Other threads that need to read the state of a device while it is being polled should enable snapshot publishing
+ * with {@link #setSnapshotPublishing(boolean)} and read the state through {@link #readSnapshot(XInputComponents)}
+ * instead of using {@link #getComponents()}.
+ * <p>
+ * All devices talk to XInput through an {@link XInputBackend}. By default the native backend is used; the system
+ * property {@code jxinput.backend} can be set to {@code simulated} to use the {@link SimulatedXInputBackend}, or to the
+ * fully qualified name of a class implementing {@code XInputBackend} with a public no-argument constructor. The backend
+ * can also be replaced at runtime through {@link #setBackend(XInputBackend)}.
  *
  * @author Ivan "StrikerX3" Oliveira
  * @see XInputComponents
@@ -31,28 +50,57 @@ public class XInputDevice {
 
     private boolean connected;
 
-    private final List<XInputDeviceListener> listeners;
+    private boolean packetValid;// Whether lastPacketNumber holds the packet number of the current state
+    private int lastPacketNumber;
+    private XInputStateReader lastStateReader;
+
+    // Compiled from the pipeline; replaced as a whole whenever the pipeline changes
+    private volatile XInputStateReader stateReader;
+    private final Object pipelineLock = new Object();
+    private boolean stateChanged;
+
+    private final XInputSnapshotPublisher snapshots = new XInputSnapshotPublisher();
+    private volatile boolean publishSnapshots;
+    private boolean snapshotUpToDate;// Only accessed by the polling thread
+
+    private volatile XInputEventRing eventRing;
+    private volatile XInputRecorder recorder;
+    private volatile XInputMetrics metrics;
+    private long[] listenerNanos = new long[4];// Only accessed by the polling thread
+
+    private final XInputAxisChangeTracker axisTracker = new XInputAxisChangeTracker();
+
+    private static final XInputDeviceListener[] NO_LISTENERS = new XInputDeviceListener[0];
+
+    // Copy-on-write array: dispatch iterates over a snapshot, mutations replace the array while holding listenersLock
+    private volatile XInputDeviceListener[] listeners = NO_LISTENERS;
+    private final Object listenersLock = new Object();
+
+    private static final XInputButton[] BUTTONS = XInputButton.values();
+    private static final XInputAxis[] AXES = XInputAxis.values();
 
     private static final XInputDevice[] DEVICES;
-    private static final XInputLibraryVersion LIBRARY_VERSION;
-    private static final boolean GUIDE_BUTTON_SUPPORTED;
+    private static final ByteBuffer ALL_STATES_BUFFER;// Contains MAX_PLAYERS XINPUT_STATE structs and return codes
+    private static final ByteBuffer[] ALL_STATES_VIEWS;
+
+    private static volatile XInputBackend backend;
+    private static volatile XInputLibraryVersion libraryVersion;
+    private static volatile boolean guideButtonSupported;
 
-    private static XInputStateReader stateReader = XInputStatePreProcessedReader.INSTANCE;
+    // The devices reached by setPreProcessData: DEVICES and, once created, the XInputDevice14 devices
+    private static final Object PRE_PROCESS_LOCK = new Object();
+    private static XInputDevice[] devices14 = new XInputDevice[0];// guarded by PRE_PROCESS_LOCK
+    private static volatile boolean preProcessData = true;
 
     static {
-        XInputDevice[] devices;
-        if (XInputNatives.isLoaded()) {
-            devices = new XInputDevice[XInputConstants.MAX_PLAYERS];
-            for (int i = 0; i < XInputConstants.MAX_PLAYERS; i++) {
-                devices[i] = new XInputDevice(i);
-            }
-        } else {
-            devices = null;
-        }
-        DEVICES = devices;
+        setBackend(loadBackend(System.getProperty("jxinput.backend", "native")));
 
-        LIBRARY_VERSION = XInputLibraryVersion.values()[XInputNatives.getLoadedLibVersion()];
-        GUIDE_BUTTON_SUPPORTED = XInputNatives.isGuideButtonSupported();
+        DEVICES = new XInputDevice[XInputConstants.MAX_PLAYERS];
+        for (int i = 0; i < XInputConstants.MAX_PLAYERS; i++) {
+            DEVICES[i] = new XInputDevice(i);
+        }
+        ALL_STATES_BUFFER = newAllStatesBuffer();
+        ALL_STATES_VIEWS = newAllStatesViews(ALL_STATES_BUFFER);
     }
 
     protected XInputDevice(final int playerNum) {
@@ -63,9 +111,11 @@ public class XInputDevice {
         components = new XInputComponents();
         delta = new XInputComponentsDelta(lastComponents, components);
 
-        listeners = new LinkedList<XInputDeviceListener>();
+        stateReader = new XInputStateReader(preProcessData ? XInputPipeline.DEFAULT : XInputPipeline.RAW);
 
-        poll();
+        if (backend.isLoaded()) {
+            poll();
+        }
     }
 
     /**
@@ -74,7 +124,7 @@ public class XInputDevice {
      * @return <code>true</code> if the XInput devices are available, <code>false</code> if not
      */
     public static boolean isAvailable() {
-        return DEVICES != null;
+        return backend.isLoaded();
     }
 
     /**
@@ -83,7 +133,7 @@ public class XInputDevice {
      * @return one of the values of {@link XInputLibraryVersion}
      */
     public static XInputLibraryVersion getLibraryVersion() {
-        return LIBRARY_VERSION;
+        return libraryVersion;
     }
 
     /**
@@ -92,7 +142,39 @@ public class XInputDevice {
      * @return <code>true</code> if the Guide button state can be read, <code>false</code> otherwise.
      */
     public static boolean isGuideButtonSupported() {
-        return GUIDE_BUTTON_SUPPORTED;
+        return guideButtonSupported;
+    }
+
+    /**
+     * Retrieves the backend used by all devices to communicate with XInput.
+     *
+     * @return the current backend
+     */
+    public static XInputBackend getBackend() {
+        return backend;
+    }
+
+    /**
+     * Replaces the backend used by all devices to communicate with XInput. Devices keep their last known state until
+     * they are polled again.
+     * <p>
+     * This is meant to be used when the application starts up, before any device is polled, or by tests and
+     * benchmarks that need to run without the native libraries.
+     *
+     * @param newBackend the new backend
+     */
+    public static void setBackend(final XInputBackend newBackend) {
+        if (newBackend == null) {
+            throw new IllegalArgumentException("Backend cannot be null");
+        }
+        if (newBackend.isLoaded()) {
+            libraryVersion = XInputLibraryVersion.values()[newBackend.getLoadedLibVersion()];
+            guideButtonSupported = newBackend.isGuideButtonSupported();
+        } else {
+            libraryVersion = XInputLibraryVersion.NONE;
+            guideButtonSupported = false;
+        }
+        backend = newBackend;
     }
 
     /**
@@ -125,63 +207,325 @@ public class XInputDevice {
         return DEVICES[playerNum];
     }
 
+    /**
+     * Reads input from all devices with a single call to the backend, then updates the components of every device and
+     * fires the events of their listeners. This is equivalent to, but cheaper than, calling {@link #poll()} on each of
+     * the devices returned by {@link #getAllDevices()}.
+     * <p>
+     * This method is not thread-safe.
+     *
+     * @throws XInputNotLoadedException if the native library failed to load
+     * @throws IllegalStateException if there is an error trying to read the state of any device; all other devices are
+     * still updated
+     */
+    public static void pollAll() throws XInputNotLoadedException {
+        checkLibraryReady();
+        pollAll(DEVICES, ALL_STATES_BUFFER, ALL_STATES_VIEWS);
+    }
+
+    /**
+     * Reads input from all devices into the given buffer and updates the given devices.
+     *
+     * @param devices the devices, indexed by player number
+     * @param states the buffer created by {@link #newAllStatesBuffer()}
+     * @param views the views created by {@link #newAllStatesViews(ByteBuffer)} for the buffer
+     */
+    protected static void pollAll(final XInputDevice[] devices, final ByteBuffer states, final ByteBuffer[] views) {
+        int sampled = 0;// bit mask of the devices whose metrics sample this poll
+        for (int i = 0; i < devices.length; i++) {
+            final XInputMetrics m = devices[i].metrics;
+            if (m != null && m.pollStarted(devices[i].playerNum)) {
+                sampled |= 1 << i;
+            }
+        }
+        final Object event = XInputFlightRecorder.AVAILABLE ? XInputFlightRecorder.beginPollAll() : null;
+        final long start = sampled != 0 ? System.nanoTime() : 0L;
+        backend.pollAllDevices(states);
+        final long nativeNanos = sampled != 0 ? System.nanoTime() - start : 0L;
+        if (event != null) {
+            int connectedDevices = 0;
+            for (int i = 0; i < devices.length; i++) {
+                if (states.getInt(XInputConstants.MAX_PLAYERS * 16 + i * 4) == XInputConstants.ERROR_SUCCESS) {
+                    connectedDevices++;
+                }
+            }
+            XInputFlightRecorder.commitPollAll(event, connectedDevices);
+        }
+
+        RuntimeException error = null;
+        for (int i = 0; i < devices.length; i++) {
+            try {
+                final XInputMetrics m = (sampled & 1 << i) != 0 ? devices[i].metrics : null;
+                if (m != null) {
+                    m.pollCompleted(devices[i].playerNum, nativeNanos);
+                }
+                devices[i].update(states.getInt(XInputConstants.MAX_PLAYERS * 16 + i * 4), views[i], m);
+            } catch (final RuntimeException e) {
+                if (error == null) {
+                    error = e;
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
     /**
      * Defines whether to perform additional precalculations to the data. If enabled, in addition to filling in the raw
      * values, the fields {@code lx}, {@code ly}, {@code rx}, {@code ry}, {@code lt} and {@code rt} in {@code XInputAxes}
      * will be filled with non-zero {@code float} values ranging from -1 to 1 for the thumbsticks or 0 to 1 for the triggers,
      * based on the raw values. If disabled, only the raw values will be filled. By default, the float values are calculated.
+     * <p>
+     * This setting is applied to the {@linkplain XInputPipeline pipeline} of the devices returned by
+     * {@link #getAllDevices()} and {@link XInputDevice14#getAllDevices()}, keeping the other stages, and is the default
+     * for devices created afterwards.
      *
      * @param preprocess whether to preprocess data into the {@code XInputAxes}'s {@code float} fields ({@code true}) or
      * just use raw data ({@code false})
+     * @deprecated configure each device with {@link #setPipeline(XInputPipeline)} instead
      */
+    @Deprecated
     public static void setPreProcessData(final boolean preprocess) {
-        if (preprocess) {
-            stateReader = XInputStatePreProcessedReader.INSTANCE;
-        } else {
-            stateReader = XInputStateRawReader.INSTANCE;
+        synchronized (PRE_PROCESS_LOCK) {
+            preProcessData = preprocess;
+            applyPreProcessData(DEVICES);
+            applyPreProcessData(devices14);
+        }
+    }
+
+    /**
+     * Registers the devices of {@link XInputDevice14}, so that {@link #setPreProcessData(boolean)} reaches them without
+     * loading that class.
+     *
+     * @param devices the devices, indexed by player number
+     */
+    static void registerDevices14(final XInputDevice[] devices) {
+        synchronized (PRE_PROCESS_LOCK) {
+            devices14 = devices;
+            // the setting may have changed while the devices were being created
+            applyPreProcessData(devices);
+        }
+    }
+
+    private static void applyPreProcessData(final XInputDevice[] devices) {
+        final boolean preprocess = preProcessData;
+        for (final XInputDevice device : devices) {
+            synchronized (device.pipelineLock) {
+                if (device.getPipeline().isNormalizing() != preprocess) {
+                    device.setPipeline(new XInputPipeline.Builder(device.getPipeline()).normalize(preprocess).build());
+                }
+            }
         }
     }
 
     /**
      * Adds an event listener that will react to changes in the input.
+     * <p>
+     * This method is thread-safe.
      *
      * @param listener the listener
      */
     public void addListener(final XInputDeviceListener listener) {
-        listeners.add(listener);
+        synchronized (listenersLock) {
+            final XInputDeviceListener[] current = listeners;
+            final XInputDeviceListener[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = listener;
+            listeners = updated;
+        }
     }
 
     /**
      * Removes a registered event listener
+     * <p>
+     * This method is thread-safe.
      *
      * @param listener the listener
      */
     public void removeListener(final XInputDeviceListener listener) {
-        listeners.remove(listener);
+        synchronized (listenersLock) {
+            final XInputDeviceListener[] current = listeners;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i].equals(listener)) {
+                    final XInputDeviceListener[] updated = new XInputDeviceListener[current.length - 1];
+                    System.arraycopy(current, 0, updated, 0, i);
+                    System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                    listeners = updated;
+                    return;
+                }
+            }
+        }
     }
 
     /**
      * Reads input from the device and updates components.
      * <p>
+     * Once the device is connected, this method does not allocate any objects.
+     * <p>
      * This method is not thread-safe.
      *
      * @return <code>false</code> if the device is not connected
      * @throws IllegalStateException if there is an error trying to read the device state
      */
     public boolean poll() {
-        if (!checkReturnCode(XInputNatives.pollDevice(playerNum, buffer))) {
+        final XInputMetrics m = metrics;
+        final XInputMetrics sampled = m != null && m.pollStarted(playerNum) ? m : null;
+        final Object event = XInputFlightRecorder.AVAILABLE ? XInputFlightRecorder.beginPoll() : null;
+        final long start = sampled != null ? System.nanoTime() : 0L;
+        final int ret = backend.pollDevice(playerNum, buffer);
+        if (sampled != null) {
+            sampled.pollCompleted(playerNum, System.nanoTime() - start);
+        }
+        if (event != null) {
+            XInputFlightRecorder.commitPoll(event, playerNum, ret);
+        }
+        return update(ret, buffer, sampled);
+    }
+
+    /**
+     * Updates the components from an {@code XINPUT_STATE} struct and fires the listener events.
+     * <p>
+     * If the packet number of the state is the same as the last one, the state has not changed and the decoding and
+     * event processing are skipped.
+     *
+     * @param ret the return code of the call that read the state
+     * @param state the buffer containing the {@code XINPUT_STATE} struct
+     * @param sampledMetrics the metrics that sampled this poll, or <code>null</code> if the poll is not timed
+     * @return <code>false</code> if the device is not connected
+     * @throws IllegalStateException if the return code indicates an error
+     */
+    private boolean update(final int ret, final ByteBuffer state, final XInputMetrics sampledMetrics) {
+        final XInputRecorder rec = recorder;
+        if (rec != null) {
+            rec.record(playerNum, ret, state);
+        }
+        if (!checkReturnCode(ret)) {
             return false;
         }
         setConnected(true);
 
+        final XInputStateReader reader = stateReader;
+        final int packetNumber = state.getInt(0);
+        if (packetValid && packetNumber == lastPacketNumber && reader == lastStateReader) {
+            if (stateChanged) {
+                // bring the last state up to date so that the delta reports no changes
+                lastComponents.copy(components);
+                stateChanged = false;
+            }
+            publishSnapshot(false);
+            return true;
+        }
+        packetValid = true;
+        lastPacketNumber = packetNumber;
+        lastStateReader = reader;
+        stateChanged = true;
+
+        final Object decodeEvent = XInputFlightRecorder.AVAILABLE ? XInputFlightRecorder.beginDecode() : null;
+        final long decodeStart = sampledMetrics != null ? System.nanoTime() : 0L;
         lastComponents.copy(components);
 
-        stateReader.read(buffer, components);
+        reader.read(state, components, axisTracker);
+        final long decodeEnd = sampledMetrics != null ? System.nanoTime() : 0L;
+        if (decodeEvent != null) {
+            XInputFlightRecorder.commitDecode(decodeEvent, playerNum, getChangedButtonCount());
+        }
 
-        processDelta();
+        publishSnapshot(true);
+        final XInputEventRing ring = eventRing;
+        if (ring != null) {
+            publishEvents(ring, reader.isNormalizing());
+        }
+
+        final XInputDeviceListener[] ls = listeners;
+        final Object dispatchEvent = XInputFlightRecorder.AVAILABLE ? XInputFlightRecorder.beginDispatch() : null;
+        final boolean traceListeners = XInputFlightRecorder.AVAILABLE && XInputFlightRecorder.isListenerEnabled();
+        // the axis changes are cleared once they are dispatched
+        final int changedAxes = dispatchEvent != null ? Integer.bitCount(axisTracker.getChangedMask()) : 0;
+        if (sampledMetrics == null) {
+            processDelta(ls, null, traceListeners);
+            processAxisChanges(ls, null, traceListeners);
+        } else {
+            if (listenerNanos.length < ls.length) {
+                listenerNanos = new long[ls.length];
+            }
+            final long[] times = listenerNanos;
+            Arrays.fill(times, 0, ls.length, 0L);
+            final long dispatchStart = System.nanoTime();
+            final boolean fired = processDelta(ls, times, traceListeners) | processAxisChanges(ls, times, traceListeners);
+            sampledMetrics.stateProcessed(playerNum, decodeEnd - decodeStart, System.nanoTime() - dispatchStart);
+            if (fired) {
+                for (int i = 0; i < ls.length; i++) {
+                    sampledMetrics.listenerDispatched(playerNum, ls[i], times[i]);
+                }
+            }
+        }
+        if (dispatchEvent != null) {
+            XInputFlightRecorder.commitDispatch(dispatchEvent, playerNum, getChangedButtonCount(), changedAxes, ls.length);
+        }
         return true;
     }
 
+    private int getChangedButtonCount() {
+        final XInputButtonsDelta buttons = delta.getButtons();
+        return Integer.bitCount(buttons.getPressedMask() | buttons.getReleasedMask());
+    }
+
+    /**
+     * Publishes the button and axis changes of the last poll to the event ring.
+     *
+     * @param ring the event ring
+     * @param normalized whether the axis values were normalized by the state reader
+     */
+    private void publishEvents(final XInputEventRing ring, final boolean normalized) {
+        final long timestamp = System.nanoTime();
+
+        final XInputButtonsDelta buttons = delta.getButtons();
+        final int pressed = buttons.getPressedMask();
+        final int released = buttons.getReleasedMask();
+        if ((pressed | released) != 0) {
+            for (final XInputButton button : BUTTONS) {
+                final int mask = button.getMask();
+                if ((pressed & mask) != 0) {
+                    ring.publish(playerNum, XInputEventType.BUTTON_PRESSED, button.ordinal(), 1f, timestamp);
+                } else if ((released & mask) != 0) {
+                    ring.publish(playerNum, XInputEventType.BUTTON_RELEASED, button.ordinal(), 0f, timestamp);
+                }
+            }
+        }
+
+        final XInputAxes last = lastComponents.getAxes();
+        final XInputAxes cur = components.getAxes();
+        publishAxis(ring, XInputAxis.LEFT_THUMBSTICK_X, last.lxRaw, cur.lxRaw, normalized ? cur.lx : cur.lxRaw, timestamp);
+        publishAxis(ring, XInputAxis.LEFT_THUMBSTICK_Y, last.lyRaw, cur.lyRaw, normalized ? cur.ly : cur.lyRaw, timestamp);
+        publishAxis(ring, XInputAxis.RIGHT_THUMBSTICK_X, last.rxRaw, cur.rxRaw, normalized ? cur.rx : cur.rxRaw, timestamp);
+        publishAxis(ring, XInputAxis.RIGHT_THUMBSTICK_Y, last.ryRaw, cur.ryRaw, normalized ? cur.ry : cur.ryRaw, timestamp);
+        publishAxis(ring, XInputAxis.LEFT_TRIGGER, last.ltRaw, cur.ltRaw, normalized ? cur.lt : cur.ltRaw, timestamp);
+        publishAxis(ring, XInputAxis.RIGHT_TRIGGER, last.rtRaw, cur.rtRaw, normalized ? cur.rt : cur.rtRaw, timestamp);
+        publishAxis(ring, XInputAxis.DPAD, last.dpad, cur.dpad, cur.dpad, timestamp);
+    }
+
+    private void publishAxis(final XInputEventRing ring, final XInputAxis axis, final int lastRaw, final int raw, final float value, final long timestamp) {
+        if (lastRaw != raw) {
+            ring.publish(playerNum, XInputEventType.AXIS_CHANGED, axis.ordinal(), value, timestamp);
+        }
+    }
+
+    /**
+     * Publishes the current state for {@link #readSnapshot(XInputComponents)} if snapshot publishing is enabled.
+     *
+     * @param changed whether the state changed since the last call
+     */
+    private void publishSnapshot(final boolean changed) {
+        if (!publishSnapshots) {
+            snapshotUpToDate = false;
+            return;
+        }
+        if (changed || !snapshotUpToDate) {
+            snapshots.publish(connected, components);
+            snapshotUpToDate = true;
+        }
+    }
+
     protected boolean checkReturnCode(final int ret) {
         if (ret == XInputConstants.ERROR_DEVICE_NOT_CONNECTED) {
             setConnected(false);
@@ -211,31 +555,228 @@ public class XInputDevice {
         return true;
     }
 
-    private void setConnected(final boolean state) {
+    void setConnected(final boolean state) {
         final boolean lastConnected = connected;
         connected = state;
+        if (state == lastConnected) {
+            return;
+        }
+        // axes are reported relative to their resting position, as decoded by the pipeline in use when connected
+        stateReader.resetAxisTracker(axisTracker);
+        if (!state) {
+            packetValid = false;
+            stateChanged = false;
+            publishSnapshot(true);
+        }
+        connectionChanged(state);
+        final XInputMetrics m = metrics;
+        if (m != null) {
+            m.connectionChanged(playerNum, state);
+        }
+        final XInputEventRing ring = eventRing;
+        if (ring != null) {
+            ring.publish(playerNum, state ? XInputEventType.CONNECTED : XInputEventType.DISCONNECTED, 0, 0f, System.nanoTime());
+        }
         for (final XInputDeviceListener listener : listeners) {
-            if (connected && !lastConnected) {
+            if (state) {
                 listener.connected();
-            } else if (!connected && lastConnected) {
+            } else {
                 listener.disconnected();
             }
         }
     }
 
-    private void processDelta() {
-        final XInputButtonsDelta buttons = delta.getButtons();
+    /**
+     * Called from the polling thread when the device is connected or disconnected, before the listeners are notified.
+     * Subclasses override this method to drop anything they cache for the duration of a connection.
+     *
+     * @param connected <code>true</code> if the device was connected, <code>false</code> if disconnected
+     */
+    protected void connectionChanged(final boolean connected) {
+    }
+
+    void processDelta() {
+        processDelta(listeners, null, false);
+    }
+
+    /**
+     * Fires a button event that did not come from the state, such as a keystroke.
+     *
+     * @param button the button
+     * @param pressed <code>true</code> if the button was pressed, <code>false</code> if released
+     * @param repeat <code>true</code> if the button is being held down and repeated
+     */
+    void fireButtonEvent(final XInputButton button, final boolean pressed, final boolean repeat) {
+        final XInputEventRing ring = eventRing;
+        if (ring != null && !repeat) {
+            ring.publish(playerNum, pressed ? XInputEventType.BUTTON_PRESSED : XInputEventType.BUTTON_RELEASED, button.ordinal(),
+                    pressed ? 1f : 0f, System.nanoTime());
+        }
         for (final XInputDeviceListener listener : listeners) {
-            for (final XInputButton button : XInputButton.values()) {
-                if (buttons.isPressed(button)) {
+            if (!repeat) {
+                listener.buttonChanged(button, pressed);
+            } else if (listener instanceof XInputButtonRepeatListener) {
+                ((XInputButtonRepeatListener) listener).buttonRepeated(button);
+            }
+        }
+    }
+
+    /**
+     * Fires the button events of the last poll.
+     *
+     * @param ls the listeners
+     * @param times the array that accumulates the time spent in each listener, or <code>null</code> to skip timing
+     * @param trace whether to emit a Flight Recorder event for each listener
+     * @return <code>true</code> if any events were fired
+     */
+    private boolean processDelta(final XInputDeviceListener[] ls, final long[] times, final boolean trace) {
+        final XInputButtonsDelta buttons = delta.getButtons();
+        final int pressed = buttons.getPressedMask();
+        final int released = buttons.getReleasedMask();
+        if ((pressed | released) == 0) {
+            return false;
+        }
+        for (int i = 0; i < ls.length; i++) {
+            final XInputDeviceListener listener = ls[i];
+            final Object event = trace ? XInputFlightRecorder.beginListener() : null;
+            final long start = times != null ? System.nanoTime() : 0L;
+            for (final XInputButton button : BUTTONS) {
+                final int mask = button.getMask();
+                if ((pressed & mask) != 0) {
                     listener.buttonChanged(button, true);
-                } else if (buttons.isReleased(button)) {
+                } else if ((released & mask) != 0) {
                     listener.buttonChanged(button, false);
                 }
             }
+            if (times != null) {
+                times[i] += System.nanoTime() - start;
+            }
+            if (event != null) {
+                XInputFlightRecorder.commitListener(event, playerNum, listener, Integer.bitCount(pressed | released), 0);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Fires the axis events of the last poll to the listeners that implement {@link XInputAxisListener}.
+     *
+     * @param ls the listeners
+     * @param times the array that accumulates the time spent in each listener, or <code>null</code> to skip timing
+     * @param trace whether to emit a Flight Recorder event for each listener
+     * @return <code>true</code> if any events were fired
+     */
+    private boolean processAxisChanges(final XInputDeviceListener[] ls, final long[] times, final boolean trace) {
+        final int changed = axisTracker.getChangedMask();
+        if (changed == 0) {
+            return false;
+        }
+        axisTracker.clearChanges();
+        for (int i = 0; i < ls.length; i++) {
+            if (!(ls[i] instanceof XInputAxisListener)) {
+                continue;
+            }
+            final XInputAxisListener listener = (XInputAxisListener) ls[i];
+            final Object event = trace ? XInputFlightRecorder.beginListener() : null;
+            final long start = times != null ? System.nanoTime() : 0L;
+            for (final XInputAxis axis : AXES) {
+                final int index = axis.ordinal();
+                if ((changed & 1 << index) != 0) {
+                    listener.axisChanged(axis, axisTracker.getReported(index), axisTracker.getDelta(index));
+                }
+            }
+            if (times != null) {
+                times[i] += System.nanoTime() - start;
+            }
+            if (event != null) {
+                XInputFlightRecorder.commitListener(event, playerNum, listener, 0, Integer.bitCount(changed));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sets the processing pipeline of this device. The pipeline is compiled into a single reader that replaces the
+     * current one on the next poll.
+     * <p>
+     * This method is thread-safe.
+     *
+     * @param pipeline the pipeline
+     */
+    public void setPipeline(final XInputPipeline pipeline) {
+        if (pipeline == null) {
+            throw new IllegalArgumentException("Pipeline must not be null");
+        }
+        final XInputStateReader reader = new XInputStateReader(pipeline);
+        // the shortcuts read, modify and replace the pipeline while holding the lock
+        synchronized (pipelineLock) {
+            stateReader = reader;
+        }
+    }
+
+    /**
+     * Retrieves the processing pipeline of this device.
+     *
+     * @return the pipeline
+     */
+    public XInputPipeline getPipeline() {
+        return stateReader.getPipeline();
+    }
+
+    /**
+     * Sets the threshold that an axis must move past, relative to the last reported value, before an
+     * {@link XInputAxisListener#axisChanged(XInputAxis, float, float) axisChanged} event is fired. The threshold is
+     * expressed in normalized units: thumbsticks range from -1 to 1 and triggers from 0 to 1. The default threshold is
+     * 0.01. The D-Pad ignores the threshold and reports every change of direction.
+     * <p>
+     * This is a shortcut for updating the threshold stage of the {@linkplain #setPipeline(XInputPipeline) pipeline}.
+     * This method is thread-safe. The change takes effect on the next poll.
+     *
+     * @param axis the axis
+     * @param threshold the minimum movement that fires an event
+     * @throws IllegalArgumentException if the threshold is negative or not a number
+     */
+    public void setAxisThreshold(final XInputAxis axis, final float threshold) {
+        synchronized (pipelineLock) {
+            setPipeline(new XInputPipeline.Builder(getPipeline()).axisThreshold(axis, threshold).build());
+        }
+    }
+
+    /**
+     * Retrieves the threshold of the specified axis.
+     *
+     * @param axis the axis
+     * @return the threshold of the axis
+     * @see #setAxisThreshold(XInputAxis, float)
+     */
+    public float getAxisThreshold(final XInputAxis axis) {
+        return getPipeline().getAxisThreshold(axis);
+    }
+
+    /**
+     * Applies deadzones and response curves to the axes of this device. The normalized values in {@link XInputAxes}
+     * will be computed by the processor instead of the linear mapping. Raw values are not affected.
+     * <p>
+     * This is a shortcut for updating the normalize stage of the {@linkplain #setPipeline(XInputPipeline) pipeline}.
+     * This method is thread-safe. The change takes effect on the next poll.
+     *
+     * @param processor the axis processor, or <code>null</code> to normalize the axes linearly
+     */
+    public void setAxisProcessor(final XInputAxisProcessor processor) {
+        synchronized (pipelineLock) {
+            setPipeline(new XInputPipeline.Builder(getPipeline()).axisProcessor(processor).build());
         }
     }
 
+    /**
+     * Retrieves the axis processor applied to this device.
+     *
+     * @return the axis processor, or <code>null</code> if the axes are normalized linearly
+     */
+    public XInputAxisProcessor getAxisProcessor() {
+        return getPipeline().getAxisProcessor();
+    }
+
     /**
      * Sets the vibration of the controller. Returns <code>false</code> if the device was not connected.
      * <p>
@@ -253,7 +794,119 @@ public class XInputDevice {
         if (rightMotor < 0 || rightMotor > 65535) {
             throw new IllegalArgumentException("Right motor speed out of range (0..65535): " + rightMotor);
         }
-        return XInputNatives.setVibration(playerNum, leftMotor, rightMotor) == XInputConstants.ERROR_SUCCESS;
+        final XInputMetrics m = metrics;
+        if (m != null) {
+            m.vibrationSet(playerNum);
+        }
+        final Object event = XInputFlightRecorder.AVAILABLE ? XInputFlightRecorder.beginVibration() : null;
+        final int ret = backend.setVibration(playerNum, leftMotor, rightMotor);
+        if (event != null) {
+            XInputFlightRecorder.commitVibration(event, playerNum, leftMotor, rightMotor, ret);
+        }
+        return ret == XInputConstants.ERROR_SUCCESS;
+    }
+
+    /**
+     * Enables or disables snapshot publishing. While enabled, every poll that changes the state of the device publishes
+     * a copy of the components that can be read from other threads with {@link #readSnapshot(XInputComponents)}.
+     * <p>
+     * This method is thread-safe. The change takes effect on the next poll.
+     *
+     * @param enabled whether to publish snapshots
+     */
+    public void setSnapshotPublishing(final boolean enabled) {
+        publishSnapshots = enabled;
+    }
+
+    /**
+     * Attaches an event ring to this device. Every poll that changes the state of the device publishes one event for each
+     * button that was pressed or released and each axis that changed, all stamped with the same {@link System#nanoTime()}
+     * taken once per poll. Connections and disconnections are published as well.
+     * <p>
+     * The same ring may be shared by several devices, as long as all of them are polled from the same thread, such as
+     * through {@link #pollAll()} or an {@link com.github.strikerx3.jxinput.poller.XInputPoller XInputPoller}.
+     * <p>
+     * This method is thread-safe. The change takes effect on the next poll.
+     *
+     * @param ring the event ring, or <code>null</code> to stop publishing events
+     */
+    public void setEventRing(final XInputEventRing ring) {
+        eventRing = ring;
+    }
+
+    /**
+     * Retrieves the event ring attached to this device.
+     *
+     * @return the event ring, or <code>null</code> if none is attached
+     */
+    public XInputEventRing getEventRing() {
+        return eventRing;
+    }
+
+    /**
+     * Attaches a recorder to this device. Every poll that reads a new state records the raw {@code XINPUT_STATE}
+     * struct, which can later be played back with a
+     * {@link com.github.strikerx3.jxinput.backend.ReplayXInputBackend ReplayXInputBackend}.
+     * <p>
+     * The same recorder may be shared by several devices, as long as all of them are polled from the same thread.
+     * <p>
+     * This method is thread-safe. The change takes effect on the next poll.
+     *
+     * @param recorder the recorder, or <code>null</code> to stop recording
+     */
+    public void setRecorder(final XInputRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Retrieves the recorder attached to this device.
+     *
+     * @return the recorder, or <code>null</code> if none is attached
+     */
+    public XInputRecorder getRecorder() {
+        return recorder;
+    }
+
+    /**
+     * Attaches metrics to this device. Every poll is counted, and the polls sampled by the metrics are timed: the time
+     * spent reading the state from the backend, decoding it and firing the events of each listener. Connections,
+     * disconnections and vibration calls are reported as well.
+     * <p>
+     * Use an {@link com.github.strikerx3.jxinput.metrics.XInputDeviceMetrics XInputDeviceMetrics} to collect the
+     * measurements and expose them through JMX, or implement {@link XInputMetrics} to forward them elsewhere.
+     * <p>
+     * This method is thread-safe. The change takes effect on the next poll.
+     *
+     * @param metrics the metrics, or <code>null</code> to stop collecting metrics
+     */
+    public void setMetrics(final XInputMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Retrieves the metrics attached to this device.
+     *
+     * @return the metrics, or <code>null</code> if none are attached
+     */
+    public XInputMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Copies the last published snapshot of the components into {@code target}. The copy is always consistent: buttons
+     * and axes come from the same poll, even if the device is being polled concurrently. The reader never blocks the
+     * polling thread and this method does not allocate any objects.
+     * <p>
+     * Snapshots are only published while {@linkplain #setSnapshotPublishing(boolean) snapshot publishing} is enabled;
+     * otherwise, the last published state (or the default state, if none was published) is returned.
+     * <p>
+     * This method is thread-safe.
+     *
+     * @param target the components to copy the snapshot into
+     * @return <code>true</code> if the device was connected when the snapshot was published
+     */
+    public boolean readSnapshot(final XInputComponents target) {
+        return snapshots.read(target);
     }
 
     /**
@@ -283,6 +936,17 @@ public class XInputDevice {
         return delta;
     }
 
+    /**
+     * Returns a boolean indicating whether the last poll received a new state from the device. When the device reports
+     * the same packet number as in the previous poll, the state is known to be unchanged: the components are kept as
+     * they were, the delta reports no changes and no events are fired.
+     *
+     * @return <code>true</code> if the state changed in the last poll, <code>false</code> otherwise
+     */
+    public boolean hasStateChanged() {
+        return stateChanged;
+    }
+
     /**
      * Returns a boolean indicating whether this device is connected.
      *
@@ -307,8 +971,31 @@ public class XInputDevice {
      * @throws XInputNotLoadedException if the native library is not loaded
      */
     private static void checkLibraryReady() throws XInputNotLoadedException {
-        if (!XInputNatives.isLoaded()) {
-            throw new XInputNotLoadedException("Native library failed to load", XInputNatives.getLoadError());
+        final XInputBackend backend = XInputDevice.backend;
+        if (!backend.isLoaded()) {
+            throw new XInputNotLoadedException("Native library failed to load", backend.getLoadError());
+        }
+    }
+
+    /**
+     * Creates the backend specified by the given name: {@code native}, {@code simulated} or the fully qualified name of
+     * a class implementing {@link XInputBackend}.
+     *
+     * @param name the backend name
+     * @return the backend
+     * @throws IllegalArgumentException if the backend could not be created
+     */
+    private static XInputBackend loadBackend(final String name) {
+        if ("native".equals(name)) {
+            return NativeXInputBackend.INSTANCE;
+        }
+        if ("simulated".equals(name)) {
+            return new SimulatedXInputBackend();
+        }
+        try {
+            return Class.forName(name).asSubclass(XInputBackend.class).getDeclaredConstructor().newInstance();
+        } catch (final Exception e) {
+            throw new IllegalArgumentException("Could not create XInput backend " + name, e);
         }
     }
 
@@ -324,17 +1011,87 @@ public class XInputDevice {
         return buffer;
     }
 
-    private static interface XInputStateReader {
-        void read(final ByteBuffer buffer, final XInputComponents components);
+    /**
+     * Creates a direct ByteBuffer to be used with {@link #pollAll(XInputDevice[], ByteBuffer, ByteBuffer[])}.
+     *
+     * @return a direct ByteBuffer large enough to hold the states and return codes of all players
+     */
+    protected static ByteBuffer newAllStatesBuffer() {
+        return newBuffer(XInputConstants.MAX_PLAYERS * (16 + 4));// MAX_PLAYERS * (sizeof(XINPUT_STATE) + sizeof(DWORD))
+    }
+
+    /**
+     * Creates views of each player's {@code XINPUT_STATE} struct within a buffer created by {@link #newAllStatesBuffer()}.
+     *
+     * @param states the buffer
+     * @return the views, indexed by player number
+     */
+    protected static ByteBuffer[] newAllStatesViews(final ByteBuffer states) {
+        final ByteBuffer[] views = new ByteBuffer[XInputConstants.MAX_PLAYERS];
+        for (int i = 0; i < views.length; i++) {
+            final ByteBuffer view = states.duplicate();
+            view.position(i * 16).limit(i * 16 + 16);// sizeof(XINPUT_STATE)
+            views[i] = view.slice().order(ByteOrder.nativeOrder());
+        }
+        return views;
     }
 
-    private static class XInputStateRawReader implements XInputStateReader {
-        public static final XInputStateRawReader INSTANCE = new XInputStateRawReader();
+    /**
+     * Reads the {@code XINPUT_STATE} struct and applies all stages of an {@link XInputPipeline} in a single pass.
+     * Every stage is configured through final fields, so there are no virtual calls per stage.
+     */
+    static final class XInputStateReader {
+        private final XInputPipeline pipeline;
+        private final boolean normalize;
+        private final XInputAxisProcessor processor;
+        private final int jitter;
+        private final int[] remapLow;// null if buttons are not remapped
+        private final int[] remapHigh;
+        private final float[] thresholds;
+        private final XInputAxes rest;// the axes decoded from a state at rest
+
+        XInputStateReader(final XInputPipeline pipeline) {
+            this.pipeline = pipeline;
+            normalize = pipeline.isNormalizing();
+            processor = pipeline.getAxisProcessor();
+            jitter = pipeline.getJitterThreshold();
+            if (pipeline.isRemapping()) {
+                remapLow = pipeline.buildRemapTable(0);
+                remapHigh = pipeline.buildRemapTable(8);
+            } else {
+                remapLow = remapHigh = null;
+            }
+            thresholds = pipeline.copyAxisThresholds();
+            rest = new XInputAxes();
+            normalizeAxes(rest);
+        }
+
+        XInputPipeline getPipeline() {
+            return pipeline;
+        }
 
-        protected XInputStateRawReader() {}
+        boolean isNormalizing() {
+            return normalize;
+        }
 
-        @Override
-        public void read(final ByteBuffer buffer, final XInputComponents components) {
+        /**
+         * Resets the last reported values of an axis tracker to the values this reader decodes for a state at rest.
+         *
+         * @param axisTracker the tracker
+         */
+        void resetAxisTracker(final XInputAxisChangeTracker axisTracker) {
+            axisTracker.reset(rest, normalize);
+        }
+
+        /**
+         * Decodes an {@code XINPUT_STATE} struct into the components. The components must hold the result of the
+         * previous read, which the jitter filter compares against.
+         *
+         * @param buffer the buffer containing the struct
+         * @param components the components to update
+         * @param axisTracker the tracker that checks the decoded axes against their thresholds, or <code>null</code>
+         */
+        void read(final ByteBuffer buffer, final XInputComponents components, final XInputAxisChangeTracker axisTracker) {
             // typedef struct _XINPUT_STATE
             // {
             //     DWORD                               dwPacketNumber;
@@ -352,8 +1109,8 @@ public class XInputDevice {
             //     SHORT                               sThumbRY;
             // } XINPUT_GAMEPAD, *PXINPUT_GAMEPAD;
 
-            /*int packetNumber = */buffer.getInt(); // can be safely ignored
-            final short btns = buffer.getShort();
+            /*int packetNumber = */buffer.getInt(); // checked by XInputDevice before decoding
+            int btns = buffer.getShort() & 0xFFFF;
             final byte leftTrigger = buffer.get();
             final byte rightTrigger = buffer.get();
             final short thumbLX = buffer.getShort();
@@ -362,59 +1119,63 @@ public class XInputDevice {
             final short thumbRY = buffer.getShort();
             buffer.flip();
 
+            // remap
+            if (remapLow != null) {
+                btns = remapLow[btns & 0xFF] | remapHigh[btns >>> 8];
+            }
+
             final boolean up = (btns & XInputConstants.XINPUT_GAMEPAD_DPAD_UP) != 0;
             final boolean down = (btns & XInputConstants.XINPUT_GAMEPAD_DPAD_DOWN) != 0;
             final boolean left = (btns & XInputConstants.XINPUT_GAMEPAD_DPAD_LEFT) != 0;
             final boolean right = (btns & XInputConstants.XINPUT_GAMEPAD_DPAD_RIGHT) != 0;
 
+            // filter
             final XInputAxes axes = components.getAxes();
-            axes.lxRaw = thumbLX;
-            axes.lyRaw = thumbLY;
-            axes.rxRaw = thumbRX;
-            axes.ryRaw = thumbRY;
+            if (jitter > 0) {
+                axes.lxRaw = filter(axes.lxRaw, thumbLX);
+                axes.lyRaw = filter(axes.lyRaw, thumbLY);
+                axes.rxRaw = filter(axes.rxRaw, thumbRX);
+                axes.ryRaw = filter(axes.ryRaw, thumbRY);
+            } else {
+                axes.lxRaw = thumbLX;
+                axes.lyRaw = thumbLY;
+                axes.rxRaw = thumbRX;
+                axes.ryRaw = thumbRY;
+            }
             axes.ltRaw = leftTrigger & 0xff;
             axes.rtRaw = rightTrigger & 0xff;
-            axes.lx = axes.ly = 0f;
-            axes.rx = axes.ry = 0f;
-            axes.lt = axes.rt = 0f;
             axes.dpad = XInputAxes.dpadFromButtons(up, down, left, right);
 
-            final XInputButtons buttons = components.getButtons();
-            buttons.a = (btns & XInputConstants.XINPUT_GAMEPAD_A) != 0;
-            buttons.b = (btns & XInputConstants.XINPUT_GAMEPAD_B) != 0;
-            buttons.x = (btns & XInputConstants.XINPUT_GAMEPAD_X) != 0;
-            buttons.y = (btns & XInputConstants.XINPUT_GAMEPAD_Y) != 0;
-            buttons.back = (btns & XInputConstants.XINPUT_GAMEPAD_BACK) != 0;
-            buttons.start = (btns & XInputConstants.XINPUT_GAMEPAD_START) != 0;
-            buttons.lShoulder = (btns & XInputConstants.XINPUT_GAMEPAD_LEFT_SHOULDER) != 0;
-            buttons.rShoulder = (btns & XInputConstants.XINPUT_GAMEPAD_RIGHT_SHOULDER) != 0;
-            buttons.lThumb = (btns & XInputConstants.XINPUT_GAMEPAD_LEFT_THUMB) != 0;
-            buttons.rThumb = (btns & XInputConstants.XINPUT_GAMEPAD_RIGHT_THUMB) != 0;
-            buttons.guide = (btns & XInputConstants.XINPUT_GAMEPAD_GUIDE_BUTTON) != 0;
-            buttons.unknown = (btns & XInputConstants.XINPUT_GAMEPAD_UNKNOWN) != 0;
-            buttons.up = up;
-            buttons.down = down;
-            buttons.left = left;
-            buttons.right = right;
-        }
-    }
-
-    private static class XInputStatePreProcessedReader extends XInputStateRawReader {
-        public static final XInputStatePreProcessedReader INSTANCE = new XInputStatePreProcessedReader();
-
-        protected XInputStatePreProcessedReader() {}
-
-        @Override
-        public void read(final ByteBuffer buffer, final XInputComponents components) {
-            super.read(buffer, components);
-            final XInputAxes axes = components.getAxes();
-            axes.lx = (axes.lxRaw + 32768) / 32767.5f - 1;
-            axes.ly = (axes.lyRaw + 32768) / 32767.5f - 1;
-            axes.rx = (axes.rxRaw + 32768) / 32767.5f - 1;
-            axes.ry = (axes.ryRaw + 32768) / 32767.5f - 1;
+            normalizeAxes(axes);
+
+            components.getButtons().set(btns);
+
+            // threshold
+            if (axisTracker != null) {
+                axisTracker.check(axes, normalize, thresholds);
+            }
+        }
+
+        private void normalizeAxes(final XInputAxes axes) {
+            if (!normalize) {
+                axes.lx = axes.ly = 0f;
+                axes.rx = axes.ry = 0f;
+                axes.lt = axes.rt = 0f;
+            } else if (processor != null) {
+                processor.process(axes);
+            } else {
+                axes.lx = XInputAxisChangeTracker.normalizeThumb(axes.lxRaw);
+                axes.ly = XInputAxisChangeTracker.normalizeThumb(axes.lyRaw);
+                axes.rx = XInputAxisChangeTracker.normalizeThumb(axes.rxRaw);
+                axes.ry = XInputAxisChangeTracker.normalizeThumb(axes.ryRaw);
+
+                axes.lt = XInputAxisChangeTracker.normalizeTrigger(axes.ltRaw);
+                axes.rt = XInputAxisChangeTracker.normalizeTrigger(axes.rtRaw);
+            }
+        }
 
-            axes.lt = (axes.ltRaw & 0xff) / 255f;
-            axes.rt = (axes.rtRaw & 0xff) / 255f;
+        private int filter(final int last, final int value) {
+            return Math.abs(value - last) > jitter ? value : last;
         }
     }
 }
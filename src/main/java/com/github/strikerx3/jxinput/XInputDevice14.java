@@ -2,10 +2,12 @@ package com.github.strikerx3.jxinput;
 
 import java.nio.ByteBuffer;
 
+import com.github.strikerx3.jxinput.backend.XInputBackend;
 import com.github.strikerx3.jxinput.enums.XInputBatteryDeviceType;
+import com.github.strikerx3.jxinput.enums.XInputButton;
 import com.github.strikerx3.jxinput.exceptions.XInputNotLoadedException;
 import com.github.strikerx3.jxinput.natives.XInputConstants;
-import com.github.strikerx3.jxinput.natives.XInputNatives14;
+import com.github.strikerx3.jxinput.natives.XInputVirtualKeyCodes;
 
 /**
  * Provides extended functionality available on XInput 1.4.
@@ -16,23 +18,32 @@ import com.github.strikerx3.jxinput.natives.XInputNatives14;
  * @author Ivan "StrikerX3" Oliveira
  */
 public class XInputDevice14 extends XInputDevice {
+    private static final int KEYSTROKE_BATCH = 16; // keystrokes read per backend call by pollKeystrokes()
+
     private final ByteBuffer capsBuffer; // Contains the XINPUT_CAPABILITIES struct
     private final ByteBuffer battBuffer; // Contains the XINPUT_BATTERY_INFORMATION struct
     private final ByteBuffer keysBuffer; // Contains the XINPUT_KEYSTROKE struct
+    private ByteBuffer drainBuffer; // Contains XINPUT_KEYSTROKE structs and a return code; grown as needed
+
+    // Capabilities cannot change while the device stays connected; cleared by connectionChanged. connectionChanged
+    // runs during the superclass constructor, so these fields must not have initializers
+    private volatile XInputCapabilities capabilities;
+    private volatile XInputCapabilities gamepadCapabilities;
+    private volatile int connectionCount; // incremented by the polling thread on every connection change
 
     private static final XInputDevice14[] DEVICES;
+    private static final ByteBuffer ALL_STATES_BUFFER; // Contains MAX_PLAYERS XINPUT_STATE structs and return codes
+    private static final ByteBuffer[] ALL_STATES_VIEWS;
+    private static ByteBuffer allKeystrokesBuffer; // Contains XINPUT_KEYSTROKE structs and a return code; grown as needed
 
     static {
-        XInputDevice14[] devices;
-        if (XInputNatives14.isLoaded()) {
-            devices = new XInputDevice14[XInputConstants.MAX_PLAYERS];
-            for (int i = 0; i < XInputConstants.MAX_PLAYERS; i++) {
-                devices[i] = new XInputDevice14(i);
-            }
-        } else {
-            devices = null;
+        DEVICES = new XInputDevice14[XInputConstants.MAX_PLAYERS];
+        for (int i = 0; i < XInputConstants.MAX_PLAYERS; i++) {
+            DEVICES[i] = new XInputDevice14(i);
         }
-        DEVICES = devices;
+        registerDevices14(DEVICES);
+        ALL_STATES_BUFFER = newAllStatesBuffer();
+        ALL_STATES_VIEWS = newAllStatesViews(ALL_STATES_BUFFER);
     }
 
     protected XInputDevice14(final int playerNum) {
@@ -49,7 +60,7 @@ public class XInputDevice14 extends XInputDevice {
      * @return <code>true</code> if the XInput devices are available, <code>false</code> if not
      */
     public static boolean isAvailable() {
-        return DEVICES != null;
+        return getBackend().isLoaded14();
     }
 
     /**
@@ -82,6 +93,22 @@ public class XInputDevice14 extends XInputDevice {
         return DEVICES[playerNum];
     }
 
+    /**
+     * Reads input from all devices with a single call to the backend, then updates the components of every device and
+     * fires the events of their listeners. This is equivalent to, but cheaper than, calling {@link #poll()} on each of
+     * the devices returned by {@link #getAllDevices()}.
+     * <p>
+     * This method is not thread-safe.
+     *
+     * @throws XInputNotLoadedException if the native library failed to load
+     * @throws IllegalStateException if there is an error trying to read the state of any device; all other devices are
+     * still updated
+     */
+    public static void pollAll() throws XInputNotLoadedException {
+        checkLibraryReady();
+        pollAll(DEVICES, ALL_STATES_BUFFER, ALL_STATES_VIEWS);
+    }
+
     /**
      * Enables or disables the reporting state of XInput. Disabling this will cause XInput to send neutral data in response
      * to polls and not send vibration to the device. This is meant to be used when the application loses focus so as to
@@ -91,46 +118,83 @@ public class XInputDevice14 extends XInputDevice {
      * force it to return neutral data and prevent sending data to the device
      */
     public static void setEnabled(final boolean enabled) {
-        XInputNatives14.setEnabled(enabled);
+        getBackend().setEnabled(enabled);
     }
 
     /**
      * Retrieves the capabilities of the device.
      * <p>
+     * The capabilities are read once per connection: once a poll has found the device connected, later calls return the
+     * same object without calling into XInput, until a poll finds the device disconnected. This method never changes
+     * the connection state of the device; that is left to the polling methods.
+     * <p>
      * This method is not thread-safe.
      *
      * @return the device's capabilities, or <code>null</code> if the device is not connected
      * @throws IllegalStateException if there is an error trying to read the device state
      */
     public XInputCapabilities getCapabilities() {
-        return getCapabilities(0);
+        final XInputCapabilities caps = capabilities;
+        return caps != null ? caps : readCapabilities(0);
     }
 
     /**
      * Retrieves the capabilities of the gamepad.
      * <p>
+     * The capabilities are read once per connection: once a poll has found the device connected, later calls return the
+     * same object without calling into XInput, until a poll finds the device disconnected. This method never changes
+     * the connection state of the device; that is left to the polling methods.
+     * <p>
      * This method is not thread-safe.
      *
      * @return the gamepad's capabilities, or <code>null</code> if the device is not connected
      * @throws IllegalStateException if there is an error trying to read the device state
      */
     public XInputCapabilities getGamepadCapabilities() {
-        return getCapabilities(XInputConstants.XINPUT_FLAG_GAMEPAD);
+        final XInputCapabilities caps = gamepadCapabilities;
+        return caps != null ? caps : readCapabilities(XInputConstants.XINPUT_FLAG_GAMEPAD);
     }
 
-    private XInputCapabilities getCapabilities(final int flags) {
-        if (!checkReturnCode(XInputNatives14.getCapabilities(playerNum, flags, capsBuffer))) {
+    private XInputCapabilities readCapabilities(final int flags) {
+        final int connections = connectionCount;
+        final int ret = getBackend().getCapabilities(playerNum, flags, capsBuffer);
+        if (ret == XInputConstants.ERROR_DEVICE_NOT_CONNECTED) {
             return null;
         }
-
+        if (ret != XInputConstants.ERROR_SUCCESS) {
+            throw new IllegalStateException("Could not read controller capabilities: 0x" + Integer.toHexString(ret));
+        }
         final XInputCapabilities caps = new XInputCapabilities(capsBuffer);
-        capsBuffer.flip();
+        // only cache while a poll has seen the device connected, so that the next disconnection clears the cache
+        if (isConnected()) {
+            if (flags == 0) {
+                capabilities = caps;
+            } else {
+                gamepadCapabilities = caps;
+            }
+            // if the connection changed during the read, the cache may have been cleared before it was filled
+            if (connectionCount != connections) {
+                capabilities = null;
+                gamepadCapabilities = null;
+            }
+        }
         return caps;
     }
 
+    @Override
+    protected void connectionChanged(final boolean connected) {
+        super.connectionChanged(connected);
+        connectionCount++;
+        capabilities = null;
+        gamepadCapabilities = null;
+    }
+
     /**
      * Retrieves the device's battery information.
      * <p>
+     * This is a synchronous query that may have to go through the wireless receiver; use an
+     * {@link XInputBatteryMonitor} to read battery levels from a background thread instead of the polling thread.
+     * <p>
      * This method is not thread-safe.
      *
      * @param deviceType the type of device to obtain battery information from
@@ -138,13 +202,14 @@ public class XInputDevice14 extends XInputDevice {
      * @throws IllegalStateException if there is an error trying to read the device state
      */
     public XInputBatteryInformation getBatteryInformation(final XInputBatteryDeviceType deviceType) {
-        if (!checkReturnCode(XInputNatives14.getBatteryInformation(playerNum, 0, battBuffer))) {
+        if (deviceType == null) {
+            throw new IllegalArgumentException("Device type must not be null");
+        }
+        if (!checkReturnCode(getBackend().getBatteryInformation(playerNum, deviceType.toNative(), battBuffer))) {
             return null;
         }
 
-        final XInputBatteryInformation battInfo = new XInputBatteryInformation(battBuffer);
-        battBuffer.flip();
-        return battInfo;
+        return new XInputBatteryInformation(battBuffer);
     }
 
     /**
@@ -156,24 +221,189 @@ public class XInputDevice14 extends XInputDevice {
      * @return the next keystroke, or null if the device is not connected or there was no keystroke
      */
     public XInputKeystroke getKeystroke() {
-        final int ret = XInputNatives14.getKeystroke(playerNum, keysBuffer);
-        if (!checkReturnCode(ret, XInputConstants.ERROR_EMPTY) && ret == XInputConstants.ERROR_EMPTY) {
+        final int ret = getBackend().getKeystroke(playerNum, keysBuffer);
+        if (ret == XInputConstants.ERROR_EMPTY || !checkReturnCode(ret)) {
             return null;
         }
 
-        final XInputKeystroke keystroke = new XInputKeystroke(keysBuffer);
-        keysBuffer.flip();
+        final XInputKeystroke keystroke = new XInputKeystroke();
+        keystroke.read(keysBuffer, 0);
         return keystroke;
     }
 
+    /**
+     * Reads all pending keystrokes from this device, up to the length of the given array, with a single call to the
+     * backend. The keystrokes are written into the elements of the array, in the order they were typed; <code>null</code>
+     * elements are replaced with new keystrokes, so an array can be reused across calls without allocating.
+     * <p>
+     * This method is not thread-safe.
+     *
+     * @param keystrokes the keystrokes to fill
+     * @return the number of keystrokes read, which is 0 if there were none or the device is not connected
+     * @throws IllegalStateException if there is an error trying to read the keystrokes
+     */
+    public int drainKeystrokes(final XInputKeystroke[] keystrokes) {
+        final int max = keystrokes.length;
+        if (max == 0) {
+            return 0;
+        }
+        drainBuffer = ensureKeystrokeCapacity(drainBuffer, max);
+        final int count = getBackend().getKeystrokes(playerNum, drainBuffer, max);
+        if (count == 0) {
+            final int ret = drainBuffer.getInt(max * 8);
+            if (ret != XInputConstants.ERROR_EMPTY) {
+                checkReturnCode(ret);
+            }
+            return 0;
+        }
+        readKeystrokes(drainBuffer, keystrokes, count);
+        return count;
+    }
+
+    /**
+     * Reads the pending keystrokes of all devices, up to the length of the given array, with a single call to the
+     * backend. The keystrokes are written into the elements of the array as in {@link #drainKeystrokes(XInputKeystroke[])};
+     * use {@link XInputKeystroke#getUserIndex()} to tell which device each keystroke came from.
+     * <p>
+     * This method is not thread-safe.
+     *
+     * @param keystrokes the keystrokes to fill
+     * @return the number of keystrokes read, which is 0 if there were none or no devices are connected
+     * @throws XInputNotLoadedException if the native library failed to load
+     * @throws IllegalStateException if there is an error trying to read the keystrokes
+     */
+    public static int drainAllKeystrokes(final XInputKeystroke[] keystrokes) throws XInputNotLoadedException {
+        checkLibraryReady();
+        final int max = keystrokes.length;
+        if (max == 0) {
+            return 0;
+        }
+        allKeystrokesBuffer = ensureKeystrokeCapacity(allKeystrokesBuffer, max);
+        final int count = getBackend().getKeystrokes(XInputConstants.XUSER_INDEX_ANY, allKeystrokesBuffer, max);
+        if (count == 0) {
+            final int ret = allKeystrokesBuffer.getInt(max * 8);
+            if (ret != XInputConstants.ERROR_SUCCESS && ret != XInputConstants.ERROR_EMPTY && ret != XInputConstants.ERROR_DEVICE_NOT_CONNECTED) {
+                throw new IllegalStateException("Could not read keystrokes: 0x" + Integer.toHexString(ret));
+            }
+            return 0;
+        }
+        readKeystrokes(allKeystrokesBuffer, keystrokes, count);
+        return count;
+    }
+
+    /**
+     * Reads the pending keystrokes of this device and fires the button events of its listeners, as a cheaper
+     * alternative to {@link #poll()} for consumers that only care about buttons, such as menus.
+     * <p>
+     * XInput reports a keystroke when a button is pressed or released and then, while it is held, at a fixed repeat
+     * rate. Presses and releases fire {@link com.github.strikerx3.jxinput.listener.XInputDeviceListener#buttonChanged
+     * buttonChanged}, repeats fire {@link com.github.strikerx3.jxinput.listener.XInputButtonRepeatListener#buttonRepeated
+     * buttonRepeated}, and connection changes fire the usual events. The state is not read, so the components are not
+     * updated and axes do not fire events; the triggers, thumbstick directions and Guide button are not reported.
+     * <p>
+     * Keystrokes are consumed: do not mix this method with {@link #getKeystroke()} or
+     * {@link #drainKeystrokes(XInputKeystroke[])} on the same device, or with {@link #drainAllKeystrokes(XInputKeystroke[])}.
+     * <p>
+     * Once the device is connected, this method does not allocate any objects.
+     * <p>
+     * This method is not thread-safe.
+     *
+     * @return <code>false</code> if the device is not connected
+     * @throws IllegalStateException if there is an error trying to read the keystrokes
+     */
+    public boolean pollKeystrokes() {
+        drainBuffer = ensureKeystrokeCapacity(drainBuffer, KEYSTROKE_BATCH);
+        final ByteBuffer buffer = drainBuffer;
+        int count;
+        do {
+            count = getBackend().getKeystrokes(playerNum, buffer, KEYSTROKE_BATCH);
+            if (count == 0) {
+                final int ret = buffer.getInt(KEYSTROKE_BATCH * 8);
+                if (ret != XInputConstants.ERROR_EMPTY && !checkReturnCode(ret)) {
+                    return false;
+                }
+            }
+            setConnected(true);
+            for (int i = 0; i < count; i++) {
+                // XINPUT_KEYSTROKE: WORD VirtualKey at 0, WORD Flags at 4
+                final XInputButton button = toButton(buffer.getShort(i * 8));
+                if (button == null) {
+                    continue;
+                }
+                final short flags = buffer.getShort(i * 8 + 4);
+                if ((flags & XInputConstants.XINPUT_KEYSTROKE_REPEAT) != 0) {
+                    fireButtonEvent(button, true, true);
+                } else if ((flags & XInputConstants.XINPUT_KEYSTROKE_KEYDOWN) != 0) {
+                    fireButtonEvent(button, true, false);
+                } else if ((flags & XInputConstants.XINPUT_KEYSTROKE_KEYUP) != 0) {
+                    fireButtonEvent(button, false, false);
+                }
+            }
+        } while (count == KEYSTROKE_BATCH);
+        return true;
+    }
+
+    private static XInputButton toButton(final short virtualKey) {
+        switch (virtualKey) {
+            case XInputVirtualKeyCodes.VK_PAD_A:
+                return XInputButton.A;
+            case XInputVirtualKeyCodes.VK_PAD_B:
+                return XInputButton.B;
+            case XInputVirtualKeyCodes.VK_PAD_X:
+                return XInputButton.X;
+            case XInputVirtualKeyCodes.VK_PAD_Y:
+                return XInputButton.Y;
+            case XInputVirtualKeyCodes.VK_PAD_LSHOULDER:
+                return XInputButton.LEFT_SHOULDER;
+            case XInputVirtualKeyCodes.VK_PAD_RSHOULDER:
+                return XInputButton.RIGHT_SHOULDER;
+            case XInputVirtualKeyCodes.VK_PAD_DPAD_UP:
+                return XInputButton.DPAD_UP;
+            case XInputVirtualKeyCodes.VK_PAD_DPAD_DOWN:
+                return XInputButton.DPAD_DOWN;
+            case XInputVirtualKeyCodes.VK_PAD_DPAD_LEFT:
+                return XInputButton.DPAD_LEFT;
+            case XInputVirtualKeyCodes.VK_PAD_DPAD_RIGHT:
+                return XInputButton.DPAD_RIGHT;
+            case XInputVirtualKeyCodes.VK_PAD_START:
+                return XInputButton.START;
+            case XInputVirtualKeyCodes.VK_PAD_BACK:
+                return XInputButton.BACK;
+            case XInputVirtualKeyCodes.VK_PAD_LTHUMB_PRESS:
+                return XInputButton.LEFT_THUMBSTICK;
+            case XInputVirtualKeyCodes.VK_PAD_RTHUMB_PRESS:
+                return XInputButton.RIGHT_THUMBSTICK;
+            default:
+                return null;
+        }
+    }
+
+    private static ByteBuffer ensureKeystrokeCapacity(final ByteBuffer buffer, final int max) {
+        final int capacity = max * 8 + 4; // max * sizeof(XINPUT_KEYSTROKE) + sizeof(DWORD)
+        if (buffer != null && buffer.capacity() >= capacity) {
+            return buffer;
+        }
+        return newBuffer(capacity);
+    }
+
+    private static void readKeystrokes(final ByteBuffer buffer, final XInputKeystroke[] keystrokes, final int count) {
+        for (int i = 0; i < count; i++) {
+            if (keystrokes[i] == null) {
+                keystrokes[i] = new XInputKeystroke();
+            }
+            keystrokes[i].read(buffer, i * 8);
+        }
+    }
+
     /**
      * Checks if the native library is loaded and ready for use.
      *
      * @throws XInputNotLoadedException if the native library is not loaded
      */
     private static void checkLibraryReady() throws XInputNotLoadedException {
-        if (!XInputNatives14.isLoaded()) {
-            throw new XInputNotLoadedException("Native library failed to load", XInputNatives14.getLoadError());
+        final XInputBackend backend = getBackend();
+        if (!backend.isLoaded14()) {
+            throw new XInputNotLoadedException("Native library failed to load", backend.getLoadError14());
         }
     }
 }
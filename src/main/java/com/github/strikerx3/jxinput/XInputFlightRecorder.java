@@ -0,0 +1,129 @@
+package com.github.strikerx3.jxinput;
+
+import com.github.strikerx3.jxinput.listener.XInputDeviceListener;
+
+/**
+ * Emits the JDK Flight Recorder events of the {@code com.github.strikerx3.jxinput.jfr} package.
+ * <p>
+ * The Flight Recorder API only exists in Java 11 and later, while the library targets Java 7. The events and the
+ * {@link Recorder} that emits them live in the separately compiled {@code src/main/jfr} source root, and this class
+ * loads that recorder by reflection. Callers check {@link #AVAILABLE} before calling any other method, and events are
+ * passed around as {@code Object}s, so no class of the {@code jdk.jfr} API is loaded when it is missing. The
+ * {@code begin} methods return <code>null</code> without allocating anything unless a recording has the event enabled.
+ * <p>
+ * Setting the system property {@code jxinput.jfr} to {@code false} disables all events.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+final class XInputFlightRecorder {
+    private static final String RECORDER_CLASS = "com.github.strikerx3.jxinput.XInputJfrRecorder";
+
+    private static final Recorder RECORDER = loadRecorder();
+
+    /**
+     * Whether the Flight Recorder API is available and the events are not disabled.
+     */
+    static final boolean AVAILABLE = RECORDER != null;
+
+    private XInputFlightRecorder() {
+    }
+
+    private static Recorder loadRecorder() {
+        if ("false".equals(System.getProperty("jxinput.jfr"))) {
+            return null;
+        }
+        try {
+            Class.forName("jdk.jfr.Event");
+            return Class.forName(RECORDER_CLASS).asSubclass(Recorder.class).getDeclaredConstructor().newInstance();
+        } catch (final ReflectiveOperationException e) {
+            return null;
+        } catch (final LinkageError e) {
+            return null;
+        }
+    }
+
+    static Object beginPoll() {
+        return RECORDER.beginPoll();
+    }
+
+    static void commitPoll(final Object event, final int playerNum, final int returnCode) {
+        RECORDER.commitPoll(event, playerNum, returnCode);
+    }
+
+    static Object beginPollAll() {
+        return RECORDER.beginPollAll();
+    }
+
+    static void commitPollAll(final Object event, final int connectedDevices) {
+        RECORDER.commitPollAll(event, connectedDevices);
+    }
+
+    static Object beginDecode() {
+        return RECORDER.beginDecode();
+    }
+
+    static void commitDecode(final Object event, final int playerNum, final int changedButtons) {
+        RECORDER.commitDecode(event, playerNum, changedButtons);
+    }
+
+    static Object beginDispatch() {
+        return RECORDER.beginDispatch();
+    }
+
+    static void commitDispatch(final Object event, final int playerNum, final int changedButtons, final int changedAxes, final int listeners) {
+        RECORDER.commitDispatch(event, playerNum, changedButtons, changedAxes, listeners);
+    }
+
+    static boolean isListenerEnabled() {
+        return RECORDER.isListenerEnabled();
+    }
+
+    static Object beginListener() {
+        return RECORDER.beginListener();
+    }
+
+    static void commitListener(final Object event, final int playerNum, final XInputDeviceListener listener, final int changedButtons,
+                               final int changedAxes) {
+        RECORDER.commitListener(event, playerNum, listener, changedButtons, changedAxes);
+    }
+
+    static Object beginVibration() {
+        return RECORDER.beginVibration();
+    }
+
+    static void commitVibration(final Object event, final int playerNum, final int leftMotor, final int rightMotor, final int returnCode) {
+        RECORDER.commitVibration(event, playerNum, leftMotor, rightMotor, returnCode);
+    }
+
+    /**
+     * Creates and commits the events. The only implementation is compiled against the {@code jdk.jfr} API and must have
+     * a no-argument constructor.
+     */
+    abstract static class Recorder {
+        abstract Object beginPoll();
+
+        abstract void commitPoll(Object event, int playerNum, int returnCode);
+
+        abstract Object beginPollAll();
+
+        abstract void commitPollAll(Object event, int connectedDevices);
+
+        abstract Object beginDecode();
+
+        abstract void commitDecode(Object event, int playerNum, int changedButtons);
+
+        abstract Object beginDispatch();
+
+        abstract void commitDispatch(Object event, int playerNum, int changedButtons, int changedAxes, int listeners);
+
+        abstract boolean isListenerEnabled();
+
+        abstract Object beginListener();
+
+        abstract void commitListener(Object event, int playerNum, XInputDeviceListener listener, int changedButtons, int changedAxes);
+
+        abstract Object beginVibration();
+
+        abstract void commitVibration(Object event, int playerNum, int leftMotor, int rightMotor, int returnCode);
+    }
+}
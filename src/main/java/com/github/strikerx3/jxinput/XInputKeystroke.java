@@ -7,21 +7,32 @@ import com.github.strikerx3.jxinput.natives.XInputVirtualKeyCodes;
 
 /**
  * Represents a keystroke from an XInput device.
+ * <p>
+ * Keystrokes are mutable so that they can be reused: {@link XInputDevice14#drainKeystrokes(XInputKeystroke[])} and
+ * {@link XInputDevice14#drainAllKeystrokes(XInputKeystroke[])} fill arrays of keystrokes owned by the caller instead of
+ * allocating new ones.
  *
  * @author Ivan "StrikerX3" Oliveira
  */
 public class XInputKeystroke {
-    private final short virtualKey;
-    private final char unicode;
+    private short virtualKey;
+    private char unicode;
 
-    private final boolean keyDown;
-    private final boolean keyUp;
-    private final boolean repeat;
+    private boolean keyDown;
+    private boolean keyUp;
+    private boolean repeat;
 
-    private final byte userIndex;
-    private final byte hidCode;
+    private byte userIndex;
+    private byte hidCode;
 
-    XInputKeystroke(final ByteBuffer buffer) {
+    /**
+     * Creates an empty keystroke, to be filled by {@link XInputDevice14#drainKeystrokes(XInputKeystroke[])} or
+     * {@link XInputDevice14#drainAllKeystrokes(XInputKeystroke[])}.
+     */
+    public XInputKeystroke() {
+    }
+
+    void read(final ByteBuffer buffer, final int offset) {
         // typedef struct _XINPUT_KEYSTROKE
         // {
         //     WORD    VirtualKey;
@@ -31,17 +42,17 @@ public class XInputKeystroke {
         //     BYTE    HidCode;
         // } XINPUT_KEYSTROKE, *PXINPUT_KEYSTROKE;
 
-        virtualKey = buffer.getShort();
-        unicode = buffer.getChar();
+        virtualKey = buffer.getShort(offset);
+        unicode = buffer.getChar(offset + 2);
 
-        final short flags = buffer.getShort();
+        final short flags = buffer.getShort(offset + 4);
 
         keyDown = (flags & XInputConstants.XINPUT_KEYSTROKE_KEYDOWN) != 0;
         keyUp = (flags & XInputConstants.XINPUT_KEYSTROKE_KEYUP) != 0;
         repeat = (flags & XInputConstants.XINPUT_KEYSTROKE_REPEAT) != 0;
 
-        userIndex = buffer.get();
-        hidCode = buffer.get();
+        userIndex = buffer.get(offset + 6);
+        hidCode = buffer.get(offset + 7);
     }
 
     /**
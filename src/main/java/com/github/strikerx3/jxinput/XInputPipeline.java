@@ -0,0 +1,254 @@
+package com.github.strikerx3.jxinput;
+
+import com.github.strikerx3.jxinput.enums.XInputAxis;
+import com.github.strikerx3.jxinput.enums.XInputButton;
+
+/**
+ * Describes how the state of a device is processed after it is read. The stages are applied in this order:
+ * <ol>
+ * <li><b>remap</b>: buttons are moved to other buttons or dropped</li>
+ * <li><b>filter</b>: thumbstick movements smaller than the jitter threshold are ignored</li>
+ * <li><b>normalize</b>: the {@code float} values of the axes are computed, either linearly or through an
+ * {@link XInputAxisProcessor}</li>
+ * <li><b>threshold</b>: axes that moved past their thresholds fire
+ * {@link com.github.strikerx3.jxinput.listener.XInputAxisListener#axisChanged(XInputAxis, float, float) axisChanged}
+ * events</li>
+ * </ol>
+ * <p>
+ * Pipelines are immutable and may be shared by any number of devices. When a pipeline is applied to a device with
+ * {@link XInputDevice#setPipeline(XInputPipeline)}, all stages are compiled into a single reader, so the cost of a poll
+ * does not depend on how many stages are configured.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public final class XInputPipeline {
+    private static final XInputButton[] BUTTONS = XInputButton.values();
+    private static final XInputAxis[] AXES = XInputAxis.values();
+
+    /**
+     * The default threshold of the thumbsticks and triggers.
+     */
+    public static final float DEFAULT_AXIS_THRESHOLD = 0.01f;
+
+    /**
+     * The default pipeline: normalizes the axes linearly and does nothing else.
+     */
+    public static final XInputPipeline DEFAULT = new Builder().build();
+
+    /**
+     * A pipeline that only reads the raw values of the axes.
+     */
+    public static final XInputPipeline RAW = new Builder().normalize(false).build();
+
+    private final boolean normalize;
+    private final XInputAxisProcessor axisProcessor;
+    private final int jitterThreshold;
+    private final XInputButton[] buttonMapping;
+    private final float[] axisThresholds;
+
+    private XInputPipeline(final Builder builder) {
+        normalize = builder.normalize;
+        axisProcessor = builder.axisProcessor;
+        jitterThreshold = builder.jitterThreshold;
+        buttonMapping = builder.buttonMapping.clone();
+        axisThresholds = builder.axisThresholds.clone();
+    }
+
+    /**
+     * Determines whether the {@code float} values of the axes are computed.
+     *
+     * @return <code>true</code> if the axes are normalized
+     */
+    public boolean isNormalizing() {
+        return normalize;
+    }
+
+    /**
+     * Returns the processor that computes the normalized values of the axes.
+     *
+     * @return the axis processor, or <code>null</code> if the axes are normalized linearly
+     */
+    public XInputAxisProcessor getAxisProcessor() {
+        return axisProcessor;
+    }
+
+    /**
+     * Returns the jitter threshold of the thumbsticks.
+     *
+     * @return the jitter threshold, in raw units
+     */
+    public int getJitterThreshold() {
+        return jitterThreshold;
+    }
+
+    /**
+     * Returns the button that the specified button is reported as.
+     *
+     * @param button the button read from the device
+     * @return the button it is reported as, or <code>null</code> if it is dropped
+     */
+    public XInputButton getButtonMapping(final XInputButton button) {
+        return buttonMapping[button.ordinal()];
+    }
+
+    /**
+     * Returns the threshold of the specified axis.
+     *
+     * @param axis the axis
+     * @return the threshold, in normalized units
+     */
+    public float getAxisThreshold(final XInputAxis axis) {
+        return axisThresholds[axis.ordinal()];
+    }
+
+    /**
+     * Determines whether any button is remapped or dropped.
+     *
+     * @return <code>true</code> if the buttons are remapped
+     */
+    boolean isRemapping() {
+        for (int i = 0; i < BUTTONS.length; i++) {
+            if (buttonMapping[i] != BUTTONS[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Builds a table that remaps one byte of the button mask.
+     *
+     * @param shift the position of the byte within the mask, in bits
+     * @return a table indexed by the byte value, holding the remapped mask bits
+     */
+    int[] buildRemapTable(final int shift) {
+        final int[] table = new int[256];
+        for (int value = 0; value < 256; value++) {
+            final int mask = value << shift;
+            int remapped = 0;
+            for (int i = 0; i < BUTTONS.length; i++) {
+                if ((mask & BUTTONS[i].getMask()) != 0 && buttonMapping[i] != null) {
+                    remapped |= buttonMapping[i].getMask();
+                }
+            }
+            table[value] = remapped;
+        }
+        return table;
+    }
+
+    float[] copyAxisThresholds() {
+        return axisThresholds.clone();
+    }
+
+    /**
+     * Builds {@link XInputPipeline}s.
+     */
+    public static class Builder {
+        private boolean normalize = true;
+        private XInputAxisProcessor axisProcessor;
+        private int jitterThreshold;
+        private final XInputButton[] buttonMapping = BUTTONS.clone();
+        private final float[] axisThresholds = new float[AXES.length];
+
+        /**
+         * Creates a builder with the settings of the {@linkplain XInputPipeline#DEFAULT default pipeline}.
+         */
+        public Builder() {
+            for (int i = 0; i < axisThresholds.length; i++) {
+                axisThresholds[i] = DEFAULT_AXIS_THRESHOLD;
+            }
+        }
+
+        /**
+         * Creates a builder with the settings of an existing pipeline.
+         *
+         * @param pipeline the pipeline to copy the settings from
+         */
+        public Builder(final XInputPipeline pipeline) {
+            normalize = pipeline.normalize;
+            axisProcessor = pipeline.axisProcessor;
+            jitterThreshold = pipeline.jitterThreshold;
+            System.arraycopy(pipeline.buttonMapping, 0, buttonMapping, 0, buttonMapping.length);
+            System.arraycopy(pipeline.axisThresholds, 0, axisThresholds, 0, axisThresholds.length);
+        }
+
+        /**
+         * Defines whether to compute the {@code float} values of the axes. If disabled, only the raw values are filled
+         * and the axis processor is not used.
+         *
+         * @param normalize whether to normalize the axes
+         * @return this builder
+         */
+        public Builder normalize(final boolean normalize) {
+            this.normalize = normalize;
+            return this;
+        }
+
+        /**
+         * Sets the processor that computes the normalized values of the axes, applying deadzones and response curves.
+         *
+         * @param processor the axis processor, or <code>null</code> to normalize the axes linearly
+         * @return this builder
+         */
+        public Builder axisProcessor(final XInputAxisProcessor processor) {
+            axisProcessor = processor;
+            return this;
+        }
+
+        /**
+         * Sets the jitter threshold of the thumbsticks. A thumbstick axis keeps its previous value until the raw value
+         * read from the device moves more than this amount away from it.
+         *
+         * @param threshold the jitter threshold, in raw units from 0 (disabled) to 32767
+         * @return this builder
+         * @throws IllegalArgumentException if the threshold is out of range
+         */
+        public Builder jitterThreshold(final int threshold) {
+            if (threshold < 0 || threshold > 32767) {
+                throw new IllegalArgumentException("Jitter threshold out of range (0..32767): " + threshold);
+            }
+            jitterThreshold = threshold;
+            return this;
+        }
+
+        /**
+         * Reports a button as another button. Several buttons may be mapped to the same button.
+         *
+         * @param button the button read from the device
+         * @param target the button to report it as, or <code>null</code> to drop the button
+         * @return this builder
+         */
+        public Builder remapButton(final XInputButton button, final XInputButton target) {
+            buttonMapping[button.ordinal()] = target;
+            return this;
+        }
+
+        /**
+         * Sets the threshold that an axis must move past, relative to the last reported value, before an
+         * {@link com.github.strikerx3.jxinput.listener.XInputAxisListener#axisChanged(XInputAxis, float, float)
+         * axisChanged} event is fired. The threshold is expressed in normalized units: thumbsticks range from -1 to 1
+         * and triggers from 0 to 1. The D-Pad ignores the threshold and reports every change of direction.
+         *
+         * @param axis the axis
+         * @param threshold the minimum movement that fires an event
+         * @return this builder
+         * @throws IllegalArgumentException if the threshold is negative or not a number
+         */
+        public Builder axisThreshold(final XInputAxis axis, final float threshold) {
+            if (!(threshold >= 0f)) {
+                throw new IllegalArgumentException("Axis threshold must not be negative: " + threshold);
+            }
+            axisThresholds[axis.ordinal()] = threshold;
+            return this;
+        }
+
+        /**
+         * Creates the pipeline.
+         *
+         * @return the pipeline
+         */
+        public XInputPipeline build() {
+            return new XInputPipeline(this);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.github.strikerx3.jxinput;
+
+/**
+ * Maps the magnitude of an axis, after the deadzone is applied, to the value reported by the device.
+ * <p>
+ * Curves are only evaluated when an {@link XInputAxisProcessor} is built; the results are stored in lookup tables, so
+ * the cost of a curve does not affect polling. Custom curves can be created by subclassing this class.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public abstract class XInputResponseCurve {
+    /**
+     * A curve that reports the magnitude unchanged.
+     */
+    public static final XInputResponseCurve LINEAR = new XInputResponseCurve() {
+        @Override
+        public float apply(final float magnitude) {
+            return magnitude;
+        }
+    };
+
+    /**
+     * Creates a curve that raises the magnitude to the given exponent. Exponents greater than 1 give finer control
+     * near the center; exponents between 0 and 1 make the axis more sensitive near the center.
+     *
+     * @param exponent the exponent
+     * @return the exponential curve
+     * @throws IllegalArgumentException if the exponent is not positive
+     */
+    public static XInputResponseCurve exponential(final float exponent) {
+        if (!(exponent > 0f)) {
+            throw new IllegalArgumentException("Exponent must be positive: " + exponent);
+        }
+        return new XInputResponseCurve() {
+            @Override
+            public float apply(final float magnitude) {
+                return (float) Math.pow(magnitude, exponent);
+            }
+        };
+    }
+
+    /**
+     * Maps a magnitude to the reported value.
+     *
+     * @param magnitude the magnitude of the axis, from 0 to 1
+     * @return the reported value, normally from 0 to 1
+     */
+    public abstract float apply(float magnitude);
+}
@@ -0,0 +1,103 @@
+package com.github.strikerx3.jxinput;
+
+/**
+ * Publishes consistent copies of a device's components from the polling thread to any number of reader threads.
+ * <p>
+ * The state is guarded by a sequence lock: the single writer makes the sequence number odd, updates the state and makes
+ * it even again, while readers retry until they see the same even sequence number before and after reading. All fields
+ * are volatile, which keeps the reads and writes ordered under the Java memory model; they are packed into as few words
+ * as possible to keep the writer cheap. Neither side ever blocks or allocates.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+final class XInputSnapshotPublisher {
+    private volatile long sequence;
+
+    private volatile boolean connected;
+    private volatile int buttonsAndTriggers; // wButtons (16) | bLeftTrigger (8) | bRightTrigger (8)
+    private volatile long thumbsRaw; // sThumbLX | sThumbLY | sThumbRX | sThumbRY (16 bits each)
+    private volatile long leftThumb; // lx | ly as float bits
+    private volatile long rightThumb; // rx | ry as float bits
+    private volatile long triggers; // lt | rt as float bits
+    private volatile int dpad;
+
+    /**
+     * Publishes a new state. Must only be called from the polling thread.
+     *
+     * @param connected whether the device is connected
+     * @param components the components to publish
+     */
+    void publish(final boolean connected, final XInputComponents components) {
+        final XInputAxes axes = components.getAxes();
+        final long seq = sequence;
+        sequence = seq + 1;
+
+        this.connected = connected;
+        buttonsAndTriggers = components.getButtons().getMask() << 16 | (axes.ltRaw & 0xFF) << 8 | axes.rtRaw & 0xFF;
+        thumbsRaw = (axes.lxRaw & 0xFFFFL) << 48 | (axes.lyRaw & 0xFFFFL) << 32 | (axes.rxRaw & 0xFFFFL) << 16 | axes.ryRaw & 0xFFFFL;
+        leftThumb = pack(axes.lx, axes.ly);
+        rightThumb = pack(axes.rx, axes.ry);
+        triggers = pack(axes.lt, axes.rt);
+        dpad = axes.dpad;
+
+        sequence = seq + 2;
+    }
+
+    /**
+     * Copies the last published state into the given components. Can be called from any thread.
+     *
+     * @param target the components to copy the state into
+     * @return whether the device was connected at the time the state was published
+     */
+    boolean read(final XInputComponents target) {
+        boolean connected;
+        int buttonsAndTriggers;
+        long thumbsRaw, leftThumb, rightThumb, triggers;
+        int dpad;
+        long seq;
+        do {
+            seq = sequence;
+            while ((seq & 1) != 0) {
+                // a write is in progress
+                Thread.yield();
+                seq = sequence;
+            }
+            connected = this.connected;
+            buttonsAndTriggers = this.buttonsAndTriggers;
+            thumbsRaw = this.thumbsRaw;
+            leftThumb = this.leftThumb;
+            rightThumb = this.rightThumb;
+            triggers = this.triggers;
+            dpad = this.dpad;
+        } while (sequence != seq);
+
+        target.getButtons().set(buttonsAndTriggers >>> 16);
+        final XInputAxes axes = target.getAxes();
+        axes.ltRaw = buttonsAndTriggers >>> 8 & 0xFF;
+        axes.rtRaw = buttonsAndTriggers & 0xFF;
+        axes.lxRaw = (short) (thumbsRaw >>> 48);
+        axes.lyRaw = (short) (thumbsRaw >>> 32);
+        axes.rxRaw = (short) (thumbsRaw >>> 16);
+        axes.ryRaw = (short) thumbsRaw;
+        axes.lx = high(leftThumb);
+        axes.ly = low(leftThumb);
+        axes.rx = high(rightThumb);
+        axes.ry = low(rightThumb);
+        axes.lt = high(triggers);
+        axes.rt = low(triggers);
+        axes.dpad = dpad;
+        return connected;
+    }
+
+    private static long pack(final float high, final float low) {
+        return (long) Float.floatToRawIntBits(high) << 32 | Float.floatToRawIntBits(low) & 0xFFFFFFFFL;
+    }
+
+    private static float high(final long value) {
+        return Float.intBitsToFloat((int) (value >>> 32));
+    }
+
+    private static float low(final long value) {
+        return Float.intBitsToFloat((int) value);
+    }
+}
@@ -0,0 +1,164 @@
+package com.github.strikerx3.jxinput.backend;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import com.github.strikerx3.jxinput.natives.XInputConstants;
+import com.github.strikerx3.jxinput.natives.XInputNatives;
+import com.github.strikerx3.jxinput.natives.XInputNatives14;
+
+/**
+ * Backend that delegates to the native XInput libraries.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public final class NativeXInputBackend implements XInputBackend {
+    public static final NativeXInputBackend INSTANCE = new NativeXInputBackend();
+
+    // Native libraries built before pollAllDevices was introduced lack the function; in that case each device is polled
+    // individually through views of the buffer. The views of the last few buffers are kept, since XInputDevice and
+    // XInputDevice14 each poll into their own buffer
+    private volatile boolean pollAllSupported = true;
+    private final PollAllViews[] pollAllViews = new PollAllViews[4];// guarded by itself
+    private int nextPollAllViews;// guarded by pollAllViews; the entry replaced when a new buffer comes in
+    // Likewise for getKeystrokes; each keystroke is read into this buffer and copied
+    private volatile boolean getKeystrokesSupported = true;
+    private final ByteBuffer keystrokeBuffer = ByteBuffer.allocateDirect(8).order(ByteOrder.nativeOrder());// sizeof(XINPUT_KEYSTROKE)
+
+    private NativeXInputBackend() {}
+
+    @Override
+    public boolean isLoaded() {
+        return XInputNatives.isLoaded();
+    }
+
+    @Override
+    public Throwable getLoadError() {
+        return XInputNatives.getLoadError();
+    }
+
+    @Override
+    public boolean isLoaded14() {
+        return XInputNatives14.isLoaded();
+    }
+
+    @Override
+    public Throwable getLoadError14() {
+        return XInputNatives14.getLoadError();
+    }
+
+    @Override
+    public int getLoadedLibVersion() {
+        return XInputNatives.getLoadedLibVersion();
+    }
+
+    @Override
+    public boolean isGuideButtonSupported() {
+        return XInputNatives.isGuideButtonSupported();
+    }
+
+    @Override
+    public int pollDevice(final int playerNum, final ByteBuffer data) {
+        return XInputNatives.pollDevice(playerNum, data);
+    }
+
+    @Override
+    public void pollAllDevices(final ByteBuffer data) {
+        if (pollAllSupported) {
+            try {
+                XInputNatives.pollAllDevices(data);
+                return;
+            } catch (final UnsatisfiedLinkError e) {
+                pollAllSupported = false;
+            }
+        }
+
+        final PollAllViews views = getPollAllViews(data);
+        for (int i = 0; i < XInputConstants.MAX_PLAYERS; i++) {
+            data.putInt(XInputConstants.MAX_PLAYERS * 16 + i * 4, XInputNatives.pollDevice(i, views.states[i]));
+        }
+    }
+
+    private PollAllViews getPollAllViews(final ByteBuffer data) {
+        synchronized (pollAllViews) {
+            for (final PollAllViews views : pollAllViews) {
+                if (views != null && views.data == data) {
+                    return views;
+                }
+            }
+            final PollAllViews views = new PollAllViews(data);
+            pollAllViews[nextPollAllViews] = views;
+            nextPollAllViews = (nextPollAllViews + 1) % pollAllViews.length;
+            return views;
+        }
+    }
+
+    @Override
+    public int setVibration(final int playerNum, final int leftMotor, final int rightMotor) {
+        return XInputNatives.setVibration(playerNum, leftMotor, rightMotor);
+    }
+
+    @Override
+    public void setEnabled(final boolean enabled) {
+        XInputNatives14.setEnabled(enabled);
+    }
+
+    @Override
+    public int getCapabilities(final int playerNum, final int flags, final ByteBuffer data) {
+        return XInputNatives14.getCapabilities(playerNum, flags, data);
+    }
+
+    @Override
+    public int getBatteryInformation(final int playerNum, final int deviceType, final ByteBuffer data) {
+        return XInputNatives14.getBatteryInformation(playerNum, deviceType, data);
+    }
+
+    @Override
+    public int getKeystroke(final int playerNum, final ByteBuffer data) {
+        return XInputNatives14.getKeystroke(playerNum, data);
+    }
+
+    @Override
+    public int getKeystrokes(final int playerNum, final ByteBuffer data, final int max) {
+        if (getKeystrokesSupported) {
+            try {
+                return XInputNatives14.getKeystrokes(playerNum, data, max);
+            } catch (final UnsatisfiedLinkError e) {
+                getKeystrokesSupported = false;
+            }
+        }
+
+        synchronized (keystrokeBuffer) {
+            int count = 0;
+            int ret = XInputConstants.ERROR_SUCCESS;
+            while (count < max) {
+                ret = XInputNatives14.getKeystroke(playerNum, keystrokeBuffer);
+                if (ret != XInputConstants.ERROR_SUCCESS) {
+                    break;
+                }
+                data.putLong(count * 8, keystrokeBuffer.getLong(0));
+                count++;
+            }
+            data.putInt(max * 8, ret);
+            return count;
+        }
+    }
+
+    /**
+     * Views of the {@code XINPUT_STATE} structs within a buffer passed to {@link #pollAllDevices(ByteBuffer)}.
+     */
+    private static class PollAllViews {
+        private final ByteBuffer data;
+        private final ByteBuffer[] states;
+
+        PollAllViews(final ByteBuffer data) {
+            this.data = data;
+            states = new ByteBuffer[XInputConstants.MAX_PLAYERS];
+            for (int i = 0; i < states.length; i++) {
+                final ByteBuffer view = data.duplicate();
+                view.position(i * 16).limit(i * 16 + 16);
+                states[i] = view.slice().order(ByteOrder.nativeOrder());
+            }
+        }
+    }
+}
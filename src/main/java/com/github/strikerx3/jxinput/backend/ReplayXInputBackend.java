@@ -0,0 +1,184 @@
+package com.github.strikerx3.jxinput.backend;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import com.github.strikerx3.jxinput.natives.XInputConstants;
+import com.github.strikerx3.jxinput.recording.XInputRecording;
+
+/**
+ * A backend that plays back a recording made by an {@link com.github.strikerx3.jxinput.recording.XInputRecorder
+ * XInputRecorder}.
+ * <p>
+ * The recorded {@code XINPUT_STATE} structs and return codes are handed to the devices exactly as they were read,
+ * so they go through the same decoding path as live input. Playback can run in real time, at a multiple of real
+ * time, or as fast as possible:
+ * <ul>
+ * <li>In timed modes, the playback clock starts on the first poll and every poll returns the state as of the current
+ * playback time.</li>
+ * <li>When playing as fast as possible, every call to {@link #pollDevice(int, ByteBuffer)} advances the recording up to
+ * and including the next record of that device, and every call to {@link #pollAllDevices(ByteBuffer)} advances it by
+ * one record. This mode is deterministic and independent of the polling rate.</li>
+ * </ul>
+ * Functions that are not part of the recording, such as vibration, capabilities and battery information, behave like
+ * in the {@link SimulatedXInputBackend}, following the recorded connection state of each device. The inherited methods
+ * that script the state of the devices have no effect on playback.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public class ReplayXInputBackend extends SimulatedXInputBackend {
+    private final XInputRecording.Cursor cursor;
+    private final double speed;// 0 means as fast as possible
+
+    private boolean started;
+    private long startNanos;
+    private long startTimestamp;
+
+    private ReplayXInputBackend(final XInputRecording recording, final double speed) {
+        cursor = recording.newCursor();
+        this.speed = speed;
+        syncConnections();
+    }
+
+    /**
+     * Creates a backend that plays back the recording in real time.
+     *
+     * @param recording the recording
+     * @return the backend
+     */
+    public static ReplayXInputBackend realTime(final XInputRecording recording) {
+        return new ReplayXInputBackend(recording, 1.0);
+    }
+
+    /**
+     * Creates a backend that plays back the recording at a multiple of real time.
+     *
+     * @param recording the recording
+     * @param speed the playback speed; 2 plays twice as fast, 0.5 plays at half speed
+     * @return the backend
+     * @throws IllegalArgumentException if the speed is not positive
+     */
+    public static ReplayXInputBackend scaled(final XInputRecording recording, final double speed) {
+        if (!(speed > 0) || Double.isInfinite(speed)) {
+            throw new IllegalArgumentException("Speed must be positive: " + speed);
+        }
+        return new ReplayXInputBackend(recording, speed);
+    }
+
+    /**
+     * Creates a backend that plays back the recording as fast as the devices are polled.
+     *
+     * @param recording the recording
+     * @return the backend
+     */
+    public static ReplayXInputBackend asFastAsPossible(final XInputRecording recording) {
+        return new ReplayXInputBackend(recording, 0);
+    }
+
+    /**
+     * Moves the playback to the specified time. In timed modes, playback continues from that time on the next poll.
+     *
+     * @param timestamp the time, in nanoseconds since the start of the recording
+     * @throws IOException if the recording cannot be read
+     */
+    public synchronized void seek(final long timestamp) throws IOException {
+        cursor.seek(timestamp);
+        started = false;
+        syncConnections();
+    }
+
+    /**
+     * Moves the playback back to the start of the recording.
+     *
+     * @throws IOException if the recording cannot be read
+     */
+    public synchronized void rewind() throws IOException {
+        cursor.rewind();
+        started = false;
+        syncConnections();
+    }
+
+    /**
+     * Returns the timestamp of the last record played back.
+     *
+     * @return the playback time, in nanoseconds since the start of the recording
+     */
+    public synchronized long getPlaybackTime() {
+        return cursor.getTimestamp();
+    }
+
+    /**
+     * Determines whether all records have been played back.
+     *
+     * @return <code>true</code> if the end of the recording was reached
+     */
+    public synchronized boolean isFinished() {
+        return cursor.peekPlayer() < 0;
+    }
+
+    @Override
+    public synchronized int pollDevice(final int playerNum, final ByteBuffer data) {
+        if (playerNum < 0 || playerNum >= XInputConstants.MAX_PLAYERS) {
+            throw new IllegalArgumentException("Invalid player number: " + playerNum + ". Must be between 0 and " + (XInputConstants.MAX_PLAYERS - 1));
+        }
+        if (speed == 0) {
+            int player;
+            do {
+                player = step();
+            } while (player >= 0 && player != playerNum);
+        } else {
+            advanceClock();
+        }
+        return read(playerNum, data, 0);
+    }
+
+    @Override
+    public synchronized void pollAllDevices(final ByteBuffer data) {
+        if (speed == 0) {
+            step();
+        } else {
+            advanceClock();
+        }
+        for (int i = 0; i < XInputConstants.MAX_PLAYERS; i++) {
+            data.putInt(XInputConstants.MAX_PLAYERS * 16 + i * 4, read(i, data, i * 16));
+        }
+    }
+
+    private int read(final int playerNum, final ByteBuffer data, final int offset) {
+        cursor.copyState(playerNum, data, offset);
+        return cursor.getReturnCode(playerNum);
+    }
+
+    private void advanceClock() {
+        final long now = System.nanoTime();
+        if (!started) {
+            started = true;
+            startNanos = now;
+            startTimestamp = cursor.getTimestamp();
+        }
+        final long target = startTimestamp + (long) ((now - startNanos) * speed);
+        while (cursor.peekTimestamp() <= target) {
+            step();
+        }
+    }
+
+    private int step() {
+        try {
+            final int player = cursor.next();
+            if (player >= 0) {
+                setConnected(player, cursor.getReturnCode(player) == XInputConstants.ERROR_SUCCESS);
+            }
+            return player;
+        } catch (final IOException e) {
+            throw new IllegalStateException("Could not read recording", e);
+        }
+    }
+
+    private void syncConnections() {
+        for (int i = 0; i < XInputConstants.MAX_PLAYERS; i++) {
+            setConnected(i, cursor.getReturnCode(i) == XInputConstants.ERROR_SUCCESS);
+        }
+    }
+}
@@ -0,0 +1,501 @@
+package com.github.strikerx3.jxinput.backend;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.locks.LockSupport;
+
+import com.github.strikerx3.jxinput.XInputLibraryVersion;
+import com.github.strikerx3.jxinput.natives.XInputConstants;
+
+/**
+ * A pure Java backend that simulates up to {@link XInputConstants#MAX_PLAYERS} devices.
+ * <p>
+ * The state of each simulated device is scripted through the methods in this class and written into the buffers
+ * using the same layout as the native XInput structs, so the rest of the library cannot tell it apart from the native
+ * backend. Every call to {@link #setState} increments the packet number of the device, mimicking the behavior of
+ * {@code XInputGetState}.
+ * <p>
+ * This class is thread-safe: devices can be scripted from one thread while they are being polled from another.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public class SimulatedXInputBackend implements XInputBackend {
+    private final Slot[] slots;
+
+    private volatile boolean enabled = true;
+    private volatile boolean guideButtonSupported = true;
+    private volatile long disconnectedPollDelayNanos;
+
+    /**
+     * Creates a new simulated backend with all devices disconnected.
+     */
+    public SimulatedXInputBackend() {
+        slots = new Slot[XInputConstants.MAX_PLAYERS];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new Slot();
+        }
+    }
+
+    /**
+     * Connects or disconnects the simulated device.
+     *
+     * @param playerNum the player number
+     * @param connected whether the device is connected
+     */
+    public void setConnected(final int playerNum, final boolean connected) {
+        final Slot slot = slot(playerNum);
+        synchronized (slot) {
+            slot.connected = connected;
+        }
+    }
+
+    /**
+     * Determines if the simulated device is connected.
+     *
+     * @param playerNum the player number
+     * @return <code>true</code> if the device is connected
+     */
+    public boolean isConnected(final int playerNum) {
+        final Slot slot = slot(playerNum);
+        synchronized (slot) {
+            return slot.connected;
+        }
+    }
+
+    /**
+     * Sets the state of the simulated device and increments its packet number.
+     *
+     * @param playerNum the player number
+     * @param buttons the button mask, a combination of the {@code XINPUT_GAMEPAD_*} constants
+     * @param leftTrigger the left trigger value, from 0 to 255
+     * @param rightTrigger the right trigger value, from 0 to 255
+     * @param thumbLX the left thumbstick X axis value
+     * @param thumbLY the left thumbstick Y axis value
+     * @param thumbRX the right thumbstick X axis value
+     * @param thumbRY the right thumbstick Y axis value
+     */
+    public void setState(final int playerNum, final short buttons, final int leftTrigger, final int rightTrigger,
+                         final short thumbLX, final short thumbLY, final short thumbRX, final short thumbRY) {
+        final Slot slot = slot(playerNum);
+        synchronized (slot) {
+            slot.packetNumber++;
+            slot.buttons = buttons;
+            slot.leftTrigger = (byte) leftTrigger;
+            slot.rightTrigger = (byte) rightTrigger;
+            slot.thumbLX = thumbLX;
+            slot.thumbLY = thumbLY;
+            slot.thumbRX = thumbRX;
+            slot.thumbRY = thumbRY;
+        }
+    }
+
+    /**
+     * Sets the buttons of the simulated device, keeping the axes unchanged, and increments its packet number.
+     *
+     * @param playerNum the player number
+     * @param buttons the button mask, a combination of the {@code XINPUT_GAMEPAD_*} constants
+     */
+    public void setButtons(final int playerNum, final short buttons) {
+        final Slot slot = slot(playerNum);
+        synchronized (slot) {
+            slot.packetNumber++;
+            slot.buttons = buttons;
+        }
+    }
+
+    /**
+     * Retrieves the last left motor speed set on the simulated device.
+     *
+     * @param playerNum the player number
+     * @return the left motor speed, from 0 to 65535
+     */
+    public int getLeftMotor(final int playerNum) {
+        final Slot slot = slot(playerNum);
+        synchronized (slot) {
+            return slot.leftMotor;
+        }
+    }
+
+    /**
+     * Retrieves the last right motor speed set on the simulated device.
+     *
+     * @param playerNum the player number
+     * @return the right motor speed, from 0 to 65535
+     */
+    public int getRightMotor(final int playerNum) {
+        final Slot slot = slot(playerNum);
+        synchronized (slot) {
+            return slot.rightMotor;
+        }
+    }
+
+    /**
+     * Sets the capabilities reported by the simulated device.
+     *
+     * @param playerNum the player number
+     * @param subType the device subtype, one of the {@code XINPUT_DEVSUBTYPE_*} constants
+     * @param flags the capability flags, a combination of the {@code XINPUT_CAPS_*} constants
+     * @param buttons the supported buttons, a combination of the {@code XINPUT_GAMEPAD_*} constants
+     */
+    public void setCapabilities(final int playerNum, final byte subType, final short flags, final short buttons) {
+        final Slot slot = slot(playerNum);
+        synchronized (slot) {
+            slot.capsSubType = subType;
+            slot.capsFlags = flags;
+            slot.capsButtons = buttons;
+        }
+    }
+
+    /**
+     * Sets the battery information reported by the simulated device.
+     *
+     * @param playerNum the player number
+     * @param deviceType the battery device type, one of the {@code BATTERY_DEVTYPE_*} constants
+     * @param type the battery type, one of the {@code BATTERY_TYPE_*} constants
+     * @param level the battery level, one of the {@code BATTERY_LEVEL_*} constants
+     */
+    public void setBatteryInformation(final int playerNum, final byte deviceType, final byte type, final byte level) {
+        final Slot slot = slot(playerNum);
+        synchronized (slot) {
+            final int index = deviceType == XInputConstants.BATTERY_DEVTYPE_HEADSET ? 1 : 0;
+            slot.batteryTypes[index] = type;
+            slot.batteryLevels[index] = level;
+        }
+    }
+
+    /**
+     * Queues a keystroke to be returned by the simulated device.
+     *
+     * @param playerNum the player number
+     * @param virtualKey the virtual key code, one of the constants in
+     * {@link com.github.strikerx3.jxinput.natives.XInputVirtualKeyCodes XInputVirtualKeyCodes}
+     * @param unicode the Unicode character
+     * @param flags the keystroke flags, a combination of the {@code XINPUT_KEYSTROKE_*} constants
+     * @param hidCode the HID code
+     */
+    public void queueKeystroke(final int playerNum, final short virtualKey, final char unicode, final short flags, final byte hidCode) {
+        final Slot slot = slot(playerNum);
+        synchronized (slot) {
+            slot.keystrokes.add((virtualKey & 0xFFFFL) << 40 | (unicode & 0xFFFFL) << 24 | (flags & 0xFFFFL) << 8 | hidCode & 0xFFL);
+        }
+    }
+
+    /**
+     * Defines whether the simulated devices report the Guide button as supported.
+     *
+     * @param supported whether the Guide button is supported
+     */
+    public void setGuideButtonSupported(final boolean supported) {
+        guideButtonSupported = supported;
+    }
+
+    /**
+     * Makes reading the state of a disconnected device take the specified time, simulating the stall of
+     * {@code XInputGetState} while the driver looks for a device in an empty slot. The delay is applied to every
+     * disconnected device read by {@link #pollDevice(int, ByteBuffer)} and {@link #pollAllDevices(ByteBuffer)}, and cannot
+     * be interrupted. Scripting the devices from other threads is not blocked during the delay.
+     *
+     * @param delayNanos the delay, in nanoseconds, or 0 to read disconnected devices immediately
+     * @throws IllegalArgumentException if the delay is negative
+     */
+    public void setDisconnectedPollDelay(final long delayNanos) {
+        if (delayNanos < 0) {
+            throw new IllegalArgumentException("Delay must not be negative: " + delayNanos);
+        }
+        disconnectedPollDelayNanos = delayNanos;
+    }
+
+    /**
+     * Retrieves the delay of reading the state of a disconnected device.
+     *
+     * @return the delay, in nanoseconds
+     * @see #setDisconnectedPollDelay(long)
+     */
+    public long getDisconnectedPollDelay() {
+        return disconnectedPollDelayNanos;
+    }
+
+    /**
+     * Determines whether reporting is enabled, as set by {@link #setEnabled(boolean)}.
+     *
+     * @return <code>true</code> if reporting is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public boolean isLoaded() {
+        return true;
+    }
+
+    @Override
+    public Throwable getLoadError() {
+        return null;
+    }
+
+    @Override
+    public boolean isLoaded14() {
+        return true;
+    }
+
+    @Override
+    public Throwable getLoadError14() {
+        return null;
+    }
+
+    @Override
+    public int getLoadedLibVersion() {
+        return XInputLibraryVersion.XINPUT_1_4.ordinal();
+    }
+
+    @Override
+    public boolean isGuideButtonSupported() {
+        return guideButtonSupported;
+    }
+
+    @Override
+    public int pollDevice(final int playerNum, final ByteBuffer data) {
+        final int ret = pollDevice(playerNum, data, 0);
+        if (ret == XInputConstants.ERROR_DEVICE_NOT_CONNECTED) {
+            stall();
+        }
+        return ret;
+    }
+
+    @Override
+    public void pollAllDevices(final ByteBuffer data) {
+        for (int i = 0; i < slots.length; i++) {
+            final int ret = pollDevice(i, data, i * 16);
+            if (ret == XInputConstants.ERROR_DEVICE_NOT_CONNECTED) {
+                stall();
+            }
+            data.putInt(slots.length * 16 + i * 4, ret);
+        }
+    }
+
+    /**
+     * Waits for the delay set by {@link #setDisconnectedPollDelay(long)}, ignoring interrupts like a native call would.
+     */
+    private void stall() {
+        final long delay = disconnectedPollDelayNanos;
+        if (delay <= 0) {
+            return;
+        }
+        final long deadline = System.nanoTime() + delay;
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private int pollDevice(final int playerNum, final ByteBuffer data, final int offset) {
+        final Slot slot = slot(playerNum);
+        synchronized (slot) {
+            // typedef struct _XINPUT_STATE
+            // {
+            //     DWORD                               dwPacketNumber;
+            //     XINPUT_GAMEPAD                      Gamepad;
+            // } XINPUT_STATE, *PXINPUT_STATE;
+            if (!slot.connected) {
+                data.putLong(offset, 0L);
+                data.putLong(offset + 8, 0L);
+                return XInputConstants.ERROR_DEVICE_NOT_CONNECTED;
+            }
+            data.putInt(offset, slot.packetNumber);
+            if (enabled) {
+                data.putShort(offset + 4, slot.buttons);
+                data.put(offset + 6, slot.leftTrigger);
+                data.put(offset + 7, slot.rightTrigger);
+                data.putShort(offset + 8, slot.thumbLX);
+                data.putShort(offset + 10, slot.thumbLY);
+                data.putShort(offset + 12, slot.thumbRX);
+                data.putShort(offset + 14, slot.thumbRY);
+            } else {
+                // neutral data
+                data.putShort(offset + 4, (short) 0);
+                data.putShort(offset + 6, (short) 0);
+                data.putLong(offset + 8, 0L);
+            }
+            return XInputConstants.ERROR_SUCCESS;
+        }
+    }
+
+    @Override
+    public int setVibration(final int playerNum, final int leftMotor, final int rightMotor) {
+        final Slot slot = slot(playerNum);
+        synchronized (slot) {
+            if (!slot.connected) {
+                return XInputConstants.ERROR_DEVICE_NOT_CONNECTED;
+            }
+            if (enabled) {
+                slot.leftMotor = leftMotor & 0xFFFF;
+                slot.rightMotor = rightMotor & 0xFFFF;
+            }
+            return XInputConstants.ERROR_SUCCESS;
+        }
+    }
+
+    @Override
+    public void setEnabled(final boolean enabled) {
+        if (this.enabled == enabled) {
+            return;
+        }
+        this.enabled = enabled;
+        // the reported state changes between the scripted and the neutral state, so it gets a new packet number
+        for (final Slot slot : slots) {
+            synchronized (slot) {
+                slot.packetNumber++;
+            }
+        }
+    }
+
+    @Override
+    public int getCapabilities(final int playerNum, final int flags, final ByteBuffer data) {
+        final Slot slot = slot(playerNum);
+        synchronized (slot) {
+            if (!slot.connected) {
+                return XInputConstants.ERROR_DEVICE_NOT_CONNECTED;
+            }
+            // typedef struct _XINPUT_CAPABILITIES
+            // {
+            //     BYTE                                Type;
+            //     BYTE                                SubType;
+            //     WORD                                Flags;
+            //     XINPUT_GAMEPAD                      Gamepad;
+            //     XINPUT_VIBRATION                    Vibration;
+            // } XINPUT_CAPABILITIES, *PXINPUT_CAPABILITIES;
+            data.put(0, XInputConstants.XINPUT_DEVTYPE_GAMEPAD);
+            data.put(1, slot.capsSubType);
+            data.putShort(2, slot.capsFlags);
+            data.putShort(4, slot.capsButtons);
+            data.put(6, (byte) 0xFF);
+            data.put(7, (byte) 0xFF);
+            data.putShort(8, (short) 0xFFFF);
+            data.putShort(10, (short) 0xFFFF);
+            data.putShort(12, (short) 0xFFFF);
+            data.putShort(14, (short) 0xFFFF);
+            data.putShort(16, (short) 0xFFFF);
+            data.putShort(18, (short) 0xFFFF);
+            return XInputConstants.ERROR_SUCCESS;
+        }
+    }
+
+    @Override
+    public int getBatteryInformation(final int playerNum, final int deviceType, final ByteBuffer data) {
+        final Slot slot = slot(playerNum);
+        synchronized (slot) {
+            // typedef struct _XINPUT_BATTERY_INFORMATION
+            // {
+            //     BYTE BatteryType;
+            //     BYTE BatteryLevel;
+            // } XINPUT_BATTERY_INFORMATION, *PXINPUT_BATTERY_INFORMATION;
+            if (!slot.connected) {
+                data.put(0, XInputConstants.BATTERY_TYPE_DISCONNECTED);
+                data.put(1, XInputConstants.BATTERY_LEVEL_EMPTY);
+                return XInputConstants.ERROR_DEVICE_NOT_CONNECTED;
+            }
+            final int index = deviceType == XInputConstants.BATTERY_DEVTYPE_HEADSET ? 1 : 0;
+            data.put(0, slot.batteryTypes[index]);
+            data.put(1, slot.batteryLevels[index]);
+            return XInputConstants.ERROR_SUCCESS;
+        }
+    }
+
+    @Override
+    public int getKeystroke(final int playerNum, final ByteBuffer data) {
+        return readKeystroke(playerNum, data, 0);
+    }
+
+    @Override
+    public int getKeystrokes(final int playerNum, final ByteBuffer data, final int max) {
+        int count = 0;
+        int ret = XInputConstants.ERROR_SUCCESS;
+        while (count < max) {
+            ret = readKeystroke(playerNum, data, count * 8);
+            if (ret != XInputConstants.ERROR_SUCCESS) {
+                break;
+            }
+            count++;
+        }
+        data.putInt(max * 8, ret);
+        return count;
+    }
+
+    private int readKeystroke(final int playerNum, final ByteBuffer data, final int offset) {
+        if (playerNum != XInputConstants.XUSER_INDEX_ANY) {
+            return readKeystroke(slot(playerNum), playerNum, data, offset);
+        }
+        // like XInput, report the first queued keystroke of any connected device
+        int ret = XInputConstants.ERROR_DEVICE_NOT_CONNECTED;
+        for (int i = 0; i < slots.length; i++) {
+            final int slotRet = readKeystroke(slots[i], i, data, offset);
+            if (slotRet == XInputConstants.ERROR_SUCCESS) {
+                return slotRet;
+            }
+            if (slotRet == XInputConstants.ERROR_EMPTY) {
+                ret = slotRet;
+            }
+        }
+        return ret;
+    }
+
+    private static int readKeystroke(final Slot slot, final int playerNum, final ByteBuffer data, final int offset) {
+        synchronized (slot) {
+            if (!slot.connected) {
+                return XInputConstants.ERROR_DEVICE_NOT_CONNECTED;
+            }
+            final Long keystroke = slot.keystrokes.poll();
+            if (keystroke == null) {
+                return XInputConstants.ERROR_EMPTY;
+            }
+            // typedef struct _XINPUT_KEYSTROKE
+            // {
+            //     WORD    VirtualKey;
+            //     WCHAR   Unicode;
+            //     WORD    Flags;
+            //     BYTE    UserIndex;
+            //     BYTE    HidCode;
+            // } XINPUT_KEYSTROKE, *PXINPUT_KEYSTROKE;
+            final long value = keystroke;
+            data.putShort(offset, (short) (value >>> 40));
+            data.putChar(offset + 2, (char) (value >>> 24));
+            data.putShort(offset + 4, (short) (value >>> 8));
+            data.put(offset + 6, (byte) playerNum);
+            data.put(offset + 7, (byte) value);
+            return XInputConstants.ERROR_SUCCESS;
+        }
+    }
+
+    private Slot slot(final int playerNum) {
+        if (playerNum < 0 || playerNum >= slots.length) {
+            throw new IllegalArgumentException("Invalid player number: " + playerNum + ". Must be between 0 and " + (slots.length - 1));
+        }
+        return slots[playerNum];
+    }
+
+    /**
+     * The state of a simulated device.
+     */
+    private static class Slot {
+        private boolean connected;
+
+        private int packetNumber;
+        private short buttons;
+        private byte leftTrigger, rightTrigger;
+        private short thumbLX, thumbLY;
+        private short thumbRX, thumbRY;
+
+        private int leftMotor, rightMotor;
+
+        private byte capsSubType = XInputConstants.XINPUT_DEVSUBTYPE_GAMEPAD;
+        private short capsFlags = XInputConstants.XINPUT_CAPS_FFB_SUPPORTED;
+        private short capsButtons = (short) 0xF3FF;
+
+        private final byte[] batteryTypes = { XInputConstants.BATTERY_TYPE_WIRED, XInputConstants.BATTERY_TYPE_DISCONNECTED };
+        private final byte[] batteryLevels = { XInputConstants.BATTERY_LEVEL_FULL, XInputConstants.BATTERY_LEVEL_EMPTY };
+
+        private final Queue<Long> keystrokes = new ArrayDeque<Long>();
+    }
+}
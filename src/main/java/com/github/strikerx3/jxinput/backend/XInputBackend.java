@@ -0,0 +1,139 @@
+package com.github.strikerx3.jxinput.backend;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Provides access to the XInput API functions used by the library.
+ * <p>
+ * The default implementation, {@link NativeXInputBackend}, calls into the native libraries. Other implementations,
+ * such as the {@link SimulatedXInputBackend}, allow the library to run on platforms where XInput is not available.
+ * <p>
+ * All methods that take a {@link ByteBuffer} expect a direct buffer in native byte order with enough capacity to hold
+ * the corresponding XInput struct. Implementations must write the struct starting at index 0 without changing the
+ * buffer's position or limit, just like the native library does.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public interface XInputBackend {
+    /**
+     * Determines whether the XInput 1.3 functions are available.
+     *
+     * @return <code>true</code> if the XInput 1.3 functions can be used, <code>false</code> otherwise
+     */
+    boolean isLoaded();
+
+    /**
+     * Retrieves the error that prevented the XInput 1.3 functions from being loaded, if any.
+     *
+     * @return the load error, or <code>null</code> if there was none
+     */
+    Throwable getLoadError();
+
+    /**
+     * Determines whether the XInput 1.4 functions are available.
+     *
+     * @return <code>true</code> if the XInput 1.4 functions can be used, <code>false</code> otherwise
+     */
+    boolean isLoaded14();
+
+    /**
+     * Retrieves the error that prevented the XInput 1.4 functions from being loaded, if any.
+     *
+     * @return the load error, or <code>null</code> if there was none
+     */
+    Throwable getLoadError14();
+
+    /**
+     * Retrieves the loaded XInput library version as an ordinal of
+     * {@link com.github.strikerx3.jxinput.XInputLibraryVersion XInputLibraryVersion}.
+     *
+     * @return the loaded library version
+     */
+    int getLoadedLibVersion();
+
+    /**
+     * Determines if the state of the Guide button can be read.
+     *
+     * @return <code>true</code> if the Guide button is supported, <code>false</code> otherwise
+     */
+    boolean isGuideButtonSupported();
+
+    /**
+     * Reads the state of the device into an {@code XINPUT_STATE} struct (16 bytes).
+     *
+     * @param playerNum the player number
+     * @param data the buffer to write the struct into
+     * @return the XInput return code
+     */
+    int pollDevice(int playerNum, ByteBuffer data);
+
+    /**
+     * Reads the state of all {@link com.github.strikerx3.jxinput.natives.XInputConstants#MAX_PLAYERS MAX_PLAYERS}
+     * devices at once. The buffer (80 bytes) is filled with one {@code XINPUT_STATE} struct per player, followed by one
+     * {@code DWORD} per player with the XInput return code of that player.
+     *
+     * @param data the buffer to write the structs and return codes into
+     */
+    void pollAllDevices(ByteBuffer data);
+
+    /**
+     * Sets the vibration of the device.
+     *
+     * @param playerNum the player number
+     * @param leftMotor the left motor speed, from 0 to 65535
+     * @param rightMotor the right motor speed, from 0 to 65535
+     * @return the XInput return code
+     */
+    int setVibration(int playerNum, int leftMotor, int rightMotor);
+
+    /**
+     * Enables or disables the reporting state of XInput (XInput 1.4).
+     *
+     * @param enabled whether to enable reporting
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * Reads the capabilities of the device into an {@code XINPUT_CAPABILITIES} struct (20 bytes) (XInput 1.4).
+     *
+     * @param playerNum the player number
+     * @param flags the capability flags
+     * @param data the buffer to write the struct into
+     * @return the XInput return code
+     */
+    int getCapabilities(int playerNum, int flags, ByteBuffer data);
+
+    /**
+     * Reads the battery information of the device into an {@code XINPUT_BATTERY_INFORMATION} struct (2 bytes)
+     * (XInput 1.4).
+     *
+     * @param playerNum the player number
+     * @param deviceType the native battery device type
+     * @param data the buffer to write the struct into
+     * @return the XInput return code
+     */
+    int getBatteryInformation(int playerNum, int deviceType, ByteBuffer data);
+
+    /**
+     * Reads the next keystroke of the device into an {@code XINPUT_KEYSTROKE} struct (8 bytes) (XInput 1.4).
+     *
+     * @param playerNum the player number
+     * @param data the buffer to write the struct into
+     * @return the XInput return code
+     */
+    int getKeystroke(int playerNum, ByteBuffer data);
+
+    /**
+     * Reads up to {@code max} keystrokes at once (XInput 1.4). The buffer ({@code max * 8 + 4} bytes) is filled with one
+     * {@code XINPUT_KEYSTROKE} struct per keystroke read, followed, at index {@code max * 8}, by a {@code DWORD} with
+     * the XInput return code of the read that ended the loop: {@code ERROR_EMPTY} once the queue is drained, or
+     * {@code ERROR_SUCCESS} if {@code max} keystrokes were read.
+     *
+     * @param playerNum the player number, or {@link com.github.strikerx3.jxinput.natives.XInputConstants#XUSER_INDEX_ANY
+     *            XUSER_INDEX_ANY} to read the keystrokes of all devices, identified by their user index
+     * @param data the buffer to write the structs and return code into
+     * @param max the maximum number of keystrokes to read
+     * @return the number of keystrokes read
+     */
+    int getKeystrokes(int playerNum, ByteBuffer data, int max);
+}
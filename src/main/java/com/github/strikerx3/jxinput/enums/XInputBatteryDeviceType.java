@@ -1,5 +1,7 @@
 package com.github.strikerx3.jxinput.enums;
 
+import com.github.strikerx3.jxinput.natives.XInputConstants;
+
 /**
  * Enumerates all XInput device types for battery information retrieval.
  *
@@ -7,4 +9,13 @@ package com.github.strikerx3.jxinput.enums;
  */
 public enum XInputBatteryDeviceType {
     GAMEPAD, HEADSET;
+
+    /**
+     * Retrieves the native value of this device type.
+     *
+     * @return the corresponding {@code BATTERY_DEVTYPE_*} constant
+     */
+    public byte toNative() {
+        return this == HEADSET ? XInputConstants.BATTERY_DEVTYPE_HEADSET : XInputConstants.BATTERY_DEVTYPE_GAMEPAD;
+    }
 }
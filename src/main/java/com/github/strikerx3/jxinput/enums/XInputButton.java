@@ -1,15 +1,34 @@
 package com.github.strikerx3.jxinput.enums;
 
+import com.github.strikerx3.jxinput.natives.XInputConstants;
+
 /**
  * Enumerates all XInput buttons.
  * 
  * @author Ivan "StrikerX3" Oliveira
  */
 public enum XInputButton {
-	A, B, X, Y,
-	BACK, START,
-	LEFT_SHOULDER, RIGHT_SHOULDER,
-	LEFT_THUMBSTICK, RIGHT_THUMBSTICK,
-	DPAD_UP, DPAD_DOWN, DPAD_LEFT, DPAD_RIGHT,
-	GUIDE_BUTTON, UNKNOWN;
+	A(XInputConstants.XINPUT_GAMEPAD_A), B(XInputConstants.XINPUT_GAMEPAD_B),
+	X(XInputConstants.XINPUT_GAMEPAD_X), Y(XInputConstants.XINPUT_GAMEPAD_Y),
+	BACK(XInputConstants.XINPUT_GAMEPAD_BACK), START(XInputConstants.XINPUT_GAMEPAD_START),
+	LEFT_SHOULDER(XInputConstants.XINPUT_GAMEPAD_LEFT_SHOULDER), RIGHT_SHOULDER(XInputConstants.XINPUT_GAMEPAD_RIGHT_SHOULDER),
+	LEFT_THUMBSTICK(XInputConstants.XINPUT_GAMEPAD_LEFT_THUMB), RIGHT_THUMBSTICK(XInputConstants.XINPUT_GAMEPAD_RIGHT_THUMB),
+	DPAD_UP(XInputConstants.XINPUT_GAMEPAD_DPAD_UP), DPAD_DOWN(XInputConstants.XINPUT_GAMEPAD_DPAD_DOWN),
+	DPAD_LEFT(XInputConstants.XINPUT_GAMEPAD_DPAD_LEFT), DPAD_RIGHT(XInputConstants.XINPUT_GAMEPAD_DPAD_RIGHT),
+	GUIDE_BUTTON(XInputConstants.XINPUT_GAMEPAD_GUIDE_BUTTON), UNKNOWN(XInputConstants.XINPUT_GAMEPAD_UNKNOWN);
+
+	private final int mask;
+
+	XInputButton(final short mask) {
+		this.mask = mask & 0xFFFF;
+	}
+
+	/**
+	 * Retrieves the bit that represents this button in the {@code wButtons} field of the {@code XINPUT_GAMEPAD} struct.
+	 *
+	 * @return the bit mask of the button, one of the {@code XINPUT_GAMEPAD_*} constants
+	 */
+	public int getMask() {
+		return mask;
+	}
 }
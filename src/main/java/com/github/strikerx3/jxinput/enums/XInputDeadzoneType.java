@@ -0,0 +1,31 @@
+package com.github.strikerx3.jxinput.enums;
+
+/**
+ * Enumerates the ways a deadzone can be applied to a thumbstick.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public enum XInputDeadzoneType {
+    /**
+     * No deadzone. The response curve is applied to each axis independently.
+     */
+    NONE,
+
+    /**
+     * Each axis is zeroed independently while it lies within the deadzone, then rescaled so that it starts from zero at
+     * the edge of the deadzone. Makes it easy to hold a stick in a straight line, but produces a cross-shaped deadzone.
+     */
+    AXIAL,
+
+    /**
+     * Both axes are zeroed while the thumbstick lies within a circle around the center. Outside of the circle, the
+     * position is not rescaled, so the output jumps from zero to the deadzone radius.
+     */
+    RADIAL,
+
+    /**
+     * Both axes are zeroed while the thumbstick lies within a circle around the center. Outside of the circle, the
+     * magnitude is rescaled so that it starts from zero at the edge of the deadzone, keeping the direction of the stick.
+     */
+    SCALED_RADIAL;
+}
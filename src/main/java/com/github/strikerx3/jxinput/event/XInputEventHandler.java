@@ -0,0 +1,19 @@
+package com.github.strikerx3.jxinput.event;
+
+/**
+ * Receives events read from an {@link XInputEventRing}.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public interface XInputEventHandler {
+    /**
+     * Called for each event read by {@link XInputEventRing.Consumer#poll(XInputEventHandler)}.
+     *
+     * @param playerNum the player number of the device that produced the event
+     * @param type the type of event
+     * @param id the button or axis ordinal, depending on the type of event
+     * @param value the value associated with the event
+     * @param timestamp the {@link System#nanoTime()} at which the device was polled
+     */
+    void onEvent(int playerNum, XInputEventType type, int id, float value, long timestamp);
+}
@@ -0,0 +1,226 @@
+package com.github.strikerx3.jxinput.event;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A preallocated ring buffer of timestamped input events with a single producer and any number of consumers.
+ * <p>
+ * Events are stored in primitive arrays, so neither publishing nor consuming allocates any objects. The producer is the
+ * thread that polls the devices attached to the ring with
+ * {@link com.github.strikerx3.jxinput.XInputDevice#setEventRing(XInputEventRing) XInputDevice.setEventRing}; all of
+ * these devices must be polled from the same thread. Each consumer has its own cursor and reads the events at its own
+ * pace from any thread.
+ * <p>
+ * The producer never waits for consumers. If the slowest consumer is a full ring behind, new events are dropped and
+ * counted in {@link #getDroppedEvents()}. Consumers that are no longer used must be {@linkplain Consumer#close()
+ * closed} so that they stop holding the producer back.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public class XInputEventRing {
+    private static final XInputEventType[] TYPES = XInputEventType.values();
+    private static final Consumer[] NO_CONSUMERS = new Consumer[0];
+
+    private final int mask;
+    private final long[] timestamps;
+    private final int[] headers; // player number (8) | event type (8) | id (16)
+    private final float[] values;
+
+    // Sequence of the next event to be published
+    private final AtomicLong published = new AtomicLong();
+    private volatile long droppedEvents;
+
+    // Only accessed by the producer: the lowest consumer sequence seen during the last scan
+    private long gatingSequence;
+
+    private volatile Consumer[] consumers = NO_CONSUMERS;
+    private final Object consumersLock = new Object();
+
+    /**
+     * Creates a ring buffer with room for 4096 events.
+     */
+    public XInputEventRing() {
+        this(4096);
+    }
+
+    /**
+     * Creates a ring buffer with the specified capacity.
+     *
+     * @param capacity the maximum number of events that can be buffered; must be a power of two
+     * @throws IllegalArgumentException if the capacity is not a positive power of two
+     */
+    public XInputEventRing(final int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a positive power of two: " + capacity);
+        }
+        mask = capacity - 1;
+        timestamps = new long[capacity];
+        headers = new int[capacity];
+        values = new float[capacity];
+    }
+
+    /**
+     * Returns the maximum number of events that can be buffered.
+     *
+     * @return the capacity of the ring
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Returns the number of events dropped because a consumer fell a full ring behind.
+     *
+     * @return the number of dropped events
+     */
+    public long getDroppedEvents() {
+        return droppedEvents;
+    }
+
+    /**
+     * Creates a new consumer that will receive every event published from now on.
+     * <p>
+     * This method is thread-safe.
+     *
+     * @return the new consumer
+     */
+    public Consumer newConsumer() {
+        synchronized (consumersLock) {
+            final Consumer consumer = new Consumer(published.get());
+            final Consumer[] current = consumers;
+            final Consumer[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = consumer;
+            consumers = updated;
+            return consumer;
+        }
+    }
+
+    private void removeConsumer(final Consumer consumer) {
+        synchronized (consumersLock) {
+            final Consumer[] current = consumers;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] == consumer) {
+                    final Consumer[] updated = new Consumer[current.length - 1];
+                    System.arraycopy(current, 0, updated, 0, i);
+                    System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                    consumers = updated;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Publishes an event. Must only be called from the producer thread.
+     *
+     * @param playerNum the player number of the device that produced the event
+     * @param type the type of event
+     * @param id the button or axis ordinal
+     * @param value the value associated with the event
+     * @param timestamp the {@link System#nanoTime()} at which the device was polled
+     * @return <code>true</code> if the event was published, <code>false</code> if it was dropped
+     */
+    public boolean publish(final int playerNum, final XInputEventType type, final int id, final float value, final long timestamp) {
+        final long sequence = published.get();
+        if (sequence - gatingSequence > mask && !updateGatingSequence(sequence)) {
+            droppedEvents++;
+            return false;
+        }
+        final int index = (int) sequence & mask;
+        timestamps[index] = timestamp;
+        headers[index] = playerNum << 24 | type.ordinal() << 16 | id & 0xFFFF;
+        values[index] = value;
+        published.lazySet(sequence + 1);
+        return true;
+    }
+
+    /**
+     * Scans the consumers for the lowest sequence still being read.
+     *
+     * @param sequence the sequence about to be published
+     * @return <code>true</code> if there is room for the event
+     */
+    private boolean updateGatingSequence(final long sequence) {
+        long min = sequence;
+        for (final Consumer consumer : consumers) {
+            final long consumed = consumer.sequence.get();
+            if (consumed < min) {
+                min = consumed;
+            }
+        }
+        gatingSequence = min;
+        return sequence - min <= mask;
+    }
+
+    /**
+     * Reads events from an {@link XInputEventRing} with its own cursor.
+     * A consumer must only be used by one thread at a time.
+     */
+    public final class Consumer {
+        // Sequence of the next event to be read
+        private final AtomicLong sequence;
+
+        private Consumer(final long start) {
+            sequence = new AtomicLong(start);
+        }
+
+        /**
+         * Returns the number of events published but not yet read by this consumer.
+         *
+         * @return the number of pending events
+         */
+        public int available() {
+            return (int) (published.get() - sequence.get());
+        }
+
+        /**
+         * Reads all pending events.
+         *
+         * @param handler the handler to invoke for each event
+         * @return the number of events read
+         */
+        public int poll(final XInputEventHandler handler) {
+            return poll(handler, Integer.MAX_VALUE);
+        }
+
+        /**
+         * Reads up to {@code maxEvents} pending events.
+         *
+         * @param handler the handler to invoke for each event
+         * @param maxEvents the maximum number of events to read
+         * @return the number of events read
+         */
+        public int poll(final XInputEventHandler handler, final int maxEvents) {
+            final long start = sequence.get();
+            final long end = Math.min(published.get(), start + maxEvents);
+            for (long seq = start; seq < end; seq++) {
+                final int index = (int) seq & mask;
+                final int header = headers[index];
+                handler.onEvent(header >>> 24, TYPES[header >>> 16 & 0xFF], header & 0xFFFF, values[index], timestamps[index]);
+                // release the slot as soon as it has been read
+                sequence.lazySet(seq + 1);
+            }
+            return (int) (end - start);
+        }
+
+        /**
+         * Skips all pending events.
+         *
+         * @return the number of events skipped
+         */
+        public int skip() {
+            final long start = sequence.get();
+            final long end = published.get();
+            sequence.lazySet(end);
+            return (int) (end - start);
+        }
+
+        /**
+         * Detaches this consumer from the ring. The consumer must not be used afterwards.
+         */
+        public void close() {
+            removeConsumer(this);
+        }
+    }
+}
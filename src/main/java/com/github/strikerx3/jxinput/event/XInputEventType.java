@@ -0,0 +1,37 @@
+package com.github.strikerx3.jxinput.event;
+
+/**
+ * Enumerates the types of events published to an {@link XInputEventRing}.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public enum XInputEventType {
+    /**
+     * The device was connected. The id and value are zero.
+     */
+    CONNECTED,
+
+    /**
+     * The device was disconnected. The id and value are zero.
+     */
+    DISCONNECTED,
+
+    /**
+     * A button was pressed. The id is the ordinal of the {@link com.github.strikerx3.jxinput.enums.XInputButton
+     * XInputButton} and the value is 1.
+     */
+    BUTTON_PRESSED,
+
+    /**
+     * A button was released. The id is the ordinal of the {@link com.github.strikerx3.jxinput.enums.XInputButton
+     * XInputButton} and the value is 0.
+     */
+    BUTTON_RELEASED,
+
+    /**
+     * An axis changed. The id is the ordinal of the {@link com.github.strikerx3.jxinput.enums.XInputAxis XInputAxis} and
+     * the value is the new normalized value of the axis, or the new raw value if the device state is not being
+     * preprocessed. The D-Pad always reports its direction.
+     */
+    AXIS_CHANGED;
+}
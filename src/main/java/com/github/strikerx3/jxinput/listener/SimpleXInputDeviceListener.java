@@ -1,13 +1,15 @@
 package com.github.strikerx3.jxinput.listener;
 
+import com.github.strikerx3.jxinput.enums.XInputAxis;
 import com.github.strikerx3.jxinput.enums.XInputButton;
 
 /**
- * Provides empty implementations of all {@link XInputDeviceListener} methods for easier subclassing.
+ * Provides empty implementations of all {@link XInputDeviceListener}, {@link XInputAxisListener} and
+ * {@link XInputButtonRepeatListener} methods for easier subclassing.
  *
  * @author Ivan "StrikerX3" Oliveira
  */
-public class SimpleXInputDeviceListener implements XInputDeviceListener {
+public class SimpleXInputDeviceListener implements XInputAxisListener, XInputButtonRepeatListener {
     @Override
     public void connected() {
     }
@@ -19,4 +21,12 @@ public class SimpleXInputDeviceListener implements XInputDeviceListener {
     @Override
     public void buttonChanged(final XInputButton button, final boolean pressed) {
     }
+
+    @Override
+    public void buttonRepeated(final XInputButton button) {
+    }
+
+    @Override
+    public void axisChanged(final XInputAxis axis, final float value, final float delta) {
+    }
 }
@@ -0,0 +1,26 @@
+package com.github.strikerx3.jxinput.listener;
+
+import com.github.strikerx3.jxinput.enums.XInputAxis;
+
+/**
+ * Listens to axis events in addition to all {@link XInputDeviceListener} events.
+ * Devices only fire axis events to listeners that implement this interface. The {@link SimpleXInputDeviceListener} class
+ * provides empty implementations of the methods in this interface for easier subclassing.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public interface XInputAxisListener extends XInputDeviceListener {
+    /**
+     * Called when an axis moves past its threshold, relative to the value last reported for that axis.
+     * Small movements, such as the noise of a thumbstick at rest, do not fire this event.
+     * <p>
+     * Values are normalized: thumbsticks range from -1 to 1 and triggers from 0 to 1. The D-Pad reports its direction,
+     * one of the {@code DPAD_*} constants in {@link com.github.strikerx3.jxinput.XInputAxes XInputAxes}.
+     *
+     * @param axis the axis
+     * @param value the new value of the axis
+     * @param delta the difference between the new value and the value last reported for the axis
+     * @see com.github.strikerx3.jxinput.XInputDevice#setAxisThreshold(XInputAxis, float)
+     */
+    void axisChanged(final XInputAxis axis, final float value, final float delta);
+}
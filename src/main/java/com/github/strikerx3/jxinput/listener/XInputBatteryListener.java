@@ -0,0 +1,23 @@
+package com.github.strikerx3.jxinput.listener;
+
+import com.github.strikerx3.jxinput.XInputBatteryInformation;
+import com.github.strikerx3.jxinput.XInputDevice14;
+import com.github.strikerx3.jxinput.enums.XInputBatteryDeviceType;
+
+/**
+ * Listens to battery changes reported by an {@link com.github.strikerx3.jxinput.XInputBatteryMonitor
+ * XInputBatteryMonitor}.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public interface XInputBatteryListener {
+    /**
+     * Called from the monitor thread when the battery level or type of a device changes, including the first time it
+     * is read. Refreshes that find the same level and type do not fire this event.
+     *
+     * @param device the device
+     * @param deviceType whether the battery is the gamepad's or the headset's
+     * @param information the new battery information
+     */
+    void batteryChanged(final XInputDevice14 device, final XInputBatteryDeviceType deviceType, final XInputBatteryInformation information);
+}
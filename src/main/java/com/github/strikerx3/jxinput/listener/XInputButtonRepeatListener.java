@@ -0,0 +1,22 @@
+package com.github.strikerx3.jxinput.listener;
+
+import com.github.strikerx3.jxinput.enums.XInputButton;
+
+/**
+ * Listens to button repeat events in addition to all {@link XInputDeviceListener} events.
+ * Devices only fire repeat events to listeners that implement this interface. The {@link SimpleXInputDeviceListener}
+ * class provides empty implementations of the methods in this interface for easier subclassing.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public interface XInputButtonRepeatListener extends XInputDeviceListener {
+    /**
+     * Called repeatedly while a button is held down, after an initial delay, like the auto-repeat of a keyboard key.
+     * <p>
+     * Repeats are generated by XInput for keystrokes, so this event is only fired by devices read with
+     * {@link com.github.strikerx3.jxinput.XInputDevice14#pollKeystrokes() XInputDevice14.pollKeystrokes()}.
+     *
+     * @param button the button
+     */
+    void buttonRepeated(final XInputButton button);
+}
@@ -4,6 +4,8 @@ import com.github.strikerx3.jxinput.enums.XInputButton;
 
 /**
  * Listens to all XInput events.
+ * Implement {@link XInputAxisListener} or {@link XInputButtonRepeatListener} as well to receive axis or button repeat
+ * events.
  * The {@link SimpleXInputDeviceListener} class provides empty implementations of the methods in this interface
  * for easier subclassing.
  *
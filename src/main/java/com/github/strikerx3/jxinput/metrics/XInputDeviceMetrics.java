@@ -0,0 +1,314 @@
+package com.github.strikerx3.jxinput.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import com.github.strikerx3.jxinput.listener.XInputDeviceListener;
+
+/**
+ * Collects the metrics of a device: poll counts and rates, latency histograms of the backend, the decoder and the
+ * listeners, connections and vibration calls.
+ * <p>
+ * Counters are updated on every poll with plain atomic stores, without locks. Latencies are only measured on one of
+ * every {@linkplain #setSamplingInterval(int) N polls} and recorded into {@link XInputLatencyHistogram}s, so the
+ * metrics can be left enabled in production. Listener times are aggregated by listener class.
+ * <p>
+ * The metrics can be read directly or exposed as an MBean with {@link #register(int)}. An instance should be attached
+ * to a single device, or to devices that are all polled from the same thread.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public class XInputDeviceMetrics implements XInputMetrics, XInputDeviceMetricsMBean {
+    private static final long RATE_WINDOW_NANOS = 1000000000L;
+
+    private volatile int samplingMask;
+
+    // Written by the polling thread only, so lazySet is enough to publish them
+    private final AtomicLong polls = new AtomicLong();
+    private final AtomicLong sampledPolls = new AtomicLong();
+    private final AtomicLong connects = new AtomicLong();
+    private final AtomicLong disconnects = new AtomicLong();
+    // Written by any thread that sets the vibration
+    private final AtomicLong vibrations = new AtomicLong();
+
+    private final XInputLatencyHistogram nativePoll = new XInputLatencyHistogram();
+    private final XInputLatencyHistogram decode = new XInputLatencyHistogram();
+    private final XInputLatencyHistogram dispatch = new XInputLatencyHistogram();
+    private final ConcurrentMap<Class<?>, XInputLatencyHistogram> listenerTimes = new ConcurrentHashMap<Class<?>, XInputLatencyHistogram>();
+
+    // Rates, recomputed by the polling thread once per window
+    private long windowStart = System.nanoTime();
+    private long windowPolls;
+    private long windowVibrations;
+    private volatile double pollsPerSecond;
+    private volatile double vibrationsPerSecond;
+
+    private ObjectName objectName;
+
+    /**
+     * Creates metrics that sample one of every 16 polls.
+     */
+    public XInputDeviceMetrics() {
+        this(16);
+    }
+
+    /**
+     * Creates metrics that sample one of every {@code samplingInterval} polls.
+     *
+     * @param samplingInterval one of every how many polls to sample; must be a power of two
+     * @throws IllegalArgumentException if the interval is not a positive power of two
+     */
+    public XInputDeviceMetrics(final int samplingInterval) {
+        setSamplingInterval(samplingInterval);
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server under the name
+     * {@code com.github.strikerx3.jxinput:type=XInputDevice,player=<playerNum>}.
+     *
+     * @param playerNum the player number of the device
+     * @throws JMException if the MBean could not be registered
+     * @throws IllegalStateException if these metrics are already registered
+     */
+    public synchronized void register(final int playerNum) throws JMException {
+        if (objectName != null) {
+            throw new IllegalStateException("Metrics already registered as " + objectName);
+        }
+        final ObjectName name = new ObjectName("com.github.strikerx3.jxinput:type=XInputDevice,player=" + playerNum);
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+        objectName = name;
+    }
+
+    /**
+     * Unregisters these metrics from the platform MBean server. Does nothing if they are not registered.
+     *
+     * @throws JMException if the MBean could not be unregistered
+     */
+    public synchronized void unregister() throws JMException {
+        if (objectName != null) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            objectName = null;
+        }
+    }
+
+    @Override
+    public boolean pollStarted(final int playerNum) {
+        final long count = polls.get() + 1;
+        polls.lazySet(count);
+        return (count & samplingMask) == 0;
+    }
+
+    @Override
+    public void pollCompleted(final int playerNum, final long nativeNanos) {
+        nativePoll.record(nativeNanos);
+        sampledPolls.lazySet(sampledPolls.get() + 1);
+
+        final long now = System.nanoTime();
+        final long elapsed = now - windowStart;
+        if (elapsed >= RATE_WINDOW_NANOS) {
+            final long pollCount = polls.get();
+            final long vibrationCount = vibrations.get();
+            // the counters may have been reset during the window
+            pollsPerSecond = Math.max(0L, pollCount - windowPolls) * 1e9 / elapsed;
+            vibrationsPerSecond = Math.max(0L, vibrationCount - windowVibrations) * 1e9 / elapsed;
+            windowStart = now;
+            windowPolls = pollCount;
+            windowVibrations = vibrationCount;
+        }
+    }
+
+    @Override
+    public void stateProcessed(final int playerNum, final long decodeNanos, final long dispatchNanos) {
+        decode.record(decodeNanos);
+        dispatch.record(dispatchNanos);
+    }
+
+    @Override
+    public void listenerDispatched(final int playerNum, final XInputDeviceListener listener, final long nanos) {
+        final Class<?> type = listener.getClass();
+        XInputLatencyHistogram histogram = listenerTimes.get(type);
+        if (histogram == null) {
+            final XInputLatencyHistogram created = new XInputLatencyHistogram();
+            histogram = listenerTimes.putIfAbsent(type, created);
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+        histogram.record(nanos);
+    }
+
+    @Override
+    public void connectionChanged(final int playerNum, final boolean connected) {
+        final AtomicLong counter = connected ? connects : disconnects;
+        counter.lazySet(counter.get() + 1);
+    }
+
+    @Override
+    public void vibrationSet(final int playerNum) {
+        vibrations.incrementAndGet();
+    }
+
+    @Override
+    public long getPollCount() {
+        return polls.get();
+    }
+
+    @Override
+    public double getPollsPerSecond() {
+        return pollsPerSecond;
+    }
+
+    @Override
+    public long getSampledPollCount() {
+        return sampledPolls.get();
+    }
+
+    @Override
+    public int getSamplingInterval() {
+        return samplingMask + 1;
+    }
+
+    @Override
+    public void setSamplingInterval(final int interval) {
+        if (interval <= 0 || Integer.bitCount(interval) != 1) {
+            throw new IllegalArgumentException("Sampling interval must be a positive power of two: " + interval);
+        }
+        samplingMask = interval - 1;
+    }
+
+    /**
+     * Returns the histogram of the time spent reading the state from the backend.
+     *
+     * @return the histogram
+     */
+    public XInputLatencyHistogram getNativePollHistogram() {
+        return nativePoll;
+    }
+
+    /**
+     * Returns the histogram of the time spent decoding new states.
+     *
+     * @return the histogram
+     */
+    public XInputLatencyHistogram getDecodeHistogram() {
+        return decode;
+    }
+
+    /**
+     * Returns the histogram of the time spent firing the events of new states to all listeners.
+     *
+     * @return the histogram
+     */
+    public XInputLatencyHistogram getDispatchHistogram() {
+        return dispatch;
+    }
+
+    /**
+     * Returns the histogram of the time spent in listeners of the specified class.
+     *
+     * @param listenerClass the listener class
+     * @return the histogram, or <code>null</code> if no listener of that class has received events
+     */
+    public XInputLatencyHistogram getListenerHistogram(final Class<? extends XInputDeviceListener> listenerClass) {
+        return listenerTimes.get(listenerClass);
+    }
+
+    @Override
+    public long getNativePollP50() {
+        return nativePoll.getPercentile(0.5);
+    }
+
+    @Override
+    public long getNativePollP99() {
+        return nativePoll.getPercentile(0.99);
+    }
+
+    @Override
+    public long getNativePollP999() {
+        return nativePoll.getPercentile(0.999);
+    }
+
+    @Override
+    public long getDecodeP50() {
+        return decode.getPercentile(0.5);
+    }
+
+    @Override
+    public long getDecodeP99() {
+        return decode.getPercentile(0.99);
+    }
+
+    @Override
+    public long getDecodeP999() {
+        return decode.getPercentile(0.999);
+    }
+
+    @Override
+    public long getDispatchP50() {
+        return dispatch.getPercentile(0.5);
+    }
+
+    @Override
+    public long getDispatchP99() {
+        return dispatch.getPercentile(0.99);
+    }
+
+    @Override
+    public long getDispatchP999() {
+        return dispatch.getPercentile(0.999);
+    }
+
+    @Override
+    public String[] getListenerTimes() {
+        final List<String> lines = new ArrayList<String>();
+        for (final Map.Entry<Class<?>, XInputLatencyHistogram> entry : listenerTimes.entrySet()) {
+            final XInputLatencyHistogram histogram = entry.getValue();
+            lines.add(entry.getKey().getName() + ": count=" + histogram.getCount()
+                    + " p50=" + histogram.getPercentile(0.5)
+                    + " p99=" + histogram.getPercentile(0.99)
+                    + " p999=" + histogram.getPercentile(0.999));
+        }
+        return lines.toArray(new String[lines.size()]);
+    }
+
+    @Override
+    public long getConnectCount() {
+        return connects.get();
+    }
+
+    @Override
+    public long getDisconnectCount() {
+        return disconnects.get();
+    }
+
+    @Override
+    public long getVibrationCount() {
+        return vibrations.get();
+    }
+
+    @Override
+    public double getVibrationsPerSecond() {
+        return vibrationsPerSecond;
+    }
+
+    @Override
+    public void reset() {
+        polls.set(0);
+        sampledPolls.set(0);
+        connects.set(0);
+        disconnects.set(0);
+        vibrations.set(0);
+        nativePoll.reset();
+        decode.reset();
+        dispatch.reset();
+        listenerTimes.clear();
+    }
+}
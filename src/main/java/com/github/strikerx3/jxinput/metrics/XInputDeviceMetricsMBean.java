@@ -0,0 +1,108 @@
+package com.github.strikerx3.jxinput.metrics;
+
+/**
+ * The JMX management interface of {@link XInputDeviceMetrics}. All durations are in nanoseconds.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public interface XInputDeviceMetricsMBean {
+    /**
+     * @return the number of polls
+     */
+    long getPollCount();
+
+    /**
+     * @return the number of polls per second, measured over the last second of sampled polls
+     */
+    double getPollsPerSecond();
+
+    /**
+     * @return the number of sampled polls
+     */
+    long getSampledPollCount();
+
+    /**
+     * @return one of every how many polls is sampled
+     */
+    int getSamplingInterval();
+
+    /**
+     * @param interval one of every how many polls to sample; must be a power of two
+     */
+    void setSamplingInterval(int interval);
+
+    /**
+     * @return the median time spent reading the state from the backend
+     */
+    long getNativePollP50();
+
+    /**
+     * @return the 99th percentile of the time spent reading the state from the backend
+     */
+    long getNativePollP99();
+
+    /**
+     * @return the 99.9th percentile of the time spent reading the state from the backend
+     */
+    long getNativePollP999();
+
+    /**
+     * @return the median time spent decoding new states
+     */
+    long getDecodeP50();
+
+    /**
+     * @return the 99th percentile of the time spent decoding new states
+     */
+    long getDecodeP99();
+
+    /**
+     * @return the 99.9th percentile of the time spent decoding new states
+     */
+    long getDecodeP999();
+
+    /**
+     * @return the median time spent firing the events of new states
+     */
+    long getDispatchP50();
+
+    /**
+     * @return the 99th percentile of the time spent firing the events of new states
+     */
+    long getDispatchP99();
+
+    /**
+     * @return the 99.9th percentile of the time spent firing the events of new states
+     */
+    long getDispatchP999();
+
+    /**
+     * @return one line per listener class with the percentiles of the time spent in its listeners
+     */
+    String[] getListenerTimes();
+
+    /**
+     * @return the number of times the device was connected
+     */
+    long getConnectCount();
+
+    /**
+     * @return the number of times the device was disconnected
+     */
+    long getDisconnectCount();
+
+    /**
+     * @return the number of calls that set the vibration
+     */
+    long getVibrationCount();
+
+    /**
+     * @return the number of calls that set the vibration per second, measured over the last second of sampled polls
+     */
+    double getVibrationsPerSecond();
+
+    /**
+     * Clears all counters and histograms.
+     */
+    void reset();
+}
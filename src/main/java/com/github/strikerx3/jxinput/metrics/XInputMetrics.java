@@ -0,0 +1,69 @@
+package com.github.strikerx3.jxinput.metrics;
+
+import com.github.strikerx3.jxinput.listener.XInputDeviceListener;
+
+/**
+ * Receives measurements from the devices it is attached to with
+ * {@link com.github.strikerx3.jxinput.XInputDevice#setMetrics(XInputMetrics) XInputDevice.setMetrics}.
+ * <p>
+ * Every poll is announced through {@link #pollStarted(int)}, which decides whether the poll is sampled. Only sampled
+ * polls are timed, so the cost of the {@link System#nanoTime()} calls can be spread over many polls. Counters such as
+ * connections and vibration calls are reported on every occurrence.
+ * <p>
+ * Methods are called from the thread that polls the device, except for {@link #vibrationSet(int)}, which is called from
+ * the thread that sets the vibration. Implementations must not block and should not allocate objects.
+ * {@link XInputDeviceMetrics} is the default implementation, which can be exposed through JMX.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public interface XInputMetrics {
+    /**
+     * Called before a device is polled.
+     *
+     * @param playerNum the player number of the device
+     * @return <code>true</code> if the poll should be timed
+     */
+    boolean pollStarted(int playerNum);
+
+    /**
+     * Called after a sampled poll, with the time spent in the backend reading the state. When all devices are polled
+     * at once, the time of the single backend call is reported for each device.
+     *
+     * @param playerNum the player number of the device
+     * @param nativeNanos the time spent reading the state, in nanoseconds
+     */
+    void pollCompleted(int playerNum, long nativeNanos);
+
+    /**
+     * Called after a sampled poll that read a new state, with the time spent decoding it and dispatching its events.
+     *
+     * @param playerNum the player number of the device
+     * @param decodeNanos the time spent decoding the state through the pipeline, in nanoseconds
+     * @param dispatchNanos the time spent firing the events of all listeners, in nanoseconds
+     */
+    void stateProcessed(int playerNum, long decodeNanos, long dispatchNanos);
+
+    /**
+     * Called after a sampled poll for each listener that received events, with the time spent in that listener.
+     *
+     * @param playerNum the player number of the device
+     * @param listener the listener
+     * @param nanos the time spent in the listener, in nanoseconds
+     */
+    void listenerDispatched(int playerNum, XInputDeviceListener listener, long nanos);
+
+    /**
+     * Called when a device is connected or disconnected.
+     *
+     * @param playerNum the player number of the device
+     * @param connected <code>true</code> if the device was connected, <code>false</code> if disconnected
+     */
+    void connectionChanged(int playerNum, boolean connected);
+
+    /**
+     * Called when the vibration of a device is set.
+     *
+     * @param playerNum the player number of the device
+     */
+    void vibrationSet(int playerNum);
+}
@@ -1,13 +1,15 @@
 package com.github.strikerx3.jxinput.natives;
 
-import java.io.BufferedInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.security.DigestInputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
@@ -41,7 +43,14 @@ import java.security.NoSuchAlgorithmException;
  * </ul>
  * <p>
  * Files are extracted to the path specified by the system property {@code native.lib.path}. If the property is not
- * specified, libraries will be extracted to the {@code lib} folder under the working directory.
+ * specified, libraries will be extracted to the {@code nativelibs} folder under the system temporary directory.
+ * <p>
+ * Each library may be accompanied by a resource with the same name plus a {@code .sha256} extension, containing the
+ * hexadecimal SHA-256 hash of the library, generated when the library is built. The library is extracted to a
+ * subdirectory named after that hash, so an up-to-date copy is recognized by its path alone and loaded without reading
+ * the library from the .jar file. Libraries without a hash resource are hashed as they are read. Extraction is done
+ * while holding a file lock and the library is moved into place atomically, so that processes starting at the same time
+ * never load a partially written file.
  */
 // TODO: allow a custom path scheme
 // FIXME: this will not work if a library depends on other libraries; need to extract the entire folder first
@@ -142,6 +151,16 @@ public class NativeLibraryHelper {
      */
     private static final File LIB_DIR;
 
+    /**
+     * The extension of the resources holding the SHA-256 hashes of the libraries.
+     */
+    private static final String HASH_EXT = ".sha256";
+
+    /**
+     * Serializes extractions within this process.
+     */
+    private static final Object EXTRACT_LOCK = new Object();
+
     static {
         ARCHITECTURE = System.getProperty("os.arch").contains("64") ? SystemArch.x64 : SystemArch.x86;
 
@@ -185,64 +204,197 @@ public class NativeLibraryHelper {
      * @throws IOException if there is a problem reading or writing the library
      */
     public static void load(final String path, final String libName, final ClassLoader cl) throws IOException {
-        final String baseName = libName + (DEBUG ? DEBUG_SUFFIX : "");
-        final String filename = OPERATING_SYSTEM.toFilename(baseName);
-        final String resourcePath = path + "/" + OPERATING_SYSTEM.getName() + "-" + ARCHITECTURE + "/" + filename;
-        final InputStream input = cl.getResourceAsStream(resourcePath);
-        if (input == null) {
-            throw new IOException("Library " + libName + " not found. Full path: " + resourcePath);
+        System.load(extract(path, libName, cl).getAbsolutePath());
+    }
+
+    /**
+     * Extracts a native library using the given class loader, unless an up-to-date copy was already extracted, and
+     * returns the extracted file without loading it.
+     * <p>
+     * This method is safe to call from several threads and processes at the same time.
+     *
+     * @param path the base path for the library
+     * @param libName the library name
+     * @param cl the ClassLoader to use to load the library
+     * @return the extracted library
+     * @throws IOException if there is a problem reading or writing the library, or if the library does not match its
+     *             hash
+     */
+    public static File extract(final String path, final String libName, final ClassLoader cl) throws IOException {
+        final String filename = toFilename(libName);
+        final String resourcePath = toResourcePath(path, libName);
+
+        byte[] contents = null;
+        String hash = readHash(cl, resourcePath + HASH_EXT);
+        if (hash == null) {
+            contents = readLibrary(cl, resourcePath, libName);
+            hash = sha256(contents);
         }
-        final File outputFile;
-        try {
-            outputFile = new File(LIB_DIR, filename);
-            if (outputFile.exists()) {
-                final String md5sumJar = md5sum(cl.getResourceAsStream(resourcePath));
-                final String md5sumFile = md5sum(new FileInputStream(outputFile));
-                if (md5sumJar.equals(md5sumFile)) {
-                    System.load(outputFile.getAbsolutePath());
-                    return;
-                }
-            } else {
-                outputFile.createNewFile();
+        final File libDir = new File(LIB_DIR, hash);
+        final File outputFile = new File(libDir, filename);
+        if (outputFile.isFile()) {
+            // only complete files are ever moved into the hash directory
+            return outputFile;
+        }
+        if (contents == null) {
+            contents = readLibrary(cl, resourcePath, libName);
+            if (!hash.equals(sha256(contents))) {
+                throw new IOException("Library " + libName + " does not match its hash. Full path: " + resourcePath);
             }
+        }
 
-            final FileOutputStream fos = new FileOutputStream(outputFile);
+        // FileChannel locks are held by the whole process, so threads must also be kept out of each other's way
+        synchronized (EXTRACT_LOCK) {
+            libDir.mkdirs();
+            final RandomAccessFile lockFile = new RandomAccessFile(new File(libDir, filename + ".lock"), "rw");
             try {
-                final byte[] buf = new byte[65536];
-                int len;
-                while ((len = input.read(buf)) > -1) {
-                    fos.write(buf, 0, len);
+                final FileLock lock = lockFile.getChannel().lock();
+                try {
+                    if (!outputFile.isFile()) {
+                        write(contents, libDir, outputFile);
+                    }
+                } finally {
+                    lock.release();
                 }
+            } finally {
+                lockFile.close();
+            }
+        }
+        return outputFile;
+    }
+
+    /**
+     * Returns the file name of a library on the current platform.
+     *
+     * @param libName the library name
+     * @return the library file name
+     */
+    static String toFilename(final String libName) {
+        return OPERATING_SYSTEM.toFilename(libName + (DEBUG ? DEBUG_SUFFIX : ""));
+    }
+
+    /**
+     * Returns the full class path of a library on the current platform.
+     *
+     * @param path the base path for the library
+     * @param libName the library name
+     * @return the full path to the library
+     */
+    static String toResourcePath(final String path, final String libName) {
+        return path + "/" + OPERATING_SYSTEM.getName() + "-" + ARCHITECTURE + "/" + toFilename(libName);
+    }
+
+    /**
+     * Writes the library to a temporary file in the given directory, then atomically moves it to its final name.
+     *
+     * @param contents the library contents
+     * @param dir the directory to write to
+     * @param outputFile the final file
+     * @throws IOException if there is a problem writing the library, or if the file system cannot move it atomically
+     */
+    private static void write(final byte[] contents, final File dir, final File outputFile) throws IOException {
+        final File tempFile = File.createTempFile(outputFile.getName(), ".tmp", dir);
+        try {
+            final FileOutputStream fos = new FileOutputStream(tempFile);
+            try {
+                fos.write(contents);
+                fos.getFD().sync();
             } finally {
                 fos.close();
             }
+            try {
+                Files.move(tempFile.toPath(), outputFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (final AtomicMoveNotSupportedException e) {
+                // extract() trusts any file found in the hash directory without taking the lock, so a file that
+                // appears there before it is complete could be loaded by another process
+                throw new IOException("Cannot move library " + outputFile.getName() + " into place atomically in " + dir
+                        + "; set the system property native.lib.path to a directory on a local file system", e);
+            }
+        } finally {
+            tempFile.delete();
+        }
+    }
+
+    /**
+     * Reads the hash of a library from its hash resource.
+     *
+     * @param cl the ClassLoader to use to load the resource
+     * @param hashPath the full path to the hash resource
+     * @return the lowercase hexadecimal SHA-256 hash, or <code>null</code> if there is no hash resource
+     * @throws IOException if there is a problem reading the resource or it does not contain a SHA-256 hash
+     */
+    private static String readHash(final ClassLoader cl, final String hashPath) throws IOException {
+        final InputStream input = cl.getResourceAsStream(hashPath);
+        if (input == null) {
+            return null;
+        }
+        final String hash;
+        try {
+            hash = new String(readFully(input), "US-ASCII").trim().toLowerCase();
+        } finally {
+            input.close();
+        }
+        if (!hash.matches("[0-9a-f]{64}")) {
+            throw new IOException("Invalid library hash in " + hashPath);
+        }
+        return hash;
+    }
+
+    /**
+     * Reads an entire library from the class path.
+     *
+     * @param cl the ClassLoader to use to load the library
+     * @param resourcePath the full path to the library
+     * @param libName the library name
+     * @return the library contents
+     * @throws IOException if the library is not found or there is a problem reading it
+     */
+    private static byte[] readLibrary(final ClassLoader cl, final String resourcePath, final String libName) throws IOException {
+        final InputStream input = cl.getResourceAsStream(resourcePath);
+        if (input == null) {
+            throw new IOException("Library " + libName + " not found. Full path: " + resourcePath);
+        }
+        try {
+            return readFully(input);
         } finally {
             input.close();
         }
-        System.load(outputFile.getAbsolutePath());
     }
 
     /**
-     * Calculates the MD5 sum of the given input stream.
+     * Reads the given input stream to the end. Does not close the stream.
      *
      * @param input the input stream
-     * @return the MD5 sum of the contents of the input stream
+     * @return the contents of the input stream
      * @throws IOException if there is an error reading the input stream
      */
-    private static String md5sum(final InputStream input) throws IOException {
-        final BufferedInputStream in = new BufferedInputStream(input);
+    private static byte[] readFully(final InputStream input) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(65536);
+        final byte[] buf = new byte[65536];
+        int len;
+        while ((len = input.read(buf)) > -1) {
+            out.write(buf, 0, len);
+        }
+        return out.toByteArray();
+    }
 
+    /**
+     * Calculates the SHA-256 hash of the given data.
+     *
+     * @param data the data
+     * @return the lowercase hexadecimal SHA-256 hash of the data
+     */
+    private static String sha256(final byte[] data) {
+        final byte[] digest;
         try {
-            final MessageDigest digest = java.security.MessageDigest.getInstance("MD5");
-            final DigestInputStream digestInputStream = new DigestInputStream(in, digest);
-            while (digestInputStream.read() >= 0) {}
-            final ByteArrayOutputStream md5out = new ByteArrayOutputStream();
-            md5out.write(digest.digest());
-            return md5out.toString();
+            digest = MessageDigest.getInstance("SHA-256").digest(data);
         } catch (final NoSuchAlgorithmException e) {
-            throw new IllegalStateException("MD5 algorithm is not available", e);
-        } finally {
-            in.close();
+            throw new IllegalStateException("SHA-256 algorithm is not available", e);
+        }
+        final StringBuilder hex = new StringBuilder(digest.length * 2);
+        for (final byte b : digest) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
         }
+        return hex.toString();
     }
 }
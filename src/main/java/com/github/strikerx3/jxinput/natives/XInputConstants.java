@@ -12,6 +12,7 @@ public final class XInputConstants {
     // XInput
 
     public static final int MAX_PLAYERS = 4;
+    public static final int XUSER_INDEX_ANY = 0x000000FF;
 
     // Controller button masks
     public static final short XINPUT_GAMEPAD_DPAD_UP = 0x0001;
@@ -31,6 +32,11 @@ public final class XInputConstants {
     public static final short XINPUT_GAMEPAD_X = 0x4000;
     public static final short XINPUT_GAMEPAD_Y = (short) 0x8000;
 
+    // Recommended deadzones and thresholds
+    public static final int XINPUT_GAMEPAD_LEFT_THUMB_DEADZONE = 7849;
+    public static final int XINPUT_GAMEPAD_RIGHT_THUMB_DEADZONE = 8689;
+    public static final int XINPUT_GAMEPAD_TRIGGER_THRESHOLD = 30;
+
     // Device types
     public static final byte XINPUT_DEVTYPE_GAMEPAD = 0x01;
 
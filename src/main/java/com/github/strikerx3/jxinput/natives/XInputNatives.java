@@ -48,6 +48,9 @@ public final class XInputNatives {
     // https://msdn.microsoft.com/en-us/library/windows/desktop/microsoft.directx_sdk.reference.xinputgetstate(v=vs.85).aspx
     public static native int pollDevice(int playerNum, ByteBuffer data);
 
+    // Polls all players at once. The buffer receives MAX_PLAYERS XINPUT_STATE structs followed by MAX_PLAYERS return codes
+    public static native void pollAllDevices(ByteBuffer data);
+
     // https://msdn.microsoft.com/en-us/library/windows/desktop/microsoft.directx_sdk.reference.xinputsetstate(v=vs.85).aspx
     public static native int setVibration(int playerNum, int leftMotor, int rightMotor);
 }
@@ -52,4 +52,6 @@ public final class XInputNatives14 {
 
     // https://msdn.microsoft.com/en-us/library/windows/desktop/microsoft.directx_sdk.reference.xinputgetkeystroke(v=vs.85).aspx
     public static native int getKeystroke(int playerNum, ByteBuffer data);
+
+    public static native int getKeystrokes(int playerNum, ByteBuffer data, int max);
 }
@@ -0,0 +1,72 @@
+package com.github.strikerx3.jxinput.poller;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The standard wait strategies, ordered from the cheapest and least precise to the most precise and CPU-intensive.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public enum StandardXInputWaitStrategy implements XInputWaitStrategy {
+    /**
+     * Waits with {@link Thread#sleep(long, int)}. Uses no CPU while waiting, but the wake-up time depends on the timer
+     * resolution of the operating system, which can be as coarse as 15 ms on Windows.
+     */
+    SLEEP {
+        @Override
+        public void waitUntil(final long deadline) throws InterruptedException {
+            long remaining;
+            while ((remaining = deadline - System.nanoTime()) > 0) {
+                Thread.sleep(TimeUnit.NANOSECONDS.toMillis(remaining), (int) (remaining % 1000000L));
+            }
+        }
+    },
+
+    /**
+     * Waits with {@link LockSupport#parkNanos(long)}. Uses no CPU while waiting and typically wakes up within tens of
+     * microseconds of the deadline.
+     */
+    PARK_NANOS {
+        @Override
+        public void waitUntil(final long deadline) throws InterruptedException {
+            long remaining;
+            while ((remaining = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(remaining);
+                checkInterrupted();
+            }
+        }
+    },
+
+    /**
+     * Repeatedly calls {@link Thread#yield()} until the deadline. Wakes up close to the deadline while letting other
+     * threads run, but keeps a core busy when the system is idle.
+     */
+    YIELD {
+        @Override
+        public void waitUntil(final long deadline) throws InterruptedException {
+            while (deadline - System.nanoTime() > 0) {
+                Thread.yield();
+                checkInterrupted();
+            }
+        }
+    },
+
+    /**
+     * Spins until the deadline. The most precise strategy, at the cost of fully occupying a core.
+     */
+    BUSY_SPIN {
+        @Override
+        public void waitUntil(final long deadline) throws InterruptedException {
+            while (deadline - System.nanoTime() > 0) {
+                checkInterrupted();
+            }
+        }
+    };
+
+    private static void checkInterrupted() throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package com.github.strikerx3.jxinput.poller;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.github.strikerx3.jxinput.XInputDevice;
+import com.github.strikerx3.jxinput.natives.XInputConstants;
+
+/**
+ * Polls a set of devices from a background thread at a fixed rate.
+ * <p>
+ * Ticks are scheduled at absolute times ({@code start + n * period}), so that the time spent polling and waking up late
+ * does not accumulate into drift. If the poller falls more than a full period behind, the ticks that can no longer be
+ * made are skipped and reported as missed deadlines through the {@link XInputPollerListener} and
+ * {@link #getMissedDeadlines()}.
+ * <p>
+ * While the poller is running, the devices are owned by the polling thread: device listeners are invoked from that
+ * thread and the devices must not be polled from anywhere else.
+ * <p>
+ * Reading the state of an empty slot can stall for a long time while the driver looks for a device. To keep those
+ * stalls away from the connected devices, a device that is found disconnected stops being polled on every tick and is
+ * handed to a low-priority probe thread instead. The probe thread reads the slot directly from the
+ * {@linkplain XInputDevice#getBackend() backend} at a decaying rate: first after the minimum probe interval, then at
+ * twice the previous interval, up to the maximum. Once a device answers, it is handed back to the polling thread, which
+ * polls it on the next tick and fires the connection event as usual. See {@link #setProbeIntervals(long, long)}.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public class XInputPoller {
+    /**
+     * The default minimum interval between probes of a disconnected device: 100 milliseconds.
+     */
+    public static final long DEFAULT_MIN_PROBE_INTERVAL_NANOS = 100000000L;
+
+    /**
+     * The default maximum interval between probes of a disconnected device: 2 seconds.
+     */
+    public static final long DEFAULT_MAX_PROBE_INTERVAL_NANOS = 2000000000L;
+
+    private static final int SLOT_POLLED = 0;// owned by the polling thread
+    private static final int SLOT_PROBED = 1;// owned by the probe thread
+
+    private final XInputDevice[] devices;
+    private final long periodNanos;
+    private final XInputWaitStrategy waitStrategy;
+
+    private volatile long minProbeIntervalNanos = DEFAULT_MIN_PROBE_INTERVAL_NANOS;
+    private volatile long maxProbeIntervalNanos = DEFAULT_MAX_PROBE_INTERVAL_NANOS;
+    private final AtomicLong probes = new AtomicLong();
+    private Prober prober;
+
+    private volatile XInputPollerListener listener;
+
+    private volatile long ticks;
+    private volatile long missedDeadlines;
+
+    private Thread thread;
+    private volatile boolean running;
+
+    /**
+     * Creates a poller for the given devices that waits with {@link StandardXInputWaitStrategy#PARK_NANOS}.
+     *
+     * @param rateHz the polling rate, in ticks per second
+     * @param devices the devices to poll
+     */
+    public XInputPoller(final int rateHz, final XInputDevice... devices) {
+        this(rateHz, StandardXInputWaitStrategy.PARK_NANOS, devices);
+    }
+
+    /**
+     * Creates a poller for the given devices.
+     *
+     * @param rateHz the polling rate, in ticks per second, such as 125, 500 or 1000
+     * @param waitStrategy the strategy used to wait between ticks
+     * @param devices the devices to poll
+     * @throws IllegalArgumentException if the rate is not positive or no devices were given
+     */
+    public XInputPoller(final int rateHz, final XInputWaitStrategy waitStrategy, final XInputDevice... devices) {
+        if (rateHz <= 0) {
+            throw new IllegalArgumentException("Polling rate must be positive: " + rateHz);
+        }
+        if (waitStrategy == null) {
+            throw new IllegalArgumentException("Wait strategy cannot be null");
+        }
+        if (devices.length == 0) {
+            throw new IllegalArgumentException("No devices to poll");
+        }
+        this.devices = devices.clone();
+        this.periodNanos = 1000000000L / rateHz;
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * Sets how often disconnected devices are probed. A device found disconnected is probed after {@code minNanos},
+     * and every probe that still finds it disconnected doubles the interval, up to {@code maxNanos}.
+     * <p>
+     * Setting the minimum interval to 0 disables probing: every device is polled on every tick, as with
+     * {@link XInputDevice#pollAll()}. This is needed with backends whose state advances on every read, such as a
+     * {@link com.github.strikerx3.jxinput.backend.ReplayXInputBackend ReplayXInputBackend} playing as fast as possible.
+     * <p>
+     * The change applies to devices that are disconnected from now on.
+     *
+     * @param minNanos the interval before the first probe, in nanoseconds, or 0 to disable probing
+     * @param maxNanos the maximum interval between probes, in nanoseconds
+     * @throws IllegalArgumentException if an interval is negative or the maximum is less than the minimum
+     */
+    public void setProbeIntervals(final long minNanos, final long maxNanos) {
+        if (minNanos < 0) {
+            throw new IllegalArgumentException("Minimum probe interval must not be negative: " + minNanos);
+        }
+        if (maxNanos < minNanos) {
+            throw new IllegalArgumentException("Maximum probe interval (" + maxNanos + ") is less than the minimum (" + minNanos + ")");
+        }
+        maxProbeIntervalNanos = maxNanos;
+        minProbeIntervalNanos = minNanos;
+    }
+
+    /**
+     * Returns the interval before the first probe of a disconnected device.
+     *
+     * @return the minimum probe interval, in nanoseconds, or 0 if probing is disabled
+     */
+    public long getMinProbeIntervalNanos() {
+        return minProbeIntervalNanos;
+    }
+
+    /**
+     * Returns the maximum interval between probes of a disconnected device.
+     *
+     * @return the maximum probe interval, in nanoseconds
+     */
+    public long getMaxProbeIntervalNanos() {
+        return maxProbeIntervalNanos;
+    }
+
+    /**
+     * Sets the listener that is notified of missed deadlines and polling errors.
+     *
+     * @param listener the listener, or <code>null</code> to remove the current listener
+     */
+    public void setListener(final XInputPollerListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Starts polling in a new daemon thread, along with the probe thread. Devices that were connected when last polled
+     * are polled from the first tick; the others are probed right away. Does nothing if the poller is already running.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        final Prober prober = new Prober();
+        final long minInterval = minProbeIntervalNanos;
+        final long now = System.nanoTime();
+        for (int i = 0; i < devices.length; i++) {
+            if (minInterval > 0 && !devices[i].isConnected()) {
+                prober.probeIntervals[i] = minInterval;
+                prober.nextProbes[i] = now;
+                prober.slotStates.set(i, SLOT_PROBED);
+            }
+        }
+        final Thread probeThread = new Thread(prober, "XInputPoller-probe");
+        probeThread.setDaemon(true);
+        probeThread.setPriority(Thread.MIN_PRIORITY);
+        prober.thread = probeThread;
+        probeThread.start();
+        this.prober = prober;
+
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                runLoop(prober);
+            }
+        }, "XInputPoller");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops polling and waits for the polling thread to finish its current tick. The probe thread is told to stop but
+     * is not waited for, since it may be stuck in a slow read; it does not touch the devices, and every start creates a
+     * new probe thread with its own slot states, so a probe thread that outlives a restart cannot affect it.
+     *
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public synchronized void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        prober.stopped = true;
+        LockSupport.unpark(prober.thread);
+        prober = null;
+        thread.interrupt();
+        if (thread != Thread.currentThread()) {
+            thread.join();
+        }
+        thread = null;
+    }
+
+    /**
+     * Determines if the poller is running.
+     *
+     * @return <code>true</code> if the poller is running
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Returns the interval between ticks.
+     *
+     * @return the interval between ticks, in nanoseconds
+     */
+    public long getPeriodNanos() {
+        return periodNanos;
+    }
+
+    /**
+     * Returns the number of ticks performed since the poller was created.
+     *
+     * @return the number of ticks
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Returns the number of times a disconnected device was probed.
+     *
+     * @return the number of probes
+     */
+    public long getProbes() {
+        return probes.get();
+    }
+
+    /**
+     * Returns the number of ticks skipped because the poller fell behind schedule.
+     *
+     * @return the number of missed deadlines
+     */
+    public long getMissedDeadlines() {
+        return missedDeadlines;
+    }
+
+    private void runLoop(final Prober prober) {
+        long deadline = System.nanoTime();
+        try {
+            while (running) {
+                pollDevices(prober);
+                ticks++;
+
+                deadline += periodNanos;
+                final long lateness = System.nanoTime() - deadline;
+                if (lateness >= periodNanos) {
+                    // skip the ticks that can no longer be made, but keep the original phase
+                    final long missed = lateness / periodNanos;
+                    deadline += missed * periodNanos;
+                    missedDeadlines += missed;
+                    final XInputPollerListener listener = this.listener;
+                    if (listener != null) {
+                        listener.deadlinesMissed(missed, lateness);
+                    }
+                }
+                waitStrategy.waitUntil(deadline);
+            }
+        } catch (final InterruptedException e) {
+            // stop() was called
+        }
+    }
+
+    private void pollDevices(final Prober prober) {
+        final long minInterval = minProbeIntervalNanos;
+        for (int i = 0; i < devices.length; i++) {
+            if (minInterval > 0 && prober.slotStates.get(i) == SLOT_PROBED) {
+                continue;
+            }
+            final XInputDevice device = devices[i];
+            try {
+                if (!device.poll() && minInterval > 0) {
+                    prober.probeIntervals[i] = minInterval;
+                    prober.nextProbes[i] = System.nanoTime() + minInterval;
+                    prober.slotStates.set(i, SLOT_PROBED);
+                    LockSupport.unpark(prober.thread);
+                }
+            } catch (final RuntimeException e) {
+                final XInputPollerListener listener = this.listener;
+                if (listener != null) {
+                    listener.pollFailed(device, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Probes the slots of disconnected devices and hands them back to the polling thread once they answer. Only reads
+     * from the backend, into its own buffer, so the devices are never touched outside the polling thread.
+     * <p>
+     * The slot states and probe schedules belong to one run of the poller and are shared only with its polling thread.
+     */
+    private class Prober implements Runnable {
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(16).order(ByteOrder.nativeOrder());// sizeof(XINPUT_STATE)
+        // A slot's probe schedule is written by the thread that owns it; ownership is handed over through slotStates
+        private final AtomicIntegerArray slotStates = new AtomicIntegerArray(devices.length);
+        private final long[] probeIntervals = new long[devices.length];
+        private final long[] nextProbes = new long[devices.length];
+        private volatile boolean stopped;
+        private Thread thread;
+
+        @Override
+        public void run() {
+            while (!stopped) {
+                long now = System.nanoTime();
+                // with nothing to probe, sleep until a device is handed over
+                long wakeUp = now + DEFAULT_MAX_PROBE_INTERVAL_NANOS;
+                for (int i = 0; i < devices.length && !stopped; i++) {
+                    if (slotStates.get(i) != SLOT_PROBED) {
+                        continue;
+                    }
+                    if (nextProbes[i] - now <= 0) {
+                        final boolean answered = probe(devices[i]);
+                        if (stopped) {
+                            break;
+                        }
+                        if (answered) {
+                            slotStates.set(i, SLOT_POLLED);
+                            continue;
+                        }
+                        now = System.nanoTime();
+                        probeIntervals[i] = Math.min(probeIntervals[i] * 2, maxProbeIntervalNanos);
+                        nextProbes[i] = now + probeIntervals[i];
+                    }
+                    if (nextProbes[i] - wakeUp < 0) {
+                        wakeUp = nextProbes[i];
+                    }
+                }
+                LockSupport.parkNanos(this, wakeUp - System.nanoTime());
+            }
+        }
+
+        /**
+         * Determines whether the device answers. Any answer other than "not connected", including errors, hands the
+         * device back to the polling thread, which reports them.
+         */
+        private boolean probe(final XInputDevice device) {
+            probes.incrementAndGet();
+            try {
+                return XInputDevice.getBackend().pollDevice(device.getPlayerNum(), buffer) != XInputConstants.ERROR_DEVICE_NOT_CONNECTED;
+            } catch (final RuntimeException e) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.github.strikerx3.jxinput.poller;
+
+import com.github.strikerx3.jxinput.XInputDevice;
+
+/**
+ * Receives notifications about the health of an {@link XInputPoller}.
+ * All methods are invoked from the polling thread.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public interface XInputPollerListener {
+    /**
+     * Called when the poller falls so far behind schedule that one or more ticks had to be skipped.
+     *
+     * @param missedTicks the number of ticks skipped
+     * @param latenessNanos how late the poller was, in nanoseconds, when it noticed the missed ticks
+     */
+    void deadlinesMissed(long missedTicks, long latenessNanos);
+
+    /**
+     * Called when polling a device throws an exception. The poller keeps running.
+     *
+     * @param device the device that failed to be polled
+     * @param error the exception
+     */
+    void pollFailed(XInputDevice device, RuntimeException error);
+}
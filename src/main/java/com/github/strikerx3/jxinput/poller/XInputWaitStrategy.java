@@ -0,0 +1,18 @@
+package com.github.strikerx3.jxinput.poller;
+
+/**
+ * Determines how the {@link XInputPoller} waits for the next tick.
+ * See {@link StandardXInputWaitStrategy} for the available implementations.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public interface XInputWaitStrategy {
+    /**
+     * Blocks until {@link System#nanoTime()} reaches the given deadline. Implementations may return slightly after the
+     * deadline, but must never return before it.
+     *
+     * @param deadline the deadline, in {@link System#nanoTime()} units
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    void waitUntil(long deadline) throws InterruptedException;
+}
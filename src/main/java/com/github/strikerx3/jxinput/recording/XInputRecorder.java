@@ -0,0 +1,331 @@
+package com.github.strikerx3.jxinput.recording;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.github.strikerx3.jxinput.natives.XInputConstants;
+
+/**
+ * Records the raw {@code XINPUT_STATE} structs read by devices into a file that can be played back with a
+ * {@link com.github.strikerx3.jxinput.backend.ReplayXInputBackend ReplayXInputBackend}.
+ * <p>
+ * Attach the recorder to devices with
+ * {@link com.github.strikerx3.jxinput.XInputDevice#setRecorder(XInputRecorder) XInputDevice.setRecorder}. Every poll
+ * that reads a new state (a new packet number or a different return code) is stamped with {@link System#nanoTime()}
+ * and copied into a preallocated ring; polls that read the same state are skipped. A background thread drains the ring
+ * and writes the records to a memory-mapped file, so the polling thread never performs I/O. All devices attached to the
+ * same recorder must be polled from the same thread.
+ * <p>
+ * If the writer falls a full ring behind, new records are dropped and counted in {@link #getDroppedRecords()}.
+ * Records are delta-encoded against the previous state of the same device, and a keyframe with the full state of all
+ * devices is written periodically and indexed so that playback can seek quickly.
+ * <p>
+ * The recorder must be {@linkplain #close() closed} to write the index. Recordings that were not closed can still be
+ * played back, but seeking requires a scan of the file.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public class XInputRecorder {
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final long startNanos = System.nanoTime();
+
+    // Ring shared by the polling thread (producer) and the writer thread (consumer)
+    private final int mask;
+    private final long[] timestamps;
+    private final int[] players;
+    private final int[] returnCodes;
+    private final long[] states;// two longs per record
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private volatile long droppedRecords;
+
+    // Only accessed by the producer: the last state recorded for each device
+    private final int[] lastReturnCodes = new int[XInputConstants.MAX_PLAYERS];
+    private final int[] lastPacketNumbers = new int[XInputConstants.MAX_PLAYERS];
+    private final boolean[] hasLastState = new boolean[XInputConstants.MAX_PLAYERS];
+
+    private final Thread writer;
+    private volatile boolean running = true;
+    private volatile long writtenRecords;
+    private volatile IOException error;
+
+    /**
+     * Creates a recorder that writes to the specified file, with room for 4096 pending records.
+     *
+     * @param file the file to write to; any existing contents are replaced
+     * @throws IOException if the file cannot be opened
+     */
+    public XInputRecorder(final File file) throws IOException {
+        this(file, 4096);
+    }
+
+    /**
+     * Creates a recorder that writes to the specified file.
+     *
+     * @param file the file to write to; any existing contents are replaced
+     * @param capacity the maximum number of records pending to be written; must be a power of two
+     * @throws IOException if the file cannot be opened
+     * @throws IllegalArgumentException if the capacity is not a positive power of two
+     */
+    public XInputRecorder(final File file, final int capacity) throws IOException {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a positive power of two: " + capacity);
+        }
+        mask = capacity - 1;
+        timestamps = new long[capacity];
+        players = new int[capacity];
+        returnCodes = new int[capacity];
+        states = new long[capacity * 2];
+
+        this.file = new RandomAccessFile(file, "rw");
+        this.file.setLength(0);
+        channel = this.file.getChannel();
+
+        writer = new Thread(new Writer(), "XInputRecorder");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Records the state read by a device. Called by {@link com.github.strikerx3.jxinput.XInputDevice XInputDevice} on
+     * every poll; must only be called from the polling thread.
+     *
+     * @param playerNum the player number
+     * @param ret the return code of the call that read the state
+     * @param state the buffer containing the {@code XINPUT_STATE} struct
+     * @return <code>false</code> if the record was dropped because the writer fell behind
+     */
+    public boolean record(final int playerNum, final int ret, final ByteBuffer state) {
+        final boolean success = ret == XInputConstants.ERROR_SUCCESS;
+        final int packetNumber = success ? state.getInt(0) : 0;
+        if (hasLastState[playerNum] && ret == lastReturnCodes[playerNum] && packetNumber == lastPacketNumbers[playerNum]) {
+            return true;
+        }
+
+        final long sequence = published.get();
+        if (sequence - consumed.get() > mask || !running) {
+            droppedRecords++;
+            return false;
+        }
+        hasLastState[playerNum] = true;
+        lastReturnCodes[playerNum] = ret;
+        lastPacketNumbers[playerNum] = packetNumber;
+
+        final int index = (int) sequence & mask;
+        timestamps[index] = System.nanoTime() - startNanos;
+        players[index] = playerNum;
+        returnCodes[index] = ret;
+        states[index * 2] = success ? state.getLong(0) : 0L;
+        states[index * 2 + 1] = success ? state.getLong(8) : 0L;
+        published.lazySet(sequence + 1);
+        return true;
+    }
+
+    /**
+     * Returns the number of records dropped because the writer fell a full ring behind.
+     *
+     * @return the number of dropped records
+     */
+    public long getDroppedRecords() {
+        return droppedRecords;
+    }
+
+    /**
+     * Returns the number of records written to the file so far.
+     *
+     * @return the number of written records
+     */
+    public long getWrittenRecords() {
+        return writtenRecords;
+    }
+
+    /**
+     * Stops recording, writes the pending records and the index and closes the file. Records submitted after this
+     * method is called are dropped.
+     *
+     * @throws IOException if the recording could not be written
+     * @throws InterruptedException if interrupted while waiting for the writer to finish
+     */
+    public void close() throws IOException, InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join();
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Drains the ring into the file.
+     */
+    private class Writer implements Runnable {
+        private final int chunkSize = XInputRecordingFormat.DEFAULT_CHUNK_SIZE;
+        private final int keyframeInterval = XInputRecordingFormat.DEFAULT_KEYFRAME_INTERVAL;
+
+        private MappedByteBuffer header;
+        private MappedByteBuffer chunk;
+        private long chunkStart;
+
+        // Current state of each device, as seen by the reader of the file
+        private final int[] currentReturnCodes = new int[XInputConstants.MAX_PLAYERS];
+        private final byte[] currentStates = new byte[XInputConstants.MAX_PLAYERS * XInputRecordingFormat.STATE_SIZE];
+        private final ByteBuffer scratch = ByteBuffer.allocate(XInputRecordingFormat.STATE_SIZE)
+                                                     .order(ByteOrder.nativeOrder());
+        private long lastTimestamp;
+        private long recordCount;
+
+        private long[] indexTimestamps = new long[64];
+        private long[] indexOffsets = new long[64];
+        private int indexSize;
+
+        @Override
+        public void run() {
+            try {
+                Arrays.fill(currentReturnCodes, XInputConstants.ERROR_DEVICE_NOT_CONNECTED);
+                mapChunk(0);
+                header = chunk;
+                chunk.position(XInputRecordingFormat.HEADER_SIZE);
+                writeKeyframe();
+
+                while (true) {
+                    final boolean stopping = !running;
+                    final long end = published.get();
+                    long sequence = consumed.get();
+                    for (; sequence < end; sequence++) {
+                        writeRecord((int) sequence & mask);
+                        consumed.lazySet(sequence + 1);
+                        if (recordCount % keyframeInterval == 0) {
+                            writeKeyframe();
+                        }
+                    }
+                    if (stopping) {
+                        break;
+                    }
+                    LockSupport.parkNanos(1000000L);
+                }
+
+                finish();
+            } catch (final IOException e) {
+                error = e;
+            } catch (final RuntimeException e) {
+                error = new IOException("Could not write recording", e);
+            } finally {
+                running = false;
+                try {
+                    channel.close();
+                    file.close();
+                } catch (final IOException e) {
+                    if (error == null) {
+                        error = e;
+                    }
+                }
+            }
+        }
+
+        private void writeRecord(final int index) throws IOException {
+            ensureRoom(XInputRecordingFormat.MAX_RECORD_SIZE);
+            final int player = players[index];
+            final int ret = returnCodes[index];
+            final long timestamp = Math.max(timestamps[index], lastTimestamp);
+
+            chunk.put(XInputRecordingFormat.TAG_RECORD);
+            XInputRecordingFormat.putVarLong(chunk, timestamp - lastTimestamp);
+            lastTimestamp = timestamp;
+
+            final boolean retChanged = ret != currentReturnCodes[player];
+            chunk.put((byte) (player | (retChanged ? XInputRecordingFormat.RETURN_CODE_CHANGED : 0)));
+            if (retChanged) {
+                chunk.putInt(ret);
+                currentReturnCodes[player] = ret;
+            }
+
+            scratch.putLong(0, states[index * 2]);
+            scratch.putLong(8, states[index * 2 + 1]);
+            final int base = player * XInputRecordingFormat.STATE_SIZE;
+            int changed = 0;
+            for (int i = 0; i < XInputRecordingFormat.STATE_SIZE; i++) {
+                if (scratch.get(i) != currentStates[base + i]) {
+                    changed |= 1 << i;
+                }
+            }
+            chunk.putShort((short) changed);
+            for (int i = 0; i < XInputRecordingFormat.STATE_SIZE; i++) {
+                if ((changed & 1 << i) != 0) {
+                    final byte value = scratch.get(i);
+                    chunk.put(value);
+                    currentStates[base + i] = value;
+                }
+            }
+
+            recordCount++;
+            writtenRecords = recordCount;
+        }
+
+        private void writeKeyframe() throws IOException {
+            ensureRoom(XInputRecordingFormat.KEYFRAME_SIZE);
+            if (indexSize == indexTimestamps.length) {
+                indexTimestamps = Arrays.copyOf(indexTimestamps, indexSize * 2);
+                indexOffsets = Arrays.copyOf(indexOffsets, indexSize * 2);
+            }
+            indexTimestamps[indexSize] = lastTimestamp;
+            indexOffsets[indexSize] = chunkStart + chunk.position();
+            indexSize++;
+
+            chunk.put(XInputRecordingFormat.TAG_KEYFRAME);
+            chunk.putLong(lastTimestamp);
+            for (int player = 0; player < currentReturnCodes.length; player++) {
+                chunk.putInt(currentReturnCodes[player]);
+                chunk.put(currentStates, player * XInputRecordingFormat.STATE_SIZE, XInputRecordingFormat.STATE_SIZE);
+            }
+        }
+
+        private void finish() throws IOException {
+            ensureRoom(1);
+            chunk.put(XInputRecordingFormat.TAG_END);
+            final long indexOffset = chunkStart + chunk.position();
+
+            final MappedByteBuffer index = channel.map(FileChannel.MapMode.READ_WRITE, indexOffset, 4 + indexSize * 16L);
+            index.order(ByteOrder.LITTLE_ENDIAN);
+            index.putInt(indexSize);
+            for (int i = 0; i < indexSize; i++) {
+                index.putLong(indexTimestamps[i]);
+                index.putLong(indexOffsets[i]);
+            }
+            index.force();
+            chunk.force();
+
+            header.putLong(XInputRecordingFormat.HEADER_INDEX_OFFSET, indexOffset);
+            header.putLong(XInputRecordingFormat.HEADER_RECORD_COUNT, recordCount);
+            header.force();
+        }
+
+        private void ensureRoom(final int size) throws IOException {
+            // always leave room for the tag that skips to the next chunk
+            if (chunk.remaining() < size + 1) {
+                chunk.put(XInputRecordingFormat.TAG_NEXT_CHUNK);
+                mapChunk(chunkStart + chunkSize);
+            }
+        }
+
+        private void mapChunk(final long start) throws IOException {
+            chunkStart = start;
+            chunk = channel.map(FileChannel.MapMode.READ_WRITE, start, chunkSize);
+            chunk.order(ByteOrder.LITTLE_ENDIAN);
+            if (start == 0) {
+                chunk.putInt(0, XInputRecordingFormat.MAGIC);
+                chunk.putShort(4, XInputRecordingFormat.VERSION);
+                chunk.putInt(8, chunkSize);
+                chunk.putInt(12, keyframeInterval);
+            }
+        }
+    }
+}
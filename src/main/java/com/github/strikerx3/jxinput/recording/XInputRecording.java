@@ -0,0 +1,398 @@
+package com.github.strikerx3.jxinput.recording;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import com.github.strikerx3.jxinput.natives.XInputConstants;
+
+/**
+ * A recording written by an {@link XInputRecorder}, opened for reading.
+ * <p>
+ * The file is memory-mapped chunk by chunk. The recording itself is immutable and may be shared across threads; each
+ * {@link Cursor} reads it independently and must only be used by one thread at a time.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public class XInputRecording {
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final long length;
+    private final int chunkSize;
+    private final long recordCount;
+    private final long duration;
+
+    private final long[] indexTimestamps;
+    private final long[] indexOffsets;
+
+    /**
+     * Opens a recording.
+     *
+     * @param file the recording file
+     * @throws IOException if the file cannot be read or is not a valid recording
+     */
+    public XInputRecording(final File file) throws IOException {
+        this.file = new RandomAccessFile(file, "r");
+        channel = this.file.getChannel();
+        length = channel.size();
+        try {
+            if (length < XInputRecordingFormat.HEADER_SIZE) {
+                throw new IOException("Not a JXInput recording: " + file);
+            }
+            final ByteBuffer header = map(0, XInputRecordingFormat.HEADER_SIZE);
+            if (header.getInt(0) != XInputRecordingFormat.MAGIC) {
+                throw new IOException("Not a JXInput recording: " + file);
+            }
+            if (header.getShort(4) != XInputRecordingFormat.VERSION) {
+                throw new IOException("Unsupported recording version: " + header.getShort(4));
+            }
+            chunkSize = header.getInt(8);
+            final long indexOffset = header.getLong(XInputRecordingFormat.HEADER_INDEX_OFFSET);
+
+            if (indexOffset != 0) {
+                final ByteBuffer index = map(indexOffset, length - indexOffset);
+                final int count = index.getInt();
+                indexTimestamps = new long[count];
+                indexOffsets = new long[count];
+                for (int i = 0; i < count; i++) {
+                    indexTimestamps[i] = index.getLong();
+                    indexOffsets[i] = index.getLong();
+                }
+                recordCount = header.getLong(XInputRecordingFormat.HEADER_RECORD_COUNT);
+                final Cursor cursor = new Cursor();
+                cursor.seek(indexTimestamps[count - 1]);
+                while (cursor.next() >= 0) {}
+                duration = cursor.getTimestamp();
+            } else {
+                // the recording was not closed; rebuild the index by scanning the whole file
+                final Cursor cursor = new Cursor();
+                final long[][] index = cursor.scan();
+                indexTimestamps = index[0];
+                indexOffsets = index[1];
+                recordCount = cursor.records;
+                duration = cursor.getTimestamp();
+            }
+        } catch (final IOException e) {
+            close();
+            throw e;
+        } catch (final RuntimeException e) {
+            close();
+            throw new IOException("Corrupt recording: " + file, e);
+        }
+    }
+
+    private ByteBuffer map(final long position, final long size) throws IOException {
+        final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    /**
+     * Returns the number of records in the recording.
+     *
+     * @return the number of records
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Returns the timestamp of the last record, relative to the start of the recording.
+     *
+     * @return the duration of the recording, in nanoseconds
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * Returns the number of keyframes in the recording. Keyframes split the recording into segments that can be read
+     * independently, by {@linkplain Cursor#seek(long) seeking} to the timestamp of a keyframe.
+     *
+     * @return the number of keyframes
+     */
+    public int getKeyframeCount() {
+        return indexTimestamps.length;
+    }
+
+    /**
+     * Returns the timestamp of a keyframe.
+     *
+     * @param keyframe the index of the keyframe
+     * @return the timestamp, in nanoseconds since the start of the recording
+     */
+    public long getKeyframeTimestamp(final int keyframe) {
+        return indexTimestamps[keyframe];
+    }
+
+    /**
+     * Creates a new cursor positioned at the start of the recording.
+     *
+     * @return the new cursor
+     */
+    public Cursor newCursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Closes the recording file. Cursors must not be used afterwards.
+     *
+     * @throws IOException if the file could not be closed
+     */
+    public void close() throws IOException {
+        channel.close();
+        file.close();
+    }
+
+    /**
+     * Reads the records of a recording in order and keeps the state of every device as of the last record read.
+     */
+    public class Cursor {
+        private ByteBuffer chunk;
+        private long chunkStart = -1;
+
+        private long timestamp;
+        private final int[] returnCodes = new int[XInputConstants.MAX_PLAYERS];
+        private final byte[] states = new byte[XInputConstants.MAX_PLAYERS * XInputRecordingFormat.STATE_SIZE];
+
+        // The next record, decoded ahead of time so that its timestamp can be inspected
+        private boolean hasNext;
+        private long nextTimestamp;
+        private int nextPlayer;
+        private int nextReturnCode;
+        private int nextMask;
+        private final byte[] nextBytes = new byte[XInputRecordingFormat.STATE_SIZE];
+
+        private long records;// only used while scanning
+
+        private Cursor() {
+            try {
+                rewind();
+            } catch (final IOException e) {
+                throw new IllegalStateException("Could not read recording", e);
+            }
+        }
+
+        /**
+         * Moves the cursor back to the start of the recording.
+         *
+         * @throws IOException if the recording cannot be read
+         */
+        public void rewind() throws IOException {
+            Arrays.fill(returnCodes, XInputConstants.ERROR_DEVICE_NOT_CONNECTED);
+            Arrays.fill(states, (byte) 0);
+            timestamp = 0;
+            position(XInputRecordingFormat.HEADER_SIZE);
+            prefetch();
+        }
+
+        /**
+         * Moves the cursor to the last record at or before the specified timestamp, using the keyframe index to skip
+         * most of the recording.
+         *
+         * @param target the timestamp, in nanoseconds since the start of the recording
+         * @throws IOException if the recording cannot be read
+         */
+        public void seek(final long target) throws IOException {
+            int keyframe = Arrays.binarySearch(indexTimestamps, target);
+            if (keyframe < 0) {
+                keyframe = -keyframe - 2;
+            } else {
+                // several keyframes may share a timestamp; start from the first one
+                while (keyframe > 0 && indexTimestamps[keyframe - 1] == target) {
+                    keyframe--;
+                }
+            }
+            if (keyframe < 0) {
+                rewind();
+            } else {
+                position(indexOffsets[keyframe]);
+                prefetch();
+            }
+            while (hasNext && nextTimestamp <= target) {
+                next();
+            }
+        }
+
+        /**
+         * Returns the timestamp of the next record, without reading it.
+         *
+         * @return the timestamp of the next record, or {@link Long#MAX_VALUE} if there are no more records
+         */
+        public long peekTimestamp() {
+            return hasNext ? nextTimestamp : Long.MAX_VALUE;
+        }
+
+        /**
+         * Returns the player number of the next record, without reading it.
+         *
+         * @return the player number of the next record, or -1 if there are no more records
+         */
+        public int peekPlayer() {
+            return hasNext ? nextPlayer : -1;
+        }
+
+        /**
+         * Reads the next record and updates the state of its device.
+         *
+         * @return the player number of the record, or -1 if there are no more records
+         * @throws IOException if the recording cannot be read
+         */
+        public int next() throws IOException {
+            if (!hasNext) {
+                return -1;
+            }
+            final int player = apply();
+            prefetch();
+            return player;
+        }
+
+        private int apply() {
+            final int player = nextPlayer;
+            timestamp = nextTimestamp;
+            returnCodes[player] = nextReturnCode;
+            final int base = player * XInputRecordingFormat.STATE_SIZE;
+            for (int i = 0; i < XInputRecordingFormat.STATE_SIZE; i++) {
+                if ((nextMask & 1 << i) != 0) {
+                    states[base + i] = nextBytes[i];
+                }
+            }
+            hasNext = false;
+            return player;
+        }
+
+        /**
+         * Returns the timestamp of the last record read.
+         *
+         * @return the timestamp, in nanoseconds since the start of the recording
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * Returns the return code of the last {@code XInputGetState} call recorded for a device.
+         *
+         * @param playerNum the player number
+         * @return the XInput return code
+         */
+        public int getReturnCode(final int playerNum) {
+            return returnCodes[playerNum];
+        }
+
+        /**
+         * Copies the last {@code XINPUT_STATE} struct recorded for a device into a buffer, without changing its
+         * position.
+         *
+         * @param playerNum the player number
+         * @param data the buffer to copy the struct into
+         * @param offset the index at which to write the struct
+         */
+        public void copyState(final int playerNum, final ByteBuffer data, final int offset) {
+            final int base = playerNum * XInputRecordingFormat.STATE_SIZE;
+            for (int i = 0; i < XInputRecordingFormat.STATE_SIZE; i++) {
+                data.put(offset + i, states[base + i]);
+            }
+        }
+
+        private void position(final long offset) throws IOException {
+            final long start = offset - offset % chunkSize;
+            if (start != chunkStart) {
+                chunkStart = start;
+                chunk = map(start, Math.min(chunkSize, length - start));
+            }
+            chunk.position((int) (offset - start));
+        }
+
+        /**
+         * Decodes entries up to the next record. Keyframes found along the way are applied to the state; since they
+         * hold the state as of the previous record, this only has an effect right after seeking.
+         */
+        private void prefetch() throws IOException {
+            hasNext = false;
+            byte tag;
+            do {
+                tag = readEntry();
+            } while (tag != XInputRecordingFormat.TAG_RECORD && tag != XInputRecordingFormat.TAG_END);
+        }
+
+        /**
+         * Decodes one entry. Records are staged as the next record; keyframes are applied immediately.
+         *
+         * @return the tag of the entry, or {@link XInputRecordingFormat#TAG_END} at the end of the recording
+         */
+        private byte readEntry() throws IOException {
+            if (!chunk.hasRemaining()) {
+                return XInputRecordingFormat.TAG_END;
+            }
+            final byte tag = chunk.get();
+            switch (tag) {
+                case XInputRecordingFormat.TAG_RECORD:
+                    nextTimestamp = timestamp + XInputRecordingFormat.getVarLong(chunk);
+                    final int player = chunk.get() & 0xFF;
+                    nextPlayer = player & ~XInputRecordingFormat.RETURN_CODE_CHANGED;
+                    nextReturnCode = (player & XInputRecordingFormat.RETURN_CODE_CHANGED) != 0 ? chunk.getInt() : returnCodes[nextPlayer];
+                    nextMask = chunk.getShort() & 0xFFFF;
+                    for (int i = 0; i < XInputRecordingFormat.STATE_SIZE; i++) {
+                        if ((nextMask & 1 << i) != 0) {
+                            nextBytes[i] = chunk.get();
+                        }
+                    }
+                    hasNext = true;
+                    return tag;
+                case XInputRecordingFormat.TAG_KEYFRAME:
+                    timestamp = chunk.getLong();
+                    for (int i = 0; i < returnCodes.length; i++) {
+                        returnCodes[i] = chunk.getInt();
+                        chunk.get(states, i * XInputRecordingFormat.STATE_SIZE, XInputRecordingFormat.STATE_SIZE);
+                    }
+                    return tag;
+                case XInputRecordingFormat.TAG_NEXT_CHUNK:
+                    if (chunkStart + chunkSize >= length) {
+                        return XInputRecordingFormat.TAG_END;
+                    }
+                    position(chunkStart + chunkSize);
+                    return tag;
+                default:
+                    return XInputRecordingFormat.TAG_END;
+            }
+        }
+
+        /**
+         * Reads the whole recording, collecting the timestamps and offsets of the keyframes.
+         */
+        private long[][] scan() throws IOException {
+            long[] timestamps = new long[64];
+            long[] offsets = new long[64];
+            int size = 0;
+            records = 0;
+            hasNext = false;
+            position(XInputRecordingFormat.HEADER_SIZE);
+            while (true) {
+                final long offset = chunkStart + chunk.position();
+                final byte tag = readEntry();
+                if (tag == XInputRecordingFormat.TAG_END) {
+                    break;
+                }
+                if (tag == XInputRecordingFormat.TAG_KEYFRAME) {
+                    if (size == timestamps.length) {
+                        timestamps = Arrays.copyOf(timestamps, size * 2);
+                        offsets = Arrays.copyOf(offsets, size * 2);
+                    }
+                    timestamps[size] = timestamp;
+                    offsets[size] = offset;
+                    size++;
+                } else if (tag == XInputRecordingFormat.TAG_RECORD) {
+                    apply();
+                    records++;
+                }
+            }
+            return new long[][] { Arrays.copyOf(timestamps, size), Arrays.copyOf(offsets, size) };
+        }
+    }
+}
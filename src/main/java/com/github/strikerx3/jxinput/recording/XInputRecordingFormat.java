@@ -0,0 +1,95 @@
+package com.github.strikerx3.jxinput.recording;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Describes the layout of recording files.
+ * <p>
+ * A recording starts with a header, followed by a stream of entries and, once the recording is closed, an index of
+ * keyframes. All values are little-endian.
+ *
+ * <pre>
+ * header (32 bytes)
+ *     int   magic ("JXIR")
+ *     short version
+ *     short reserved
+ *     int   chunk size
+ *     int   keyframe interval
+ *     long  index offset (0 if the recording was not closed properly)
+ *     long  record count
+ *
+ * record
+ *     byte   TAG_RECORD
+ *     varlong time since the previous record or keyframe, in nanoseconds
+ *     byte   player number, with bit 7 set if the return code changed
+ *     [int   return code, if changed]
+ *     short  mask of the XINPUT_STATE bytes that changed
+ *     byte[] the changed bytes
+ *
+ * keyframe
+ *     byte   TAG_KEYFRAME
+ *     long   timestamp, in nanoseconds
+ *     MAX_PLAYERS times:
+ *         int    return code
+ *         byte[] XINPUT_STATE (16 bytes)
+ *
+ * index
+ *     int count
+ *     count times:
+ *         long timestamp of the keyframe
+ *         long offset of the keyframe
+ * </pre>
+ *
+ * The file is written through memory-mapped chunks. An entry never crosses a chunk boundary: when there is no room
+ * left for the next entry, a {@link #TAG_NEXT_CHUNK} tag tells the reader to skip to the next chunk. The stream of
+ * entries ends with {@link #TAG_END} (or the zeros of unwritten space if the recording was not closed).
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+final class XInputRecordingFormat {
+    private XInputRecordingFormat() {}
+
+    static final int MAGIC = 0x5249584A;// "JXIR"
+    static final short VERSION = 1;
+
+    static final int HEADER_SIZE = 32;
+    static final int HEADER_INDEX_OFFSET = 16;
+    static final int HEADER_RECORD_COUNT = 24;
+
+    static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+    static final int DEFAULT_KEYFRAME_INTERVAL = 1024;
+
+    static final int STATE_SIZE = 16;// sizeof(XINPUT_STATE)
+
+    static final byte TAG_END = 0;
+    static final byte TAG_RECORD = 1;
+    static final byte TAG_KEYFRAME = 2;
+    static final byte TAG_NEXT_CHUNK = 3;
+
+    static final int RETURN_CODE_CHANGED = 0x80;
+
+    // tag + varlong + player + return code + mask + state
+    static final int MAX_RECORD_SIZE = 1 + 10 + 1 + 4 + 2 + STATE_SIZE;
+    // tag + timestamp + (return code + state) per player
+    static final int KEYFRAME_SIZE = 1 + 8 + 4 * (4 + STATE_SIZE);
+
+    static void putVarLong(final ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static long getVarLong(final ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+}
@@ -0,0 +1,86 @@
+package com.github.strikerx3.jxinput.vibration;
+
+/**
+ * An ADSR envelope: the amplitude ramps up to 1 during the attack, down to the sustain level during the decay, holds
+ * the sustain level and then fades out to 0 during the release.
+ * <p>
+ * The release starts once the sustain time is over or the effect is {@linkplain XInputHapticHandle#release() released},
+ * whichever comes first. Releasing the effect during the attack or decay fades out from the amplitude it had at that
+ * moment. Use a negative sustain time to hold the sustain level until the effect is released, such as for an engine
+ * that rumbles while the throttle is held.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public final class XInputEnvelopeEffect extends XInputHapticEffect {
+    private final long attackNanos;
+    private final long decayNanos;
+    private final float sustainLevel;
+    private final long sustainNanos;
+    private final long releaseNanos;
+
+    /**
+     * Creates an envelope.
+     *
+     * @param attackMillis the time to ramp up to full amplitude, in milliseconds
+     * @param decayMillis the time to ramp down to the sustain level, in milliseconds
+     * @param sustainLevel the amplitude held after the decay, from 0 to 1
+     * @param sustainMillis the time the sustain level is held, in milliseconds, or a negative value to hold it until the
+     *            effect is released
+     * @param releaseMillis the time to fade out to 0, in milliseconds
+     * @throws IllegalArgumentException if a time other than the sustain time is negative or the sustain level is out of
+     *             range
+     */
+    public XInputEnvelopeEffect(final long attackMillis, final long decayMillis, final float sustainLevel, final long sustainMillis,
+            final long releaseMillis) {
+        attackNanos = toNanos("Attack time", attackMillis);
+        decayNanos = toNanos("Decay time", decayMillis);
+        this.sustainLevel = checkLevel("Sustain level", sustainLevel);
+        sustainNanos = sustainMillis < 0 ? -1L : sustainMillis * 1000000L;
+        releaseNanos = toNanos("Release time", releaseMillis);
+    }
+
+    @Override
+    public float getAmplitude(final long elapsedNanos, final long releasedNanos) {
+        long releaseStart = sustainNanos < 0 ? Long.MAX_VALUE : attackNanos + decayNanos + sustainNanos;
+        if (releasedNanos != NOT_RELEASED && releasedNanos < releaseStart) {
+            releaseStart = releasedNanos;
+        }
+        if (elapsedNanos < releaseStart) {
+            return getLevel(elapsedNanos);
+        }
+        final long releasing = elapsedNanos - releaseStart;
+        if (releasing >= releaseNanos) {
+            return FINISHED;
+        }
+        return getLevel(releaseStart) * (1f - (float) releasing / releaseNanos);
+    }
+
+    private float getLevel(final long elapsedNanos) {
+        if (elapsedNanos < attackNanos) {
+            return (float) elapsedNanos / attackNanos;
+        }
+        final long decaying = elapsedNanos - attackNanos;
+        if (decaying < decayNanos) {
+            return 1f - (1f - sustainLevel) * decaying / decayNanos;
+        }
+        return sustainLevel;
+    }
+
+    /**
+     * Returns the sustain level.
+     *
+     * @return the amplitude held after the decay, from 0 to 1
+     */
+    public float getSustainLevel() {
+        return sustainLevel;
+    }
+
+    /**
+     * Determines if the sustain level is held until the effect is released.
+     *
+     * @return <code>true</code> if the effect only ends after being released
+     */
+    public boolean isHeldUntilReleased() {
+        return sustainNanos < 0;
+    }
+}
@@ -0,0 +1,47 @@
+package com.github.strikerx3.jxinput.vibration;
+
+/**
+ * The shape of a haptic effect: its amplitude over time, from 0 (motors off) to 1 (full strength).
+ * <p>
+ * Effects are immutable and may be played any number of times, on any number of devices, through an
+ * {@link XInputHapticEngine}. The engine scales the amplitude by the strength given for each motor when the effect is
+ * played and samples it once per tick from its scheduler thread, so implementations must be thread-safe and cheap, and
+ * should not allocate.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public abstract class XInputHapticEffect {
+    /**
+     * Returned by {@link #getAmplitude(long, long)} once the effect is over.
+     */
+    public static final float FINISHED = -1f;
+
+    /**
+     * Passed to {@link #getAmplitude(long, long)} while the effect has not been released.
+     */
+    public static final long NOT_RELEASED = -1L;
+
+    /**
+     * Returns the amplitude of the effect at the given time.
+     *
+     * @param elapsedNanos the time since the effect started playing, in nanoseconds
+     * @param releasedNanos the time since the effect started playing at which it was
+     *            {@linkplain XInputHapticHandle#release() released}, in nanoseconds, or {@link #NOT_RELEASED}
+     * @return the amplitude, from 0 to 1, or {@link #FINISHED} if the effect is over
+     */
+    public abstract float getAmplitude(long elapsedNanos, long releasedNanos);
+
+    static long toNanos(final String name, final long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException(name + " must not be negative: " + millis);
+        }
+        return millis * 1000000L;
+    }
+
+    static float checkLevel(final String name, final float level) {
+        if (!(level >= 0f && level <= 1f)) {
+            throw new IllegalArgumentException(name + " out of range (0..1): " + level);
+        }
+        return level;
+    }
+}
@@ -0,0 +1,328 @@
+package com.github.strikerx3.jxinput.vibration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import com.github.strikerx3.jxinput.XInputDevice;
+
+/**
+ * Plays layered haptic effects on any number of devices from a single scheduler thread.
+ * <p>
+ * On every tick, the engine samples the effects playing on each device and mixes them into one pair of motor speeds,
+ * which are written through the device's {@link XInputVibrationOutput}: at most one write per device per tick, and none
+ * when the speeds did not change. When no effects are playing and every motor is stopped, the thread sleeps until the
+ * next effect is played.
+ * <p>
+ * Effects are mixed by priority. Only the effects with the highest priority among those playing on a device are heard;
+ * their amplitudes, scaled by each motor's strength, are added together and clamped to full speed. Lower priority
+ * effects keep running while muted and are heard again once the higher priority effects end. For example, an engine
+ * rumble played at priority 0 is cut out by an impact played at priority 10 and comes back after it.
+ * <p>
+ * The engine owns the vibration of the devices it plays effects on; calling {@link XInputDevice#setVibration(int, int)}
+ * directly on them will be overridden on the next tick.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public class XInputHapticEngine {
+    /**
+     * The default tick rate: 60 ticks per second.
+     */
+    public static final int DEFAULT_RATE_HZ = 60;
+
+    private final long periodNanos;
+    private final int outputRateHz;
+
+    // Copy-on-write, so the scheduler thread can walk the channels without locking or allocating
+    private volatile Channel[] channels = new Channel[0];
+
+    private volatile long ticks;
+
+    private volatile Thread thread;
+    private volatile boolean running;
+
+    /**
+     * Creates an engine that ticks {@value #DEFAULT_RATE_HZ} times per second.
+     */
+    public XInputHapticEngine() {
+        this(DEFAULT_RATE_HZ);
+    }
+
+    /**
+     * Creates an engine.
+     *
+     * @param rateHz the tick rate, in ticks per second
+     * @throws IllegalArgumentException if the rate is not positive
+     */
+    public XInputHapticEngine(final int rateHz) {
+        if (rateHz <= 0) {
+            throw new IllegalArgumentException("Tick rate must be positive: " + rateHz);
+        }
+        periodNanos = 1000000000L / rateHz;
+        // leave room for scheduling jitter; the engine never flushes more than once per tick
+        outputRateHz = rateHz * 2;
+    }
+
+    /**
+     * Plays an effect on a device at priority 0.
+     *
+     * @param device the device
+     * @param effect the effect
+     * @param leftStrength the strength of the left (low-frequency) motor, from 0 to 1
+     * @param rightStrength the strength of the right (high-frequency) motor, from 0 to 1
+     * @return a handle to release or stop the effect
+     * @throws IllegalArgumentException if a strength is out of range
+     */
+    public XInputHapticHandle play(final XInputDevice device, final XInputHapticEffect effect, final float leftStrength,
+            final float rightStrength) {
+        return play(device, effect, leftStrength, rightStrength, 0);
+    }
+
+    /**
+     * Plays an effect on a device. The effect starts right away; if the engine is not running, it is heard once the
+     * engine is started.
+     *
+     * @param device the device
+     * @param effect the effect
+     * @param leftStrength the strength of the left (low-frequency) motor, from 0 to 1
+     * @param rightStrength the strength of the right (high-frequency) motor, from 0 to 1
+     * @param priority the priority; higher priority effects mute lower priority ones while they play
+     * @return a handle to release or stop the effect
+     * @throws IllegalArgumentException if a strength is out of range
+     */
+    public XInputHapticHandle play(final XInputDevice device, final XInputHapticEffect effect, final float leftStrength,
+            final float rightStrength, final int priority) {
+        if (device == null) {
+            throw new IllegalArgumentException("Device cannot be null");
+        }
+        if (effect == null) {
+            throw new IllegalArgumentException("Effect cannot be null");
+        }
+        XInputHapticEffect.checkLevel("Left motor strength", leftStrength);
+        XInputHapticEffect.checkLevel("Right motor strength", rightStrength);
+        final XInputHapticHandle handle = new XInputHapticHandle(device, effect, leftStrength, rightStrength, priority);
+        final Channel channel = getChannel(device);
+        synchronized (channel) {
+            channel.handles.add(handle);
+        }
+        final Thread thread = this.thread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+        return handle;
+    }
+
+    /**
+     * Stops every effect playing on a device and stops its motors right away.
+     *
+     * @param device the device
+     */
+    public void stopAll(final XInputDevice device) {
+        final Channel channel = findChannel(device);
+        if (channel != null) {
+            channel.stopAll();
+        }
+    }
+
+    /**
+     * Returns the output the engine writes to a device through, to inspect its counters.
+     *
+     * @param device the device
+     * @return the output, or <code>null</code> if no effect was ever played on the device
+     */
+    public XInputVibrationOutput getVibrationOutput(final XInputDevice device) {
+        final Channel channel = findChannel(device);
+        return channel == null ? null : channel.output;
+    }
+
+    /**
+     * Starts the scheduler thread. Does nothing if the engine is already running.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                runLoop();
+            }
+        }, "XInputHapticEngine");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the scheduler thread, then stops every effect and the motors of every device the engine played on.
+     *
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the scheduler thread
+     */
+    public synchronized void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(thread);
+        if (thread != Thread.currentThread()) {
+            thread.join();
+        }
+        thread = null;
+        for (final Channel channel : channels) {
+            channel.stopAll();
+        }
+    }
+
+    /**
+     * Determines if the engine is running.
+     *
+     * @return <code>true</code> if the engine is running
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Returns the interval between ticks.
+     *
+     * @return the interval between ticks, in nanoseconds
+     */
+    public long getPeriodNanos() {
+        return periodNanos;
+    }
+
+    /**
+     * Returns the number of ticks performed since the engine was created.
+     *
+     * @return the number of ticks
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    private Channel findChannel(final XInputDevice device) {
+        for (final Channel channel : channels) {
+            if (channel.output.getDevice() == device) {
+                return channel;
+            }
+        }
+        return null;
+    }
+
+    private synchronized Channel getChannel(final XInputDevice device) {
+        Channel channel = findChannel(device);
+        if (channel == null) {
+            channel = new Channel(new XInputVibrationOutput(device, outputRateHz));
+            final Channel[] newChannels = new Channel[channels.length + 1];
+            System.arraycopy(channels, 0, newChannels, 0, channels.length);
+            newChannels[channels.length] = channel;
+            channels = newChannels;
+        }
+        return channel;
+    }
+
+    private void runLoop() {
+        long deadline = System.nanoTime();
+        while (running) {
+            final boolean busy = tick();
+            ticks++;
+            if (busy) {
+                deadline += periodNanos;
+                final long now = System.nanoTime();
+                if (now - deadline >= periodNanos) {
+                    // nothing to catch up on; effects are sampled at the current time
+                    deadline = now;
+                }
+                LockSupport.parkNanos(this, deadline - now);
+            } else {
+                LockSupport.park(this);
+                deadline = System.nanoTime();
+            }
+        }
+    }
+
+    private boolean tick() {
+        final long now = System.nanoTime();
+        boolean busy = false;
+        for (final Channel channel : channels) {
+            busy |= channel.mix(now);
+        }
+        return busy;
+    }
+
+    /**
+     * The effects playing on one device.
+     */
+    static final class Channel {
+        final XInputVibrationOutput output;
+        // Guarded by this
+        final List<XInputHapticHandle> handles = new ArrayList<XInputHapticHandle>();
+        // Whether the motors were last set to 0; guarded by this
+        boolean silent = true;
+
+        Channel(final XInputVibrationOutput output) {
+            this.output = output;
+        }
+
+        /**
+         * Samples and mixes the effects and writes the result.
+         *
+         * @return <code>true</code> if effects are still playing or the motors are still running
+         */
+        synchronized boolean mix(final long now) {
+            if (handles.isEmpty() && silent) {
+                output.flush();
+                return output.isPending();
+            }
+            int topPriority = Integer.MIN_VALUE;
+            float left = 0f;
+            float right = 0f;
+            for (int i = handles.size() - 1; i >= 0; i--) {
+                final XInputHapticHandle handle = handles.get(i);
+                final float amplitude = handle.stopped ? XInputHapticEffect.FINISHED
+                        : handle.effect.getAmplitude(now - handle.startTime, handle.getReleasedNanos());
+                if (amplitude < 0f) {
+                    handle.finished = true;
+                    removeAt(i);
+                    continue;
+                }
+                if (handle.priority > topPriority) {
+                    topPriority = handle.priority;
+                    left = 0f;
+                    right = 0f;
+                } else if (handle.priority < topPriority) {
+                    continue;
+                }
+                left += amplitude * handle.leftStrength;
+                right += amplitude * handle.rightStrength;
+            }
+            final int leftSpeed = toSpeed(left);
+            final int rightSpeed = toSpeed(right);
+            silent = leftSpeed == 0 && rightSpeed == 0;
+            output.set(leftSpeed, rightSpeed);
+            output.flush();
+            return !handles.isEmpty() || output.isPending();
+        }
+
+        synchronized void stopAll() {
+            for (int i = 0; i < handles.size(); i++) {
+                handles.get(i).stopped = true;
+                handles.get(i).finished = true;
+            }
+            handles.clear();
+            silent = true;
+            output.stop();
+        }
+
+        private void removeAt(final int index) {
+            // order does not matter, so move the last handle into the hole
+            final int last = handles.size() - 1;
+            handles.set(index, handles.get(last));
+            handles.remove(last);
+        }
+
+        private static int toSpeed(final float amplitude) {
+            return amplitude >= 1f ? 65535 : (int) (amplitude * 65535f);
+        }
+    }
+}
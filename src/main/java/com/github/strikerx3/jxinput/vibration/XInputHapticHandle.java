@@ -0,0 +1,88 @@
+package com.github.strikerx3.jxinput.vibration;
+
+import com.github.strikerx3.jxinput.XInputDevice;
+
+/**
+ * An effect playing on a device, as returned by {@link XInputHapticEngine#play}. Handles may be used from any thread.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public final class XInputHapticHandle {
+    final XInputHapticEffect effect;
+    final float leftStrength;
+    final float rightStrength;
+    final int priority;
+    final long startTime;
+
+    private final XInputDevice device;
+    private volatile long releasedNanos = XInputHapticEffect.NOT_RELEASED;
+    volatile boolean stopped;
+    volatile boolean finished;
+
+    XInputHapticHandle(final XInputDevice device, final XInputHapticEffect effect, final float leftStrength, final float rightStrength,
+            final int priority) {
+        this.device = device;
+        this.effect = effect;
+        this.leftStrength = leftStrength;
+        this.rightStrength = rightStrength;
+        this.priority = priority;
+        startTime = System.nanoTime();
+    }
+
+    /**
+     * Releases the effect, letting it end on its own terms: an {@link XInputEnvelopeEffect} starts its release, while
+     * other effects end on the next tick. Does nothing if the effect was already released.
+     */
+    public synchronized void release() {
+        if (releasedNanos == XInputHapticEffect.NOT_RELEASED) {
+            releasedNanos = System.nanoTime() - startTime;
+        }
+    }
+
+    /**
+     * Stops the effect on the next tick, skipping its release.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Determines if the effect is still playing.
+     *
+     * @return <code>true</code> if the effect has neither finished nor been stopped
+     */
+    public boolean isActive() {
+        return !finished && !stopped;
+    }
+
+    long getReleasedNanos() {
+        return releasedNanos;
+    }
+
+    /**
+     * Returns the device the effect is playing on.
+     *
+     * @return the device
+     */
+    public XInputDevice getDevice() {
+        return device;
+    }
+
+    /**
+     * Returns the effect being played.
+     *
+     * @return the effect
+     */
+    public XInputHapticEffect getEffect() {
+        return effect;
+    }
+
+    /**
+     * Returns the priority the effect was played with.
+     *
+     * @return the priority
+     */
+    public int getPriority() {
+        return priority;
+    }
+}
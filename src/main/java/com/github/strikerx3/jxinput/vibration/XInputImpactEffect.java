@@ -0,0 +1,35 @@
+package com.github.strikerx3.jxinput.vibration;
+
+/**
+ * A one-shot jolt, such as a hit or a landing: the amplitude starts at 1 and decays quadratically to 0 over the given
+ * duration. Releasing the effect ends it.
+ * <p>
+ * Impacts are usually played with a higher priority than continuous effects, so that they cut through them.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public final class XInputImpactEffect extends XInputHapticEffect {
+    private final long durationNanos;
+
+    /**
+     * Creates an impact.
+     *
+     * @param durationMillis the time to decay to 0, in milliseconds
+     * @throws IllegalArgumentException if the duration is not positive
+     */
+    public XInputImpactEffect(final long durationMillis) {
+        if (durationMillis <= 0) {
+            throw new IllegalArgumentException("Duration must be positive: " + durationMillis);
+        }
+        durationNanos = durationMillis * 1000000L;
+    }
+
+    @Override
+    public float getAmplitude(final long elapsedNanos, final long releasedNanos) {
+        if (releasedNanos != NOT_RELEASED || elapsedNanos >= durationNanos) {
+            return FINISHED;
+        }
+        final float remaining = 1f - (float) elapsedNanos / durationNanos;
+        return remaining * remaining;
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.strikerx3.jxinput.vibration;
+
+/**
+ * A train of square pulses at full amplitude, such as a heartbeat or a low-health warning. The effect ends after the
+ * given number of pulses or, if the count is 0, when it is {@linkplain XInputHapticHandle#release() released}.
+ * <p>
+ * The amplitude is sampled once per engine tick, so pulses and gaps shorter than the tick interval may be missed.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public final class XInputPulseEffect extends XInputHapticEffect {
+    private final long periodNanos;
+    private final long onNanos;
+    private final int count;
+
+    /**
+     * Creates a pulse train.
+     *
+     * @param periodMillis the time from the start of one pulse to the start of the next, in milliseconds
+     * @param dutyCycle the fraction of the period during which the motors are on, from 0 to 1
+     * @param count the number of pulses, or 0 to pulse until released
+     * @throws IllegalArgumentException if the period is not positive, the duty cycle is out of range or the count is
+     *             negative
+     */
+    public XInputPulseEffect(final long periodMillis, final float dutyCycle, final int count) {
+        if (periodMillis <= 0) {
+            throw new IllegalArgumentException("Period must be positive: " + periodMillis);
+        }
+        if (count < 0) {
+            throw new IllegalArgumentException("Pulse count must not be negative: " + count);
+        }
+        periodNanos = periodMillis * 1000000L;
+        onNanos = (long) (periodNanos * checkLevel("Duty cycle", dutyCycle));
+        this.count = count;
+    }
+
+    @Override
+    public float getAmplitude(final long elapsedNanos, final long releasedNanos) {
+        if (releasedNanos != NOT_RELEASED || (count > 0 && elapsedNanos >= count * periodNanos)) {
+            return FINISHED;
+        }
+        return elapsedNanos % periodNanos < onNanos ? 1f : 0f;
+    }
+
+    /**
+     * Returns the number of pulses.
+     *
+     * @return the number of pulses, or 0 if the effect pulses until released
+     */
+    public int getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,219 @@
+package com.github.strikerx3.jxinput.vibration;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.strikerx3.jxinput.XInputDevice;
+
+/**
+ * Coalesces and rate-limits the vibration written to a device.
+ * <p>
+ * Every call to {@link XInputDevice#setVibration(int, int)} is a driver write, which on wireless controllers competes
+ * with the input reports for the radio. Game code, however, often sets the same motor speeds every frame, or changes
+ * them several times within a frame. This class sits between the two: {@link #set(int, int)} only records the latest
+ * requested speeds, and {@link #flush()} writes them to the device, at most once per {@linkplain #getMinIntervalNanos()
+ * interval}, and only if they differ from the speeds last written. {@link #stop()} bypasses both checks to stop the
+ * motors immediately.
+ * <p>
+ * {@link #set(int, int)} is lock-free and may be called from any thread. {@link #flush()} is meant to be called once
+ * per frame or tick by the thread that drives the output; {@link #stop()} may be called from any thread.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public class XInputVibrationOutput {
+    private static final long NONE = -1L;
+
+    private final XInputDevice device;
+    private final long minIntervalNanos;
+
+    // The latest requested speeds, packed as (left << 16 | right), or NONE if there is nothing to write
+    private final AtomicLong pending = new AtomicLong(NONE);
+
+    // Guarded by this
+    private long lastWritten = NONE;
+    private long lastWriteTime;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private volatile long duplicates;
+    private volatile long deferredFlushes;
+    private volatile long writes;
+    private volatile long stops;
+
+    /**
+     * Creates a vibration output for the given device.
+     *
+     * @param device the device
+     * @param maxRateHz the maximum number of writes per second, such as 30 or 60
+     * @throws IllegalArgumentException if the rate is not positive
+     */
+    public XInputVibrationOutput(final XInputDevice device, final int maxRateHz) {
+        if (device == null) {
+            throw new IllegalArgumentException("Device cannot be null");
+        }
+        if (maxRateHz <= 0) {
+            throw new IllegalArgumentException("Maximum rate must be positive: " + maxRateHz);
+        }
+        this.device = device;
+        minIntervalNanos = 1000000000L / maxRateHz;
+    }
+
+    /**
+     * Requests new motor speeds. They replace any speeds requested since the last flush and are written by the next
+     * {@link #flush()}.
+     * <p>
+     * This method is thread-safe and does not allocate any objects.
+     *
+     * @param leftMotor the left motor speed, from 0 to 65535
+     * @param rightMotor the right motor speed, from 0 to 65535
+     * @throws IllegalArgumentException if either motor speed values lie out of the range 0..65535
+     */
+    public void set(final int leftMotor, final int rightMotor) {
+        if (leftMotor < 0 || leftMotor > 65535) {
+            throw new IllegalArgumentException("Left motor speed out of range (0..65535): " + leftMotor);
+        }
+        if (rightMotor < 0 || rightMotor > 65535) {
+            throw new IllegalArgumentException("Right motor speed out of range (0..65535): " + rightMotor);
+        }
+        requests.incrementAndGet();
+        if (pending.getAndSet((long) leftMotor << 16 | rightMotor) != NONE) {
+            coalesced.incrementAndGet();
+        }
+    }
+
+    /**
+     * Writes the latest requested speeds to the device, unless nothing was requested since the last write, the speeds
+     * are the same as the ones last written, or the last write happened less than one interval ago. In the latter case,
+     * the speeds are kept for the next flush. If the device is not connected, the speeds are kept as well, and the
+     * write is retried by the flushes that follow, at most once per interval.
+     *
+     * @return <code>true</code> if the speeds were written to the device
+     */
+    public synchronized boolean flush() {
+        if (pending.get() == NONE) {
+            return false;
+        }
+        final long now = System.nanoTime();
+        if (writes != 0 && now - lastWriteTime < minIntervalNanos) {
+            deferredFlushes++;
+            return false;
+        }
+        final long value = pending.getAndSet(NONE);
+        if (value == NONE) {
+            return false;
+        }
+        if (value == lastWritten) {
+            duplicates++;
+            return false;
+        }
+        if (write(value, now)) {
+            return true;
+        }
+        // keep the speeds for the next flush, unless newer ones were requested in the meantime
+        pending.compareAndSet(NONE, value);
+        return false;
+    }
+
+    /**
+     * Stops both motors right away, bypassing the rate limit, and discards any speeds waiting to be flushed.
+     *
+     * @return <code>false</code> if the device was not connected
+     */
+    public synchronized boolean stop() {
+        pending.set(NONE);
+        stops++;
+        return write(0L, System.nanoTime());
+    }
+
+    private boolean write(final long value, final long now) {
+        writes++;
+        lastWriteTime = now;
+        if (device.setVibration((int) (value >>> 16), (int) (value & 0xFFFF))) {
+            lastWritten = value;
+            return true;
+        }
+        // the motors are in an unknown state, so the next write must not be dropped as a duplicate
+        lastWritten = NONE;
+        return false;
+    }
+
+    /**
+     * Determines if there are requested speeds waiting to be flushed.
+     *
+     * @return <code>true</code> if speeds were requested since the last flush that wrote or dropped them
+     */
+    public boolean isPending() {
+        return pending.get() != NONE;
+    }
+
+    /**
+     * Returns the device this output writes to.
+     *
+     * @return the device
+     */
+    public XInputDevice getDevice() {
+        return device;
+    }
+
+    /**
+     * Returns the minimum interval between writes.
+     *
+     * @return the minimum interval between writes, in nanoseconds
+     */
+    public long getMinIntervalNanos() {
+        return minIntervalNanos;
+    }
+
+    /**
+     * Returns the number of calls to {@link #set(int, int)}.
+     *
+     * @return the number of requests
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * Returns the number of requests replaced by a later request before they were flushed.
+     *
+     * @return the number of coalesced requests
+     */
+    public long getCoalescedRequests() {
+        return coalesced.get();
+    }
+
+    /**
+     * Returns the number of flushes dropped because the requested speeds were the same as the ones last written.
+     *
+     * @return the number of duplicate writes suppressed
+     */
+    public long getSuppressedDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * Returns the number of flushes postponed because the last write happened less than one interval before.
+     *
+     * @return the number of deferred flushes
+     */
+    public long getDeferredFlushes() {
+        return deferredFlushes;
+    }
+
+    /**
+     * Returns the number of writes to the device, including stops.
+     *
+     * @return the number of writes
+     */
+    public long getWrites() {
+        return writes;
+    }
+
+    /**
+     * Returns the number of calls to {@link #stop()}.
+     *
+     * @return the number of stops
+     */
+    public long getStops() {
+        return stops;
+    }
+}
@@ -0,0 +1,162 @@
+package com.github.strikerx3.jxinput;
+
+import jdk.jfr.EventType;
+
+import com.github.strikerx3.jxinput.jfr.XInputDecodeEvent;
+import com.github.strikerx3.jxinput.jfr.XInputDispatchEvent;
+import com.github.strikerx3.jxinput.jfr.XInputListenerEvent;
+import com.github.strikerx3.jxinput.jfr.XInputPollAllEvent;
+import com.github.strikerx3.jxinput.jfr.XInputPollEvent;
+import com.github.strikerx3.jxinput.jfr.XInputVibrationEvent;
+import com.github.strikerx3.jxinput.listener.XInputDeviceListener;
+
+/**
+ * Emits the Flight Recorder events through the {@code jdk.jfr} API.
+ * <p>
+ * This class is compiled for Java 11 separately from the rest of the library and is only loaded by
+ * {@link XInputFlightRecorder} once the API is known to be available.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+final class XInputJfrRecorder extends XInputFlightRecorder.Recorder {
+    private final EventType pollType = EventType.getEventType(XInputPollEvent.class);
+    private final EventType pollAllType = EventType.getEventType(XInputPollAllEvent.class);
+    private final EventType decodeType = EventType.getEventType(XInputDecodeEvent.class);
+    private final EventType dispatchType = EventType.getEventType(XInputDispatchEvent.class);
+    private final EventType listenerType = EventType.getEventType(XInputListenerEvent.class);
+    private final EventType vibrationType = EventType.getEventType(XInputVibrationEvent.class);
+
+    @Override
+    Object beginPoll() {
+        if (!pollType.isEnabled()) {
+            return null;
+        }
+        final XInputPollEvent event = new XInputPollEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    void commitPoll(final Object e, final int playerNum, final int returnCode) {
+        final XInputPollEvent event = (XInputPollEvent) e;
+        event.end();
+        if (event.shouldCommit()) {
+            event.playerNum = playerNum;
+            event.returnCode = returnCode;
+            event.commit();
+        }
+    }
+
+    @Override
+    Object beginPollAll() {
+        if (!pollAllType.isEnabled()) {
+            return null;
+        }
+        final XInputPollAllEvent event = new XInputPollAllEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    void commitPollAll(final Object e, final int connectedDevices) {
+        final XInputPollAllEvent event = (XInputPollAllEvent) e;
+        event.end();
+        if (event.shouldCommit()) {
+            event.connectedDevices = connectedDevices;
+            event.commit();
+        }
+    }
+
+    @Override
+    Object beginDecode() {
+        if (!decodeType.isEnabled()) {
+            return null;
+        }
+        final XInputDecodeEvent event = new XInputDecodeEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    void commitDecode(final Object e, final int playerNum, final int changedButtons) {
+        final XInputDecodeEvent event = (XInputDecodeEvent) e;
+        event.end();
+        if (event.shouldCommit()) {
+            event.playerNum = playerNum;
+            event.changedButtons = changedButtons;
+            event.commit();
+        }
+    }
+
+    @Override
+    Object beginDispatch() {
+        if (!dispatchType.isEnabled()) {
+            return null;
+        }
+        final XInputDispatchEvent event = new XInputDispatchEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    void commitDispatch(final Object e, final int playerNum, final int changedButtons, final int changedAxes, final int listeners) {
+        final XInputDispatchEvent event = (XInputDispatchEvent) e;
+        event.end();
+        if (event.shouldCommit()) {
+            event.playerNum = playerNum;
+            event.changedButtons = changedButtons;
+            event.changedAxes = changedAxes;
+            event.listeners = listeners;
+            event.commit();
+        }
+    }
+
+    @Override
+    boolean isListenerEnabled() {
+        return listenerType.isEnabled();
+    }
+
+    @Override
+    Object beginListener() {
+        final XInputListenerEvent event = new XInputListenerEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    void commitListener(final Object e, final int playerNum, final XInputDeviceListener listener, final int changedButtons,
+                        final int changedAxes) {
+        final XInputListenerEvent event = (XInputListenerEvent) e;
+        event.end();
+        if (event.shouldCommit()) {
+            event.playerNum = playerNum;
+            event.listenerClass = listener.getClass();
+            event.changedButtons = changedButtons;
+            event.changedAxes = changedAxes;
+            event.commit();
+        }
+    }
+
+    @Override
+    Object beginVibration() {
+        if (!vibrationType.isEnabled()) {
+            return null;
+        }
+        final XInputVibrationEvent event = new XInputVibrationEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    void commitVibration(final Object e, final int playerNum, final int leftMotor, final int rightMotor, final int returnCode) {
+        final XInputVibrationEvent event = (XInputVibrationEvent) e;
+        event.end();
+        if (event.shouldCommit()) {
+            event.playerNum = playerNum;
+            event.leftMotor = leftMotor;
+            event.rightMotor = rightMotor;
+            event.returnCode = returnCode;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.github.strikerx3.jxinput.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event that covers the decoding of a new state through the pipeline of a device.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+@Name("com.github.strikerx3.jxinput.Decode")
+@Label("XInput Decode")
+@Description("Decodes a new state through the pipeline of a device")
+@Category({ "JXInput" })
+@Threshold("100 us")
+@StackTrace(false)
+public class XInputDecodeEvent extends jdk.jfr.Event {
+    @Label("Player Number")
+    public int playerNum;
+
+    @Label("Changed Buttons")
+    @Description("Number of buttons pressed or released")
+    public int changedButtons;
+}
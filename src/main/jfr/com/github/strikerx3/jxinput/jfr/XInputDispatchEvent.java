@@ -0,0 +1,35 @@
+package com.github.strikerx3.jxinput.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event that covers firing the events of a new state to all listeners of a device.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+@Name("com.github.strikerx3.jxinput.Dispatch")
+@Label("XInput Dispatch")
+@Description("Fires the events of a new state to all listeners of a device")
+@Category({ "JXInput" })
+@Threshold("1 ms")
+@StackTrace(false)
+public class XInputDispatchEvent extends jdk.jfr.Event {
+    @Label("Player Number")
+    public int playerNum;
+
+    @Label("Changed Buttons")
+    @Description("Number of buttons pressed or released")
+    public int changedButtons;
+
+    @Label("Changed Axes")
+    @Description("Number of axes that moved past their thresholds")
+    public int changedAxes;
+
+    @Label("Listeners")
+    public int listeners;
+}
@@ -0,0 +1,35 @@
+package com.github.strikerx3.jxinput.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event that covers one listener handling the button or axis events of a new state.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+@Name("com.github.strikerx3.jxinput.Listener")
+@Label("XInput Listener")
+@Description("A listener handles the button or axis events of a new state")
+@Category({ "JXInput" })
+@Threshold("1 ms")
+@StackTrace(false)
+public class XInputListenerEvent extends jdk.jfr.Event {
+    @Label("Player Number")
+    public int playerNum;
+
+    @Label("Listener Class")
+    public Class<?> listenerClass;
+
+    @Label("Changed Buttons")
+    @Description("Number of buttons pressed or released")
+    public int changedButtons;
+
+    @Label("Changed Axes")
+    @Description("Number of axes that moved past their thresholds")
+    public int changedAxes;
+}
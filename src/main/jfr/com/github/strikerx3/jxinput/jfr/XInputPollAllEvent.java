@@ -0,0 +1,24 @@
+package com.github.strikerx3.jxinput.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event that covers the backend call that reads the state of all devices at once.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+@Name("com.github.strikerx3.jxinput.PollAll")
+@Label("XInput Poll All")
+@Description("Reads the state of all devices from the backend with a single call")
+@Category({ "JXInput" })
+@Threshold("1 ms")
+@StackTrace(false)
+public class XInputPollAllEvent extends jdk.jfr.Event {
+    @Label("Connected Devices")
+    public int connectedDevices;
+}
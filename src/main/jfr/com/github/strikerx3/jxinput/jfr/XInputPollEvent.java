@@ -0,0 +1,27 @@
+package com.github.strikerx3.jxinput.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event that covers the backend call that reads the state of a device.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+@Name("com.github.strikerx3.jxinput.Poll")
+@Label("XInput Poll")
+@Description("Reads the state of a device from the backend")
+@Category({ "JXInput" })
+@Threshold("1 ms")
+@StackTrace(false)
+public class XInputPollEvent extends jdk.jfr.Event {
+    @Label("Player Number")
+    public int playerNum;
+
+    @Label("Return Code")
+    public int returnCode;
+}
@@ -0,0 +1,33 @@
+package com.github.strikerx3.jxinput.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event that covers the backend call that sets the vibration of a device.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+@Name("com.github.strikerx3.jxinput.Vibration")
+@Label("XInput Vibration")
+@Description("Sets the vibration of a device")
+@Category({ "JXInput" })
+@Threshold("1 ms")
+@StackTrace(false)
+public class XInputVibrationEvent extends jdk.jfr.Event {
+    @Label("Player Number")
+    public int playerNum;
+
+    @Label("Left Motor")
+    public int leftMotor;
+
+    @Label("Right Motor")
+    public int rightMotor;
+
+    @Label("Return Code")
+    public int returnCode;
+}
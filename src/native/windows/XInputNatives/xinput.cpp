@@ -148,6 +148,23 @@ JNIEXPORT jint JNICALL Java_com_github_strikerx3_jxinput_natives_XInputNatives_p
 	return XInputGamePadGetState(playerNum, state);
 }
 
+JNIEXPORT void JNICALL Java_com_github_strikerx3_jxinput_natives_XInputNatives_pollAllDevices
+  (JNIEnv *env, jclass cls, jobject byteBuffer)
+{
+	// the byte buffer must be allocatedDirect(XUSER_MAX_COUNT * (16 + 4))'d in Java...
+	char *bbuf = (char *)env->GetDirectBufferAddress(byteBuffer);
+
+	// ... because we're going to write all XINPUT_STATE structs followed by all return codes straight into it
+	XINPUT_STATE *states = (XINPUT_STATE *)bbuf;
+	DWORD *retCodes = (DWORD *)(bbuf + XUSER_MAX_COUNT * sizeof(XINPUT_STATE));
+	ZeroMemory(states, XUSER_MAX_COUNT * sizeof(XINPUT_STATE));
+
+	for (DWORD i = 0; i < XUSER_MAX_COUNT; i++)
+	{
+		retCodes[i] = XInputGamePadGetState(i, &states[i]);
+	}
+}
+
 JNIEXPORT jint JNICALL Java_com_github_strikerx3_jxinput_natives_XInputNatives_setVibration
   (JNIEnv *env, jclass cls, jint playerNum, jint leftMotor, jint rightMotor)
 {
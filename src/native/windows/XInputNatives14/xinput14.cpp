@@ -52,3 +52,29 @@ JNIEXPORT jint JNICALL Java_com_github_strikerx3_jxinput_natives_XInputNatives14
 
 	return XInputGetKeystroke(playerNum, 0, info);
 }
+
+JNIEXPORT jint JNICALL Java_com_github_strikerx3_jxinput_natives_XInputNatives14_getKeystrokes
+	(JNIEnv *env, jclass cls, jint playerNum, jobject byteBuffer, jint max)
+{
+	// the byte buffer must be allocatedDirect(max * 8 + 4)'d in Java...
+	char *bbuf = (char *)env->GetDirectBufferAddress(byteBuffer);
+
+	// ... because we're going to write up to max XINPUT_KEYSTROKE structs followed by the last return code straight into it
+	XINPUT_KEYSTROKE *keys = (XINPUT_KEYSTROKE *)bbuf;
+	DWORD *retCode = (DWORD *)(bbuf + max * sizeof(XINPUT_KEYSTROKE));
+
+	jint count = 0;
+	DWORD ret = ERROR_SUCCESS;
+	while (count < max)
+	{
+		ZeroMemory(&keys[count], sizeof(XINPUT_KEYSTROKE));
+		ret = XInputGetKeystroke(playerNum, 0, &keys[count]);
+		if (ret != ERROR_SUCCESS)
+		{
+			break;
+		}
+		count++;
+	}
+	*retCode = ret;
+	return count;
+}
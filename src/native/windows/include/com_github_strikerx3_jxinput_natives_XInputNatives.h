@@ -31,6 +31,14 @@ JNIEXPORT jboolean JNICALL Java_com_github_strikerx3_jxinput_natives_XInputNativ
 JNIEXPORT jint JNICALL Java_com_github_strikerx3_jxinput_natives_XInputNatives_pollDevice
   (JNIEnv *, jclass, jint, jobject);
 
+/*
+ * Class:     com_github_strikerx3_jxinput_natives_XInputNatives
+ * Method:    pollAllDevices
+ * Signature: (Ljava/nio/ByteBuffer;)V
+ */
+JNIEXPORT void JNICALL Java_com_github_strikerx3_jxinput_natives_XInputNatives_pollAllDevices
+  (JNIEnv *, jclass, jobject);
+
 /*
  * Class:     com_github_strikerx3_jxinput_natives_XInputNatives
  * Method:    setVibration
@@ -39,6 +39,14 @@ JNIEXPORT jint JNICALL Java_com_github_strikerx3_jxinput_natives_XInputNatives14
 JNIEXPORT jint JNICALL Java_com_github_strikerx3_jxinput_natives_XInputNatives14_getKeystroke
   (JNIEnv *, jclass, jint, jobject);
 
+/*
+ * Class:     com_github_strikerx3_jxinput_natives_XInputNatives14
+ * Method:    getKeystrokes
+ * Signature: (ILjava/nio/ByteBuffer;I)I
+ */
+JNIEXPORT jint JNICALL Java_com_github_strikerx3_jxinput_natives_XInputNatives14_getKeystrokes
+  (JNIEnv *, jclass, jint, jobject, jint);
+
 #ifdef __cplusplus
 }
 #endif
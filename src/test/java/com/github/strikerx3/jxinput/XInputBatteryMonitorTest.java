@@ -0,0 +1,182 @@
+package com.github.strikerx3.jxinput;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.strikerx3.jxinput.backend.SimulatedXInputBackend;
+import com.github.strikerx3.jxinput.enums.XInputBatteryDeviceType;
+import com.github.strikerx3.jxinput.enums.XInputBatteryLevel;
+import com.github.strikerx3.jxinput.enums.XInputBatteryType;
+import com.github.strikerx3.jxinput.listener.XInputBatteryListener;
+import com.github.strikerx3.jxinput.natives.XInputConstants;
+
+/**
+ * Checks the battery monitor against a simulated backend whose battery queries can be made to block until the test
+ * releases them.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public class XInputBatteryMonitorTest {
+    private static final long TTL_NANOS = TimeUnit.HOURS.toNanos(1);// refreshes are only triggered by the tests
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private BlockingBackend backend;
+    private XInputDevice14 device;
+    private XInputBatteryMonitor monitor;
+    private final BlockingQueue<Change> changes = new LinkedBlockingQueue<Change>();
+
+    @Before
+    public void setUp() {
+        backend = new BlockingBackend();
+        backend.setConnected(0, true);
+        backend.setBatteryInformation(0, XInputConstants.BATTERY_DEVTYPE_GAMEPAD, XInputConstants.BATTERY_TYPE_ALKALINE, XInputConstants.BATTERY_LEVEL_FULL);
+        backend.setBatteryInformation(0, XInputConstants.BATTERY_DEVTYPE_HEADSET, XInputConstants.BATTERY_TYPE_NIMH, XInputConstants.BATTERY_LEVEL_LOW);
+        XInputDevice.setBackend(backend);
+        device = new XInputDevice14(0);
+
+        monitor = new XInputBatteryMonitor(TTL_NANOS, device);
+        monitor.addListener(new XInputBatteryListener() {
+            @Override
+            public void batteryChanged(final XInputDevice14 device, final XInputBatteryDeviceType deviceType, final XInputBatteryInformation information) {
+                changes.add(new Change(deviceType, information));
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        monitor.stop();
+        backend.release.countDown();
+    }
+
+    @Test
+    public void deviceTypeIsPassedToTheBackend() {
+        final XInputBatteryInformation gamepad = device.getBatteryInformation(XInputBatteryDeviceType.GAMEPAD);
+        assertEquals(XInputBatteryType.ALKALINE, gamepad.getType());
+        assertEquals(XInputBatteryLevel.FULL, gamepad.getLevel());
+
+        final XInputBatteryInformation headset = device.getBatteryInformation(XInputBatteryDeviceType.HEADSET);
+        assertEquals(XInputBatteryType.NIMH, headset.getType());
+        assertEquals(XInputBatteryLevel.LOW, headset.getLevel());
+    }
+
+    @Test
+    public void onlyChangesAreReported() throws Exception {
+        assertNull(monitor.getBatteryInformation(device, XInputBatteryDeviceType.GAMEPAD));
+        monitor.start();
+        awaitRefreshes(1);
+
+        // the first read of each battery is a change
+        assertEquals(2, changes.size());
+        assertChange(changes.take(), XInputBatteryDeviceType.GAMEPAD, XInputBatteryType.ALKALINE, XInputBatteryLevel.FULL);
+        assertChange(changes.take(), XInputBatteryDeviceType.HEADSET, XInputBatteryType.NIMH, XInputBatteryLevel.LOW);
+        assertEquals(XInputBatteryLevel.LOW, monitor.getBatteryInformation(device, XInputBatteryDeviceType.HEADSET).getLevel());
+
+        monitor.refresh();
+        awaitRefreshes(2);
+        assertTrue("Unchanged batteries were reported: " + changes, changes.isEmpty());
+
+        backend.setBatteryInformation(0, XInputConstants.BATTERY_DEVTYPE_GAMEPAD, XInputConstants.BATTERY_TYPE_ALKALINE, XInputConstants.BATTERY_LEVEL_MEDIUM);
+        monitor.refresh();
+        awaitRefreshes(3);
+        assertEquals(1, changes.size());
+        assertChange(changes.take(), XInputBatteryDeviceType.GAMEPAD, XInputBatteryType.ALKALINE, XInputBatteryLevel.MEDIUM);
+        assertEquals(XInputBatteryLevel.MEDIUM, monitor.getBatteryInformation(device, XInputBatteryDeviceType.GAMEPAD).getLevel());
+
+        backend.setConnected(0, false);
+        monitor.refresh();
+        awaitRefreshes(4);
+        assertEquals(2, changes.size());
+        assertEquals(XInputBatteryType.DISCONNECTED, changes.take().information.getType());
+        assertEquals(XInputBatteryType.DISCONNECTED, changes.take().information.getType());
+    }
+
+    @Test
+    public void stoppedRefresherDoesNotPublish() throws Exception {
+        // the first query reads FULL, then blocks until released
+        backend.stalls.set(1);
+        monitor.start();
+        assertTrue("The battery was not queried", backend.stalled.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        monitor.stop();
+
+        backend.setBatteryInformation(0, XInputConstants.BATTERY_DEVTYPE_GAMEPAD, XInputConstants.BATTERY_TYPE_ALKALINE, XInputConstants.BATTERY_LEVEL_LOW);
+        monitor.start();
+        awaitRefreshes(1);
+        assertChange(changes.take(), XInputBatteryDeviceType.GAMEPAD, XInputBatteryType.ALKALINE, XInputBatteryLevel.LOW);
+        changes.clear();
+
+        backend.release.countDown();
+        backend.stalledThread.join(TIMEOUT_MILLIS);
+        assertFalse("The stopped refresher is still running", backend.stalledThread.isAlive());
+        assertTrue("The stopped refresher reported a change: " + changes, changes.isEmpty());
+        assertEquals(XInputBatteryLevel.LOW, monitor.getBatteryInformation(device, XInputBatteryDeviceType.GAMEPAD).getLevel());
+        assertEquals(1, monitor.getRefreshes());
+    }
+
+    private void awaitRefreshes(final long count) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (monitor.getRefreshes() < count) {
+            assertTrue("Timed out waiting for refresh " + count, System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    private static void assertChange(final Change change, final XInputBatteryDeviceType deviceType, final XInputBatteryType type, final XInputBatteryLevel level) {
+        assertEquals(deviceType, change.deviceType);
+        assertEquals(type, change.information.getType());
+        assertEquals(level, change.information.getLevel());
+    }
+
+    private static class Change {
+        final XInputBatteryDeviceType deviceType;
+        final XInputBatteryInformation information;
+
+        Change(final XInputBatteryDeviceType deviceType, final XInputBatteryInformation information) {
+            this.deviceType = deviceType;
+            this.information = information;
+        }
+
+        @Override
+        public String toString() {
+            return deviceType + ": " + information.getType() + " " + information.getLevel();
+        }
+    }
+
+    /**
+     * Blocks the given number of battery queries after they have read the battery, until {@link #release} is opened.
+     */
+    private static class BlockingBackend extends SimulatedXInputBackend {
+        final AtomicInteger stalls = new AtomicInteger();
+        final CountDownLatch stalled = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        volatile Thread stalledThread;
+
+        @Override
+        public int getBatteryInformation(final int playerNum, final int deviceType, final ByteBuffer data) {
+            final int ret = super.getBatteryInformation(playerNum, deviceType, data);
+            if (stalls.getAndDecrement() > 0) {
+                stalledThread = Thread.currentThread();
+                stalled.countDown();
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return ret;
+        }
+    }
+}
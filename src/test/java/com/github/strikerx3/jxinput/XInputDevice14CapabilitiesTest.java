@@ -0,0 +1,107 @@
+package com.github.strikerx3.jxinput;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.strikerx3.jxinput.backend.SimulatedXInputBackend;
+import com.github.strikerx3.jxinput.natives.XInputConstants;
+
+/**
+ * Checks the per-connection cache of {@link XInputDevice14#getCapabilities()} and
+ * {@link XInputDevice14#getGamepadCapabilities()} against a simulated backend that counts its capability reads.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public class XInputDevice14CapabilitiesTest {
+    private CountingBackend backend;
+
+    @Before
+    public void setUp() {
+        backend = new CountingBackend();
+        XInputDevice.setBackend(backend);
+    }
+
+    @Test
+    public void devicesCanBeCreatedWhileConnected() throws Exception {
+        backend.setConnected(0, true);
+
+        // the constructor polls the device, which fires the connection change before the subclass is initialized
+        final XInputDevice14 device = new XInputDevice14(0);
+        assertTrue(device.isConnected());
+        assertNotNull(device.getCapabilities());
+        assertNotNull(XInputDevice14.getDeviceFor(0));
+    }
+
+    @Test
+    public void capabilitiesAreReadOncePerConnection() {
+        backend.setConnected(0, true);
+        final XInputDevice14 device = new XInputDevice14(0);
+
+        final XInputCapabilities caps = device.getCapabilities();
+        final XInputCapabilities gamepadCaps = device.getGamepadCapabilities();
+        assertSame(caps, device.getCapabilities());
+        assertSame(gamepadCaps, device.getGamepadCapabilities());
+        device.poll();
+        assertSame(caps, device.getCapabilities());
+        assertEquals(2, backend.capabilityReads);
+    }
+
+    @Test
+    public void disconnectionClearsCapabilities() {
+        backend.setConnected(0, true);
+        final XInputDevice14 device = new XInputDevice14(0);
+        final XInputCapabilities caps = device.getCapabilities();
+        assertFalse(caps.isWireless());
+
+        backend.setConnected(0, false);
+        device.poll();
+        assertNull(device.getCapabilities());
+
+        backend.setCapabilities(0, XInputConstants.XINPUT_DEVSUBTYPE_GAMEPAD, XInputConstants.XINPUT_CAPS_WIRELESS, (short) 0);
+        backend.setConnected(0, true);
+        device.poll();
+        final XInputCapabilities newCaps = device.getCapabilities();
+        assertNotSame(caps, newCaps);
+        assertTrue(newCaps.isWireless());
+        assertSame(newCaps, device.getCapabilities());
+    }
+
+    @Test
+    public void nothingIsCachedBeforeTheFirstPoll() {
+        final XInputDevice14 device = new XInputDevice14(0);
+        assertFalse(device.isConnected());
+
+        // the device answers, but no poll has seen it connected yet, so the next disconnection could not clear the cache
+        backend.setConnected(0, true);
+        final XInputCapabilities caps = device.getCapabilities();
+        assertNotNull(caps);
+        assertNotSame(caps, device.getCapabilities());
+        assertEquals(2, backend.capabilityReads);
+        assertFalse(device.isConnected());
+
+        device.poll();
+        final XInputCapabilities polledCaps = device.getCapabilities();
+        assertSame(polledCaps, device.getCapabilities());
+        assertEquals(3, backend.capabilityReads);
+    }
+
+    private static class CountingBackend extends SimulatedXInputBackend {
+        int capabilityReads;
+
+        @Override
+        public int getCapabilities(final int playerNum, final int flags, final ByteBuffer data) {
+            capabilityReads++;
+            return super.getCapabilities(playerNum, flags, data);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.github.strikerx3.jxinput;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.strikerx3.jxinput.backend.SimulatedXInputBackend;
+import com.github.strikerx3.jxinput.enums.XInputAxis;
+import com.github.strikerx3.jxinput.enums.XInputButton;
+import com.github.strikerx3.jxinput.listener.SimpleXInputDeviceListener;
+import com.github.strikerx3.jxinput.natives.XInputConstants;
+
+/**
+ * Checks that polling a connected device does not allocate, so that regressions fail the build.
+ * <p>
+ * Every poll reads a new state that presses or releases a button and moves the thumbsticks, so that the state is
+ * decoded and both button and axis events are fired to every listener.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public class XInputDeviceAllocationTest {
+    private static final int LISTENERS_PER_DEVICE = 16;
+    private static final int WARMUP_POLLS = 20000;
+    private static final int MEASURED_POLLS = 10000;
+
+    private static final com.sun.management.ThreadMXBean THREADS = threadMXBean();
+
+    private SimulatedXInputBackend backend;
+    private XInputDevice[] devices;
+    private CountingListener[] listeners;
+    private int phase;
+
+    private static com.sun.management.ThreadMXBean threadMXBean() {
+        final java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        final com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+        if (!sunThreads.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        sunThreads.setThreadAllocatedMemoryEnabled(true);
+        return sunThreads;
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        assumeTrue("Thread allocation counters are not supported", THREADS != null);
+
+        backend = new SimulatedXInputBackend();
+        XInputDevice.setBackend(backend);
+        devices = XInputDevice.getAllDevices();
+        listeners = new CountingListener[devices.length * LISTENERS_PER_DEVICE];
+        for (int i = 0; i < devices.length; i++) {
+            backend.setConnected(i, true);
+            for (int j = 0; j < LISTENERS_PER_DEVICE; j++) {
+                final CountingListener listener = new CountingListener();
+                listeners[i * LISTENERS_PER_DEVICE + j] = listener;
+                devices[i].addListener(listener);
+            }
+        }
+    }
+
+    @After
+    public void tearDown() {
+        if (devices == null) {
+            return;
+        }
+        for (int i = 0; i < devices.length; i++) {
+            for (int j = 0; j < LISTENERS_PER_DEVICE; j++) {
+                devices[i].removeListener(listeners[i * LISTENERS_PER_DEVICE + j]);
+            }
+        }
+    }
+
+    @Test
+    public void pollDoesNotAllocate() {
+        for (int i = 0; i < WARMUP_POLLS; i++) {
+            nextState();
+            pollEach();
+        }
+        resetCounts();
+
+        final long overhead = measureOverhead();
+        final long start = allocatedBytes();
+        for (int i = 0; i < MEASURED_POLLS; i++) {
+            nextState();
+            pollEach();
+        }
+        final long allocated = allocatedBytes() - start - overhead;
+
+        assertEventsFired();
+        assertEquals("Bytes allocated by " + MEASURED_POLLS + " rounds of poll()", 0L, allocated);
+    }
+
+    @Test
+    public void pollAllDoesNotAllocate() throws Exception {
+        for (int i = 0; i < WARMUP_POLLS; i++) {
+            nextState();
+            XInputDevice.pollAll();
+        }
+        resetCounts();
+
+        final long overhead = measureOverhead();
+        final long start = allocatedBytes();
+        for (int i = 0; i < MEASURED_POLLS; i++) {
+            nextState();
+            XInputDevice.pollAll();
+        }
+        final long allocated = allocatedBytes() - start - overhead;
+
+        assertEventsFired();
+        assertEquals("Bytes allocated by " + MEASURED_POLLS + " calls to pollAll()", 0L, allocated);
+    }
+
+    private void pollEach() {
+        for (final XInputDevice device : devices) {
+            device.poll();
+        }
+    }
+
+    /**
+     * Scripts a new state on every device, alternating between pressing A with the thumbsticks pushed and releasing
+     * everything.
+     */
+    private void nextState() {
+        final boolean pressed = (phase++ & 1) == 0;
+        final short buttons = pressed ? XInputConstants.XINPUT_GAMEPAD_A : 0;
+        final short thumb = pressed ? (short) 20000 : 0;
+        for (int i = 0; i < devices.length; i++) {
+            backend.setState(i, buttons, pressed ? 255 : 0, 0, thumb, thumb, (short) 0, (short) 0);
+        }
+    }
+
+    private void resetCounts() {
+        for (final CountingListener listener : listeners) {
+            listener.buttonEvents = 0;
+            listener.axisEvents = 0;
+        }
+    }
+
+    private void assertEventsFired() {
+        for (final CountingListener listener : listeners) {
+            assertEquals(MEASURED_POLLS, listener.buttonEvents);
+            assertTrue(listener.axisEvents >= MEASURED_POLLS);
+        }
+    }
+
+    /**
+     * Returns the bytes reported between two consecutive reads of the counter, which are not allocated by the polls.
+     */
+    private static long measureOverhead() {
+        long overhead = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            final long start = allocatedBytes();
+            overhead = Math.min(overhead, allocatedBytes() - start);
+        }
+        return overhead;
+    }
+
+    private static long allocatedBytes() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static class CountingListener extends SimpleXInputDeviceListener {
+        int buttonEvents;
+        int axisEvents;
+
+        @Override
+        public void buttonChanged(final XInputButton button, final boolean pressed) {
+            buttonEvents++;
+        }
+
+        @Override
+        public void axisChanged(final XInputAxis axis, final float value, final float delta) {
+            axisEvents++;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.github.strikerx3.jxinput.natives;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Checks how {@link NativeLibraryHelper#extract(String, String, ClassLoader)} verifies and writes libraries read from
+ * a temporary class path directory laid out for the current platform.
+ * <p>
+ * The extraction directory is fixed when the helper is initialized, so it is shared by every test and every run; each
+ * test extracts a library with random contents, which always lands in a new hash directory.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public class NativeLibraryHelperTest {
+    private static final String PATH = "lib/native";
+    private static final String LIB_NAME = "TestNatives";
+    private static final int LIB_SIZE = 16 * 1024;
+    private static final int THREADS = 8;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private File classPath;
+    private ClassLoader classLoader;
+    private byte[] contents;
+
+    @Before
+    public void setUp() throws IOException {
+        classPath = folder.newFolder("classpath");
+        classLoader = new URLClassLoader(new URL[] { classPath.toURI().toURL() }, null);
+        contents = new byte[LIB_SIZE];
+        new Random().nextBytes(contents);
+    }
+
+    @Test
+    public void libraryIsExtractedToItsHashDirectory() throws IOException {
+        writeLibrary(contents);
+        writeHash(sha256(contents));
+
+        final File extracted = NativeLibraryHelper.extract(PATH, LIB_NAME, classLoader);
+        assertEquals(NativeLibraryHelper.toFilename(LIB_NAME), extracted.getName());
+        assertEquals(sha256(contents), extracted.getParentFile().getName());
+        assertArrayEquals(contents, Files.readAllBytes(extracted.toPath()));
+
+        // an up-to-date copy is recognized by its path alone, without reading the library again
+        assertTrue(new File(classPath, NativeLibraryHelper.toResourcePath(PATH, LIB_NAME)).delete());
+        assertEquals(extracted, NativeLibraryHelper.extract(PATH, LIB_NAME, classLoader));
+    }
+
+    @Test
+    public void unhashedLibraryIsHashedWhileRead() throws IOException {
+        writeLibrary(contents);
+
+        final File extracted = NativeLibraryHelper.extract(PATH, LIB_NAME, classLoader);
+        assertEquals(sha256(contents), extracted.getParentFile().getName());
+        assertArrayEquals(contents, Files.readAllBytes(extracted.toPath()));
+    }
+
+    @Test
+    public void libraryMustMatchItsHash() throws IOException {
+        final byte[] expected = contents.clone();
+        expected[0]++;
+        writeLibrary(contents);
+        writeHash(sha256(expected));
+
+        try {
+            NativeLibraryHelper.extract(PATH, LIB_NAME, classLoader);
+            fail("A library that does not match its hash was extracted");
+        } catch (final IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("does not match its hash"));
+        }
+
+        // once the hash is right, the library is extracted, and nothing was written for the mismatched one
+        writeHash(sha256(contents));
+        final File extracted = NativeLibraryHelper.extract(PATH, LIB_NAME, classLoader);
+        assertFalse(new File(extracted.getParentFile().getParentFile(), sha256(expected)).exists());
+    }
+
+    @Test
+    public void concurrentExtractionsLeaveNoTemporaryFiles() throws Exception {
+        writeLibrary(contents);
+        writeHash(sha256(contents));
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final File[] extracted = new File[THREADS];
+        final Throwable[] errors = new Throwable[THREADS];
+        final List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < THREADS; i++) {
+            final int index = i;
+            final Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        extracted[index] = NativeLibraryHelper.extract(PATH, LIB_NAME, classLoader);
+                    } catch (final Throwable t) {
+                        errors[index] = t;
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        for (int i = 0; i < THREADS; i++) {
+            assertNull("Thread " + i + " failed: " + errors[i], errors[i]);
+            assertEquals(extracted[0], extracted[i]);
+        }
+        assertArrayEquals(contents, Files.readAllBytes(extracted[0].toPath()));
+        final String[] files = extracted[0].getParentFile().list();
+        Arrays.sort(files);
+        final String filename = NativeLibraryHelper.toFilename(LIB_NAME);
+        assertArrayEquals("Unexpected files: " + Arrays.toString(files), new String[] { filename, filename + ".lock" }, files);
+    }
+
+    @Test
+    public void invalidHashIsRejected() throws IOException {
+        writeLibrary(contents);
+        writeHash("not a hash");
+
+        try {
+            NativeLibraryHelper.extract(PATH, LIB_NAME, classLoader);
+            fail("An invalid hash was accepted");
+        } catch (final IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Invalid library hash"));
+        }
+    }
+
+    private void writeLibrary(final byte[] data) throws IOException {
+        writeResource(NativeLibraryHelper.toResourcePath(PATH, LIB_NAME), data);
+    }
+
+    private void writeHash(final String hash) throws IOException {
+        writeResource(NativeLibraryHelper.toResourcePath(PATH, LIB_NAME) + ".sha256", hash.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private void writeResource(final String resourcePath, final byte[] data) throws IOException {
+        final File file = new File(classPath, resourcePath);
+        file.getParentFile().mkdirs();
+        final FileOutputStream fos = new FileOutputStream(file);
+        try {
+            fos.write(data);
+        } finally {
+            fos.close();
+        }
+    }
+
+    private static String sha256(final byte[] data) {
+        try {
+            final StringBuilder hex = new StringBuilder();
+            for (final byte b : MessageDigest.getInstance("SHA-256").digest(data)) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
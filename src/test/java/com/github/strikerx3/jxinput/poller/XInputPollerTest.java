@@ -0,0 +1,147 @@
+package com.github.strikerx3.jxinput.poller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.strikerx3.jxinput.XInputDevice;
+import com.github.strikerx3.jxinput.backend.SimulatedXInputBackend;
+import com.github.strikerx3.jxinput.listener.SimpleXInputDeviceListener;
+
+/**
+ * Checks that slow reads of empty slots are kept away from the connected devices, using a simulated backend whose
+ * reads of a disconnected slot can be made to block until the test releases them, like {@code XInputGetState} does
+ * while the driver looks for a device.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public class XInputPollerTest {
+    private static final int RATE_HZ = 500;
+    private static final long MAX_TICK_GAP_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+    private BlockingBackend backend;
+    private XInputDevice[] devices;
+    private XInputPoller poller;
+
+    @Before
+    public void setUp() throws Exception {
+        backend = new BlockingBackend();
+        backend.setConnected(0, true);
+        XInputDevice.setBackend(backend);
+        devices = XInputDevice.getAllDevices();
+        // bring the devices up to date with the new backend, so that only the probe thread reads the empty slots
+        XInputDevice.pollAll();
+        poller = new XInputPoller(RATE_HZ, devices);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        poller.stop();
+        backend.release.countDown();
+    }
+
+    @Test
+    public void stalledProbeDoesNotDelayConnectedDevices() throws Exception {
+        backend.stalls.set(1);
+        poller.start();
+        assertTrue("No empty slot was probed", backend.stalled.await(5, TimeUnit.SECONDS));
+
+        final CountDownLatch polled = backend.expectConnectedPolls(RATE_HZ / 5);
+        assertTrue("The connected device stopped being polled while a probe was stalled", polled.await(5, TimeUnit.SECONDS));
+        assertEquals("The stalled probe was released", 1, backend.release.getCount());
+        assertTrue("The connected device went " + TimeUnit.NANOSECONDS.toMillis(backend.maxGapNanos) + " ms without a poll",
+                backend.maxGapNanos < MAX_TICK_GAP_NANOS);
+    }
+
+    @Test
+    public void hotPluggedDeviceIsNoticed() throws Exception {
+        final CountDownLatch connected = connectedLatch(devices[1]);
+        poller.start();
+        backend.setConnected(1, true);
+
+        assertTrue("Hot-plugged device was not noticed", connected.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void restartIsNotAffectedByStalledProbe() throws Exception {
+        backend.stalls.set(1);
+        poller.start();
+        assertTrue("No empty slot was probed", backend.stalled.await(5, TimeUnit.SECONDS));
+        // the first probe thread is stuck in a slow read and outlives the restart
+        poller.stop();
+        poller.start();
+
+        final CountDownLatch connected = connectedLatch(devices[2]);
+        backend.setConnected(2, true);
+        // let the old probe thread finish its read while the new run is going
+        backend.release.countDown();
+        assertTrue("Hot-plugged device was not noticed after a restart", connected.await(5, TimeUnit.SECONDS));
+
+        final CountDownLatch polled = backend.expectConnectedPolls(RATE_HZ / 5);
+        assertTrue("The connected device stopped being polled after a restart", polled.await(5, TimeUnit.SECONDS));
+    }
+
+    private static CountDownLatch connectedLatch(final XInputDevice device) {
+        final CountDownLatch latch = new CountDownLatch(1);
+        device.addListener(new SimpleXInputDeviceListener() {
+            @Override
+            public void connected() {
+                device.removeListener(this);
+                latch.countDown();
+            }
+        });
+        return latch;
+    }
+
+    /**
+     * Blocks the given number of reads of disconnected slots until {@link #release} is opened, and records the
+     * longest gap between two reads of slot 0.
+     */
+    private static class BlockingBackend extends SimulatedXInputBackend {
+        final AtomicInteger stalls = new AtomicInteger();
+        final CountDownLatch stalled = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        volatile CountDownLatch connectedPolls = new CountDownLatch(0);
+        volatile long maxGapNanos;
+        private volatile long lastPoll;
+
+        /**
+         * Counts the next reads of slot 0 and restarts the gap measurement.
+         */
+        CountDownLatch expectConnectedPolls(final int count) {
+            lastPoll = 0L;
+            maxGapNanos = 0L;
+            connectedPolls = new CountDownLatch(count);
+            return connectedPolls;
+        }
+
+        @Override
+        public int pollDevice(final int playerNum, final ByteBuffer data) {
+            if (playerNum == 0) {
+                final long now = System.nanoTime();
+                if (lastPoll != 0L && now - lastPoll > maxGapNanos) {
+                    maxGapNanos = now - lastPoll;
+                }
+                lastPoll = now;
+                connectedPolls.countDown();
+            } else if (!isConnected(playerNum) && stalls.getAndDecrement() > 0) {
+                stalled.countDown();
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return super.pollDevice(playerNum, data);
+        }
+    }
+}
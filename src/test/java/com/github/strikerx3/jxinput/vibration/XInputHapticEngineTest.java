@@ -0,0 +1,165 @@
+package com.github.strikerx3.jxinput.vibration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.strikerx3.jxinput.XInputDevice;
+import com.github.strikerx3.jxinput.backend.SimulatedXInputBackend;
+import com.github.strikerx3.jxinput.natives.XInputConstants;
+
+/**
+ * Checks how the haptic engine mixes effects. Most tests mix a single channel at fixed times with constant effects, so
+ * the expected motor speeds are exact; the last one runs the scheduler thread against a simulated backend.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public class XInputHapticEngineTest {
+    private static final long MILLIS = 1000000L;
+    private static final long FOREVER = Long.MAX_VALUE;
+    // amplitudes and strengths are exact binary fractions, so the mixed speeds do not depend on the order of the sums
+
+    private CountingBackend backend;
+    private XInputDevice device;
+    private XInputHapticEngine.Channel channel;
+
+    @Before
+    public void setUp() throws Exception {
+        backend = new CountingBackend();
+        backend.setConnected(0, true);
+        backend.setConnected(1, true);
+        XInputDevice.setBackend(backend);
+        device = XInputDevice.getDeviceFor(0);
+        // an interval of 0, so that the output never defers the writes of the mix
+        channel = new XInputHapticEngine.Channel(new XInputVibrationOutput(device, Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void higherPriorityMutesLowerPriority() {
+        final XInputHapticHandle rumble = play(new ConstantEffect(0.5f, FOREVER), 1f, 1f, 0);
+        final XInputHapticHandle impact = play(new ConstantEffect(0.25f, 100 * MILLIS), 1f, 0.5f, 10);
+
+        assertTrue(channel.mix(impact.startTime));
+        assertMotors(speed(0.25f), speed(0.125f));
+
+        // the impact is over and the rumble, which kept running, is heard again
+        assertTrue(channel.mix(impact.startTime + 100 * MILLIS));
+        assertMotors(speed(0.5f), speed(0.5f));
+        assertFalse(impact.isActive());
+        assertTrue(rumble.isActive());
+    }
+
+    @Test
+    public void samePriorityIsAddedAndClamped() {
+        final XInputHapticHandle first = play(new ConstantEffect(0.75f, FOREVER), 1f, 0.25f, 5);
+        play(new ConstantEffect(0.5f, FOREVER), 1f, 0.5f, 5);
+        // muted, so it does not add to the mix
+        play(new ConstantEffect(1f, FOREVER), 1f, 1f, 0);
+
+        channel.mix(first.startTime);
+        assertMotors(65535, speed(0.75f * 0.25f + 0.5f * 0.5f));
+    }
+
+    @Test
+    public void atMostOneWritePerMix() {
+        final XInputHapticHandle first = play(new ConstantEffect(0.125f, 10 * MILLIS), 1f, 1f, 0);
+        play(new ConstantEffect(0.25f, 20 * MILLIS), 1f, 1f, 0);
+        play(new ConstantEffect(0.5f, 30 * MILLIS), 1f, 1f, 0);
+
+        assertTrue(channel.mix(first.startTime));
+        assertEquals(1, backend.writes[0]);
+        assertMotors(speed(0.875f), speed(0.875f));
+
+        // nothing changed, so nothing is written
+        assertTrue(channel.mix(first.startTime + 5 * MILLIS));
+        assertEquals(1, backend.writes[0]);
+
+        assertTrue(channel.mix(first.startTime + 10 * MILLIS));
+        assertEquals(2, backend.writes[0]);
+        assertMotors(speed(0.75f), speed(0.75f));
+
+        // once every effect is over, the motors are stopped with one last write and the channel goes idle
+        final long end = first.startTime + 1000 * MILLIS;
+        assertFalse(channel.mix(end));
+        assertEquals(3, backend.writes[0]);
+        assertMotors(0, 0);
+        assertFalse(channel.mix(end));
+        assertEquals(3, backend.writes[0]);
+    }
+
+    @Test
+    public void engineWritesEachDeviceAtMostOncePerTick() throws Exception {
+        final XInputDevice other = XInputDevice.getDeviceFor(1);
+        final XInputHapticEngine engine = new XInputHapticEngine(500);
+        // pulses change the speeds on most ticks, and several effects play on each device
+        engine.play(device, new XInputPulseEffect(4, 0.5f, 1000), 1f, 0f);
+        engine.play(device, new XInputPulseEffect(6, 0.5f, 1000), 0f, 1f);
+        engine.play(other, new XInputPulseEffect(4, 0.5f, 1000), 1f, 1f);
+        engine.play(other, new XInputImpactEffect(1000), 0.5f, 0.5f, 1);
+        engine.start();
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (engine.getTicks() < 100 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        engine.stop();
+        final long ticks = engine.getTicks();
+
+        assertTrue("Only " + ticks + " ticks", ticks >= 100);
+        for (int i = 0; i < 2; i++) {
+            // plus the write of stop()
+            assertTrue("Player " + i + ": " + backend.writes[i] + " writes in " + ticks + " ticks", backend.writes[i] <= ticks + 1);
+            assertTrue("Player " + i + " was never written", backend.writes[i] > 1);
+            assertEquals(0, backend.getLeftMotor(i));
+            assertEquals(0, backend.getRightMotor(i));
+        }
+    }
+
+    private XInputHapticHandle play(final XInputHapticEffect effect, final float leftStrength, final float rightStrength,
+            final int priority) {
+        final XInputHapticHandle handle = new XInputHapticHandle(device, effect, leftStrength, rightStrength, priority);
+        channel.handles.add(handle);
+        return handle;
+    }
+
+    private void assertMotors(final int leftMotor, final int rightMotor) {
+        assertEquals(leftMotor, backend.getLeftMotor(0));
+        assertEquals(rightMotor, backend.getRightMotor(0));
+    }
+
+    private static int speed(final float amplitude) {
+        return (int) (amplitude * 65535f);
+    }
+
+    /**
+     * Plays at a constant amplitude until its duration is over.
+     */
+    private static class ConstantEffect extends XInputHapticEffect {
+        private final float amplitude;
+        private final long durationNanos;
+
+        ConstantEffect(final float amplitude, final long durationNanos) {
+            this.amplitude = amplitude;
+            this.durationNanos = durationNanos;
+        }
+
+        @Override
+        public float getAmplitude(final long elapsedNanos, final long releasedNanos) {
+            return elapsedNanos < durationNanos ? amplitude : FINISHED;
+        }
+    }
+
+    private static class CountingBackend extends SimulatedXInputBackend {
+        final int[] writes = new int[XInputConstants.MAX_PLAYERS];
+
+        @Override
+        public synchronized int setVibration(final int playerNum, final int leftMotor, final int rightMotor) {
+            writes[playerNum]++;
+            return super.setVibration(playerNum, leftMotor, rightMotor);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.github.strikerx3.jxinput.vibration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.strikerx3.jxinput.XInputDevice;
+import com.github.strikerx3.jxinput.backend.SimulatedXInputBackend;
+
+/**
+ * Checks the coalescing, rate limiting and retries of {@link XInputVibrationOutput} against a simulated backend that
+ * counts its vibration writes.
+ *
+ * @author Ivan "StrikerX3" Oliveira
+ */
+public class XInputVibrationOutputTest {
+    // 1000000000 / Integer.MAX_VALUE rounds down to an interval of 0, which never defers a flush
+    private static final int UNLIMITED_RATE_HZ = Integer.MAX_VALUE;
+    // long enough that no test lasts a full interval
+    private static final int SLOW_RATE_HZ = 1;
+
+    private CountingBackend backend;
+    private XInputDevice device;
+
+    @Before
+    public void setUp() throws Exception {
+        backend = new CountingBackend();
+        backend.setConnected(0, true);
+        XInputDevice.setBackend(backend);
+        device = XInputDevice.getDeviceFor(0);
+    }
+
+    @Test
+    public void requestsAreCoalescedUntilTheFlush() {
+        final XInputVibrationOutput output = new XInputVibrationOutput(device, UNLIMITED_RATE_HZ);
+        output.set(1000, 1000);
+        output.set(2000, 2000);
+        output.set(3000, 4000);
+        assertTrue(output.isPending());
+        assertEquals(0, backend.writes);
+
+        assertTrue(output.flush());
+        assertFalse(output.isPending());
+        assertEquals(1, backend.writes);
+        assertMotors(3000, 4000);
+        assertEquals(3, output.getRequests());
+        assertEquals(2, output.getCoalescedRequests());
+
+        // nothing was requested since the last flush
+        assertFalse(output.flush());
+        assertEquals(1, backend.writes);
+    }
+
+    @Test
+    public void duplicatesAreSuppressed() {
+        final XInputVibrationOutput output = new XInputVibrationOutput(device, UNLIMITED_RATE_HZ);
+        output.set(1000, 2000);
+        assertTrue(output.flush());
+
+        output.set(1000, 2000);
+        assertFalse(output.flush());
+        assertFalse(output.isPending());
+        assertEquals(1, output.getSuppressedDuplicates());
+        assertEquals(1, backend.writes);
+
+        output.set(1000, 2001);
+        assertTrue(output.flush());
+        assertEquals(2, backend.writes);
+        assertMotors(1000, 2001);
+    }
+
+    @Test
+    public void rateLimitDefersFlushes() {
+        final XInputVibrationOutput output = new XInputVibrationOutput(device, SLOW_RATE_HZ);
+        output.set(1000, 1000);
+        assertTrue(output.flush());
+
+        output.set(2000, 2000);
+        assertFalse(output.flush());
+        assertFalse(output.flush());
+        assertTrue("Deferred speeds must be kept for a later flush", output.isPending());
+        assertEquals(2, output.getDeferredFlushes());
+        assertEquals(1, backend.writes);
+        assertMotors(1000, 1000);
+    }
+
+    @Test
+    public void stopBypassesTheRateLimit() {
+        final XInputVibrationOutput output = new XInputVibrationOutput(device, SLOW_RATE_HZ);
+        output.set(1000, 1000);
+        assertTrue(output.flush());
+        output.set(2000, 2000);
+
+        assertTrue(output.stop());
+        assertEquals(2, backend.writes);
+        assertMotors(0, 0);
+        assertFalse("Stopping must discard the pending speeds", output.isPending());
+        assertEquals(1, output.getStops());
+        assertFalse(output.flush());
+        assertEquals(2, backend.writes);
+    }
+
+    @Test
+    public void failedWritesAreRetried() {
+        final XInputVibrationOutput output = new XInputVibrationOutput(device, UNLIMITED_RATE_HZ);
+        output.set(1000, 2000);
+        assertTrue(output.flush());
+
+        backend.setConnected(0, false);
+        output.set(3000, 4000);
+        assertFalse(output.flush());
+        assertTrue("The speeds of a failed write must be kept for a retry", output.isPending());
+        assertEquals(2, backend.writes);
+
+        // the motors are in an unknown state after a failed write, so the old speeds are not a duplicate anymore
+        output.set(1000, 2000);
+        backend.setConnected(0, true);
+        assertTrue(output.flush());
+        assertFalse(output.isPending());
+        assertEquals(3, backend.writes);
+        assertEquals(0, output.getSuppressedDuplicates());
+        assertMotors(1000, 2000);
+    }
+
+    private void assertMotors(final int leftMotor, final int rightMotor) {
+        assertEquals(leftMotor, backend.getLeftMotor(0));
+        assertEquals(rightMotor, backend.getRightMotor(0));
+    }
+
+    private static class CountingBackend extends SimulatedXInputBackend {
+        int writes;
+
+        @Override
+        public int setVibration(final int playerNum, final int leftMotor, final int rightMotor) {
+            writes++;
+            return super.setVibration(playerNum, leftMotor, rightMotor);
+        }
+    }
+}